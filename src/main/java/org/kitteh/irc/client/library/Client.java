@@ -38,6 +38,8 @@ import org.kitteh.irc.client.library.feature.MessageTagManager;
 import org.kitteh.irc.client.library.feature.ServerInfo;
 import org.kitteh.irc.client.library.util.Cutter;
 import org.kitteh.irc.client.library.util.Pair;
+import org.kitteh.irc.client.library.util.QueuedMessage;
+import org.kitteh.irc.client.library.util.RateLimiter;
 import org.kitteh.irc.client.library.util.Sanity;
 
 import javax.annotation.Nonnull;
@@ -46,8 +48,11 @@ import javax.net.ssl.TrustManagerFactory;
 import java.io.File;
 import java.lang.reflect.Constructor;
 import java.net.InetAddress;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.function.Consumer;
 
 /**
@@ -99,6 +104,60 @@ public interface Client {
         @Nonnull
         Builder bindPort(int port);
 
+        /**
+         * Sets the threads on which the client's connection runs.
+         * <p>
+         * Clients given the same thread factory share one group of event
+         * loop threads, created by the first of them to connect with the
+         * given number of threads, so any number of clients can share
+         * threads sized and named as desired. The group is shut down
+         * shortly after its last connection closes.
+         * <p>
+         * By default, the client uses a group shared by all clients using
+         * the default, with Netty's default number of threads.
+         *
+         * @param threadFactory thread factory or null for the default
+         * @param threads number of threads, or 0 for Netty's default
+         * @return this builder
+         * @throws IllegalArgumentException if threads is negative
+         */
+        @Nonnull
+        Builder eventLoop(@Nullable ThreadFactory threadFactory, int threads);
+
+        /**
+         * Sets an executor on which the client processes input, notifies
+         * the exception, input and output listeners and invokes
+         * asynchronous event handlers, instead of on threads of its own.
+         * Each of these is still processed in order, one item at a time,
+         * so many clients can share a small executor without losing
+         * per-client ordering.
+         * <p>
+         * A provided executor is never shut down by the client. By default,
+         * the client starts dedicated threads.
+         *
+         * @param executor executor or null for dedicated threads
+         * @return this builder
+         * @see #eventLoop(ThreadFactory, int)
+         */
+        @Nonnull
+        Builder executor(@Nullable ExecutorService executor);
+
+        /**
+         * Sets how many received lines may wait to be processed before the
+         * client stops reading from the server. Reading resumes once half
+         * of them have been processed, leaving TCP flow control to hold
+         * back the server in the meantime. Server pings already read are
+         * answered straight away regardless.
+         * <p>
+         * By default, the number of waiting lines is unbounded.
+         *
+         * @param capacity maximum number of waiting lines
+         * @return this builder
+         * @throws IllegalArgumentException if capacity is less than one
+         */
+        @Nonnull
+        Builder inboundCapacity(int capacity);
+
         /**
          * Sets a listener for all thrown exceptions on this client. By default,
          * a consumer exists which calls Throwable#printStackTrace() on all
@@ -238,10 +297,56 @@ public interface Client {
          *
          * @param delay the delay in milliseconds
          * @return this builder
+         * @see #rateLimiter(RateLimiter)
          */
         @Nonnull
         Builder messageDelay(int delay);
 
+        /**
+         * Sets the rate limiter deciding when queued messages are sent.
+         * <p>
+         * By default, a {@link RateLimiter.TokenBucket} allowing a burst of
+         * {@link #DEFAULT_MESSAGE_BURST} messages and regaining one per
+         * message delay.
+         *
+         * @param rateLimiter rate limiter or null for the default
+         * @return this builder
+         * @see #messageDelay(int)
+         */
+        @Nonnull
+        Builder rateLimiter(@Nullable RateLimiter rateLimiter);
+
+        /**
+         * Sets how many messages may wait in the rate-limited queue, and
+         * what happens to new messages once it is full.
+         * <p>
+         * By default, the queue is unbounded. Messages sent without a
+         * handle, such as through {@link Client#sendMessage(String, String)},
+         * are dropped or rejected without notice.
+         *
+         * @param capacity maximum number of waiting messages
+         * @param overflow what to do when full
+         * @return this builder
+         * @throws IllegalArgumentException if capacity is less than one or
+         * overflow is null
+         */
+        @Nonnull
+        Builder outboundCapacity(int capacity, @Nonnull QueuedMessage.Overflow overflow);
+
+        /**
+         * Sets how long messages may wait in the rate-limited queue before
+         * they are dropped unsent.
+         * <p>
+         * By default, messages wait indefinitely. Expiry is only reported
+         * through the handle from {@link Client#sendRawLineQueued(String)}.
+         *
+         * @param timeToLive milliseconds to wait, or 0 for no limit
+         * @return this builder
+         * @throws IllegalArgumentException if timeToLive is negative
+         */
+        @Nonnull
+        Builder outboundTimeToLive(long timeToLive);
+
         /**
          * Sets the server host to which the client will connect.
          * <p>
@@ -328,6 +433,14 @@ public interface Client {
      */
     int DEFAULT_MESSAGE_DELAY = 1200;
 
+    /**
+     * The default number of messages which may be sent back to back
+     * before the message delay applies.
+     *
+     * @see Builder#rateLimiter(RateLimiter)
+     */
+    int DEFAULT_MESSAGE_BURST = 5;
+
     /**
      * Creates a {@link Builder} to build clients.
      *
@@ -552,6 +665,10 @@ public interface Client {
      * <p>
      * <i>Note: CTCP replies should not be sent this way. Catch the message
      * with the {@link PrivateCTCPQueryEvent}</i>
+     * <p>
+     * The message waits in the outbound queue, and may be dropped without
+     * notice if the queue is bounded or has a time to live. Use
+     * {@link #sendRawLineQueued(String)} to learn whether it was sent.
      *
      * @param target the destination of the message
      * @param message the message to send
@@ -566,6 +683,10 @@ public interface Client {
      * <p>
      * <i>Note: CTCP replies should not be sent this way. Catch the message
      * with the {@link PrivateCTCPQueryEvent}</i>
+     * <p>
+     * The message waits in the outbound queue, and may be dropped without
+     * notice if the queue is bounded or has a time to live. Use
+     * {@link #sendRawLineQueued(String)} to learn whether it was sent.
      *
      * @param target the destination of the message
      * @param message the message to send
@@ -578,6 +699,10 @@ public interface Client {
 
     /**
      * Sends a message to a target user or channel.
+     * <p>
+     * The message waits in the outbound queue, and may be dropped without
+     * notice if the queue is bounded or has a time to live. Use
+     * {@link #sendRawLineQueued(String)} to learn whether it was sent.
      *
      * @param target the destination of the message
      * @param message the message to send
@@ -587,6 +712,10 @@ public interface Client {
 
     /**
      * Sends a message to a target user or channel.
+     * <p>
+     * The message waits in the outbound queue, and may be dropped without
+     * notice if the queue is bounded or has a time to live. Use
+     * {@link #sendRawLineQueued(String)} to learn whether it was sent.
      *
      * @param target the destination of the message
      * @param message the message to send
@@ -597,8 +726,28 @@ public interface Client {
         this.sendMessage(target.getMessagingName(), message);
     }
 
+    /**
+     * Sends a message to many users or channels, with as many targets per
+     * line as the server allows through TARGMAX or MAXTARGETS. Falls back
+     * to a line per target if the server states no limit.
+     * <p>
+     * Each line waits in the outbound queue, and may be dropped without
+     * notice if the queue is bounded or has a time to live. Use
+     * {@link #sendRawLineQueued(String)} to learn whether a line was sent.
+     *
+     * @param targets the destinations of the message
+     * @param message the message to send
+     * @throws IllegalArgumentException for null parameters, or a target
+     * with a space or comma
+     */
+    void sendMessageToAll(@Nonnull Collection<String> targets, @Nonnull String message);
+
     /**
      * Sends a notice to a target user or channel.
+     * <p>
+     * The message waits in the outbound queue, and may be dropped without
+     * notice if the queue is bounded or has a time to live. Use
+     * {@link #sendRawLineQueued(String)} to learn whether it was sent.
      *
      * @param target the destination of the message
      * @param message the message to send
@@ -608,6 +757,10 @@ public interface Client {
 
     /**
      * Sends a notice to a target user or channel.
+     * <p>
+     * The message waits in the outbound queue, and may be dropped without
+     * notice if the queue is bounded or has a time to live. Use
+     * {@link #sendRawLineQueued(String)} to learn whether it was sent.
      *
      * @param target the destination of the message
      * @param message the message to send
@@ -618,12 +771,32 @@ public interface Client {
         this.sendNotice(target.getMessagingName(), message);
     }
 
+    /**
+     * Sends a notice to many users or channels, with as many targets per
+     * line as the server allows through TARGMAX or MAXTARGETS. Falls back
+     * to a line per target if the server states no limit.
+     * <p>
+     * Each line waits in the outbound queue, and may be dropped without
+     * notice if the queue is bounded or has a time to live. Use
+     * {@link #sendRawLineQueued(String)} to learn whether a line was sent.
+     *
+     * @param targets the destinations of the notice
+     * @param message the notice to send
+     * @throws IllegalArgumentException for null parameters, or a target
+     * with a space or comma
+     */
+    void sendNoticeToAll(@Nonnull Collection<String> targets, @Nonnull String message);
+
     /**
      * Sends a potentially multi-line message to a target user or channel
      * using the client's current {@link Cutter}.
      * <p>
      * Note that bots may not react appropriately to a message split across
      * multiple lines.
+     * <p>
+     * Each line waits in the outbound queue, and may be dropped without
+     * notice if the queue is bounded or has a time to live. Use
+     * {@link #sendRawLineQueued(String)} to learn whether a line was sent.
      *
      * @param target the destination of the message
      * @param message the message to send
@@ -639,6 +812,10 @@ public interface Client {
      * <p>
      * Note that bots may not react appropriately to a message split across
      * multiple lines.
+     * <p>
+     * Each line waits in the outbound queue, and may be dropped without
+     * notice if the queue is bounded or has a time to live. Use
+     * {@link #sendRawLineQueued(String)} to learn whether a line was sent.
      *
      * @param target the destination of the message
      * @param message the message to send
@@ -653,6 +830,10 @@ public interface Client {
      * <p>
      * Note that bots may not react appropriately to a message split across
      * multiple lines.
+     * <p>
+     * Each line waits in the outbound queue, and may be dropped without
+     * notice if the queue is bounded or has a time to live. Use
+     * {@link #sendRawLineQueued(String)} to learn whether a line was sent.
      *
      * @param target the destination of the message
      * @param message the message to send
@@ -668,6 +849,10 @@ public interface Client {
      * <p>
      * Note that bots may not react appropriately to a message split across
      * multiple lines.
+     * <p>
+     * Each line waits in the outbound queue, and may be dropped without
+     * notice if the queue is bounded or has a time to live. Use
+     * {@link #sendRawLineQueued(String)} to learn whether a line was sent.
      *
      * @param target the destination of the message
      * @param message the message to send
@@ -685,6 +870,10 @@ public interface Client {
      * <p>
      * Note that bots may not react appropriately to a message split across
      * multiple lines.
+     * <p>
+     * Each line waits in the outbound queue, and may be dropped without
+     * notice if the queue is bounded or has a time to live. Use
+     * {@link #sendRawLineQueued(String)} to learn whether a line was sent.
      *
      * @param target the destination of the message
      * @param message the message to send
@@ -700,6 +889,10 @@ public interface Client {
      * <p>
      * Note that bots may not react appropriately to a message split across
      * multiple lines.
+     * <p>
+     * Each line waits in the outbound queue, and may be dropped without
+     * notice if the queue is bounded or has a time to live. Use
+     * {@link #sendRawLineQueued(String)} to learn whether a line was sent.
      *
      * @param target the destination of the message
      * @param message the message to send
@@ -714,6 +907,10 @@ public interface Client {
      * <p>
      * Note that bots may not react appropriately to a message split across
      * multiple lines.
+     * <p>
+     * Each line waits in the outbound queue, and may be dropped without
+     * notice if the queue is bounded or has a time to live. Use
+     * {@link #sendRawLineQueued(String)} to learn whether a line was sent.
      *
      * @param target the destination of the message
      * @param message the message to send
@@ -729,6 +926,10 @@ public interface Client {
      * <p>
      * Note that bots may not react appropriately to a message split across
      * multiple lines.
+     * <p>
+     * Each line waits in the outbound queue, and may be dropped without
+     * notice if the queue is bounded or has a time to live. Use
+     * {@link #sendRawLineQueued(String)} to learn whether a line was sent.
      *
      * @param target the destination of the message
      * @param message the message to send
@@ -742,6 +943,10 @@ public interface Client {
 
     /**
      * Sends a raw IRC message.
+     * <p>
+     * The message waits in the outbound queue, and may be dropped without
+     * notice if the queue is bounded or has a time to live. Use
+     * {@link #sendRawLineQueued(String)} to learn whether it was sent.
      *
      * @param message message to send
      * @throws IllegalArgumentException if message is null
@@ -751,12 +956,28 @@ public interface Client {
     /**
      * Sends a raw IRC message, unless the exact same message is already in
      * the queue of messages not yet sent.
+     * <p>
+     * The message waits in the outbound queue, and may be dropped without
+     * notice if the queue is bounded or has a time to live. Use
+     * {@link #sendRawLineQueued(String)} to learn whether it was sent.
      *
      * @param message message to send
      * @throws IllegalArgumentException if message is null
      */
     void sendRawLineAvoidingDuplication(@Nonnull String message);
 
+    /**
+     * Sends a raw IRC message, returning a handle to follow or cancel it
+     * while it waits in the queue.
+     *
+     * @param message message to send
+     * @return the queued message, already rejected if the queue is full
+     * @throws IllegalArgumentException if message is null
+     * @see Builder#outboundCapacity(int, QueuedMessage.Overflow)
+     */
+    @Nonnull
+    QueuedMessage sendRawLineQueued(@Nonnull String message);
+
     /**
      * Sends a raw IRC message, disregarding message delays and all sanity.
      * Live life on the wild side with this method designed to ensure you
@@ -793,7 +1014,8 @@ public interface Client {
     void setMessageCutter(@Nonnull Cutter cutter);
 
     /**
-     * Sets the delay between messages sent to the server.
+     * Sets the delay between messages sent to the server. Has no effect
+     * if a custom {@link RateLimiter} was set.
      * <p>
      * Default is 1200ms.
      *
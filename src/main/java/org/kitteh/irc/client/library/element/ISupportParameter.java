@@ -130,6 +130,17 @@ public interface ISupportParameter extends ClientLinked {
         List<Character> getTypes();
     }
 
+    /**
+     * Represents the limit to targets per PRIVMSG or NOTICE, predating
+     * {@link TargMax}.
+     */
+    interface MaxTargets extends IntegerParameter {
+        /**
+         * Parameter name.
+         */
+        String NAME = "MAXTARGETS";
+    }
+
     /**
      * Represents the number of modes with parameters allowed per line.
      */
@@ -196,6 +207,26 @@ public interface ISupportParameter extends ClientLinked {
         String NAME = "WHOX";
     }
 
+    /**
+     * Represents the limits to targets per command.
+     */
+    interface TargMax extends ISupportParameter {
+        /**
+         * Parameter name.
+         */
+        String NAME = "TARGMAX";
+
+        /**
+         * Gets the target limits. Commands without a stated limit are
+         * mapped to {@link Integer#MAX_VALUE}, while unlisted commands
+         * are not known to accept multiple targets.
+         *
+         * @return limits by upper case command
+         */
+        @Nonnull
+        Map<String, Integer> getLimits();
+    }
+
     /**
      * Represents the length limit of topics.
      */
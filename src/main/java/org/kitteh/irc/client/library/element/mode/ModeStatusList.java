@@ -24,19 +24,18 @@
 package org.kitteh.irc.client.library.element.mode;
 
 import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.feature.ServerInfo;
 import org.kitteh.irc.client.library.util.Sanity;
 import org.kitteh.irc.client.library.util.ToStringer;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -45,6 +44,17 @@ import java.util.stream.Collectors;
  * @param <ModeType> type of modes being listed
  */
 public class ModeStatusList<ModeType extends Mode> {
+    /**
+     * Finds modes by character while parsing.
+     *
+     * @param <ModeType> type of modes found
+     */
+    @FunctionalInterface
+    private interface ModeLookup<ModeType extends Mode> {
+        @Nullable
+        ModeType get(char character);
+    }
+
     /**
      * Creates a list from a given string input such as "+o Kittens".
      *
@@ -54,10 +64,13 @@ public class ModeStatusList<ModeType extends Mode> {
      */
     @Nonnull
     public static ModeStatusList<ChannelMode> fromChannel(@Nonnull Client client, @Nonnull String string) {
-        Map<Character, ChannelMode> modes = new HashMap<>();
-        client.getServerInfo().getChannelModes().forEach(mode -> modes.put(mode.getChar(), mode));
-        client.getServerInfo().getChannelUserModes().forEach(mode -> modes.put(mode.getChar(), mode));
-        return from(client, string, modes);
+        Sanity.nullCheck(client, "Client cannot be null");
+        // Server info keeps its modes in tables by character, rebuilt only when ISUPPORT changes
+        ServerInfo serverInfo = client.getServerInfo();
+        return from(client, string, character -> {
+            Optional<ChannelUserMode> userMode = serverInfo.getChannelUserMode(character);
+            return userMode.isPresent() ? userMode.get() : serverInfo.getChannelMode(character).orElse(null);
+        });
     }
 
     /**
@@ -69,23 +82,35 @@ public class ModeStatusList<ModeType extends Mode> {
      */
     @Nonnull
     public static ModeStatusList<UserMode> fromUser(@Nonnull Client client, @Nonnull String string) {
-        return from(client, string, client.getServerInfo().getUserModes().stream().collect(Collectors.toMap(UserMode::getChar, Function.identity())));
+        Sanity.nullCheck(client, "Client cannot be null");
+        List<UserMode> userModes = client.getServerInfo().getUserModes();
+        return from(client, string, character -> {
+            for (UserMode mode : userModes) {
+                if (mode.getChar() == character) {
+                    return mode;
+                }
+            }
+            return null;
+        });
     }
 
     @Nonnull
-    private static <ModeType extends Mode> ModeStatusList<ModeType> from(@Nonnull Client client, @Nonnull String string, @Nonnull Map<Character, ModeType> modes) {
+    private static <ModeType extends Mode> ModeStatusList<ModeType> from(@Nonnull Client client, @Nonnull String string, @Nonnull ModeLookup<ModeType> modes) {
         Sanity.nullCheck(client, "Client cannot be null");
         Sanity.safeMessageCheck(string, "String");
         List<ModeStatus<ModeType>> list = new ArrayList<>();
-        String[] args = string.split(" ");
-        int currentArg = -1;
-        while (++currentArg < args.length) {
-            String changes = args[currentArg];
-            if (!((changes.charAt(0) == '+') || (changes.charAt(0) == '-'))) {
+        int length = string.length();
+        int position = 0;
+        // Walks each run of changes, taking parameters from the words following it
+        do {
+            int changesEnd = indexOfSpace(string, position);
+            if ((changesEnd == position) || !((string.charAt(position) == '+') || (string.charAt(position) == '-'))) {
                 throw new IllegalArgumentException("Mode change does not start with + or -");
             }
+            int parameter = changesEnd + 1;
             boolean add = true;
-            for (char modeChar : changes.toCharArray()) {
+            for (int i = position; i < changesEnd; i++) {
+                char modeChar = string.charAt(i);
                 switch (modeChar) {
                     case '+':
                         add = true;
@@ -100,15 +125,26 @@ public class ModeStatusList<ModeType extends Mode> {
                         }
                         String target = null;
                         if ((mode instanceof ChannelMode) && ((mode instanceof ChannelUserMode) || (add ? ((ChannelMode) mode).getType().isParameterRequiredOnSetting() : ((ChannelMode) mode).getType().isParameterRequiredOnRemoval()))) {
-                            target = args[++currentArg];
+                            if (parameter >= length) {
+                                throw new IllegalArgumentException("Missing parameter for mode: " + modeChar);
+                            }
+                            int parameterEnd = indexOfSpace(string, parameter);
+                            target = string.substring(parameter, parameterEnd);
+                            parameter = parameterEnd + 1;
                         }
                         list.add((target == null) ? new ModeStatus<>(add, mode) : new ModeStatus<>(add, mode, target));
                 }
             }
-        }
+            position = parameter;
+        } while (position < length);
         return ModeStatusList.of(list);
     }
 
+    private static int indexOfSpace(@Nonnull String string, int from) {
+        int index = string.indexOf(' ', from);
+        return (index == -1) ? string.length() : index;
+    }
+
     /**
      * Creates a list of the given statuses.
      *
@@ -33,6 +33,7 @@ import org.kitteh.irc.client.library.util.Sanity;
 
 import javax.annotation.Nonnull;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Abstract base class for events involving an Actor and Channel. Use the
@@ -43,7 +44,8 @@ import java.util.List;
  * @see ChannelEvent
  */
 public abstract class ActorChannelEventBase<A extends Actor> extends ActorEventBase<A> implements ChannelEvent {
-    private final Channel channel;
+    private volatile Channel channel;
+    private Supplier<Channel> channelSupplier;
 
     /**
      * Constructs the event.
@@ -60,9 +62,36 @@ public abstract class ActorChannelEventBase<A extends Actor> extends ActorEventB
         this.channel = channel;
     }
 
+    /**
+     * Constructs the event with a channel snapshot taken on first access.
+     *
+     * @param client the client
+     * @param originalMessages original messages
+     * @param actor the actor
+     * @param channelSupplier supplier of the channel, called at most once
+     */
+    protected ActorChannelEventBase(@Nonnull Client client, @Nonnull List<ServerMessage> originalMessages, @Nonnull A actor, @Nonnull Supplier<Channel> channelSupplier) {
+        super(client, originalMessages, actor);
+        Sanity.nullCheck(channelSupplier, "Channel supplier cannot be null");
+        this.channelSupplier = channelSupplier;
+    }
+
     @Override
     @Nonnull
     public final Channel getChannel() {
-        return this.channel;
+        Channel channel = this.channel;
+        if (channel == null) {
+            synchronized (this) {
+                channel = this.channel;
+                if (channel == null) {
+                    channel = this.channelSupplier.get();
+                    Sanity.nullCheck(channel, "Channel cannot be null");
+                    Sanity.truthiness(channel.getClient() == this.getClient(), "Channel must be from given Client");
+                    this.channel = channel;
+                    this.channelSupplier = null;
+                }
+            }
+        }
+        return channel;
     }
 }
@@ -34,6 +34,7 @@ import org.kitteh.irc.client.library.util.Sanity;
 
 import javax.annotation.Nonnull;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Abstract base class for events involving an Actor and Channel and have a
@@ -63,6 +64,21 @@ public abstract class ActorChannelMessageEventBase<A extends Actor> extends Acto
         this.message = message;
     }
 
+    /**
+     * Constructs the event with a channel snapshot taken on first access.
+     *
+     * @param client the client
+     * @param originalMessages original messages
+     * @param actor the actor
+     * @param channelSupplier supplier of the channel, called at most once
+     * @param message the message
+     */
+    protected ActorChannelMessageEventBase(@Nonnull Client client, @Nonnull List<ServerMessage> originalMessages, @Nonnull A actor, @Nonnull Supplier<Channel> channelSupplier, @Nonnull String message) {
+        super(client, originalMessages, actor, channelSupplier);
+        Sanity.nullCheck(message, "Message cannot be null");
+        this.message = message;
+    }
+
     @Override
     @Nonnull
     public final String getMessage() {
@@ -31,6 +31,7 @@ import org.kitteh.irc.client.library.util.Sanity;
 
 import javax.annotation.Nonnull;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Abstract base class for events involving an Actor. Use the helper events
@@ -40,7 +41,8 @@ import java.util.List;
  * @see ActorEvent
  */
 public abstract class ActorEventBase<A extends Actor> extends ServerMessageEventBase implements ActorEvent<A> {
-    private final A actor;
+    private volatile A actor;
+    private Supplier<A> actorSupplier;
 
     /**
      * Constructs the event.
@@ -56,9 +58,35 @@ public abstract class ActorEventBase<A extends Actor> extends ServerMessageEvent
         this.actor = actor;
     }
 
+    /**
+     * Constructs the event with an actor snapshot taken on first access.
+     *
+     * @param client the client
+     * @param originalMessages original messages
+     * @param actorSupplier supplier of the actor, called at most once
+     */
+    protected ActorEventBase(@Nonnull Client client, @Nonnull List<ServerMessage> originalMessages, @Nonnull Supplier<A> actorSupplier) {
+        super(client, originalMessages);
+        Sanity.nullCheck(actorSupplier, "Actor supplier cannot be null");
+        this.actorSupplier = actorSupplier;
+    }
+
     @Override
     @Nonnull
     public final A getActor() {
-        return this.actor;
+        A actor = this.actor;
+        if (actor == null) {
+            synchronized (this) {
+                actor = this.actor;
+                if (actor == null) {
+                    actor = this.actorSupplier.get();
+                    Sanity.nullCheck(actor, "Actor cannot be null");
+                    Sanity.truthiness(actor.getClient() == this.getClient(), "Actor must be from given Client");
+                    this.actor = actor;
+                    this.actorSupplier = null;
+                }
+            }
+        }
+        return actor;
     }
 }
@@ -33,6 +33,7 @@ import javax.annotation.Nonnull;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Abstract base class for events involving a server message. Use the helper
@@ -61,6 +62,23 @@ public class ClientReceiveServerMessageEventBase extends ActorEventBase<Actor> i
         this.originalMessage = serverMessage.getMessage();
     }
 
+    /**
+     * Constructs the event with an actor snapshot taken on first access.
+     *
+     * @param client client
+     * @param serverMessage server message
+     * @param serverSupplier supplier of the server, called at most once
+     * @param command command
+     * @param args args
+     */
+    public ClientReceiveServerMessageEventBase(@Nonnull Client client, @Nonnull ServerMessage serverMessage, @Nonnull Supplier<Actor> serverSupplier, @Nonnull String command, @Nonnull List<String> args) {
+        super(client, Collections.singletonList(serverMessage), serverSupplier);
+        this.args = Collections.unmodifiableList(new ArrayList<>(args));
+        this.messageTags = serverMessage.getTags();
+        this.command = command;
+        this.originalMessage = serverMessage.getMessage();
+    }
+
     /**
      * Gets the subsequent arguments after the numeric.
      *
@@ -36,6 +36,7 @@ import org.kitteh.irc.client.library.util.Sanity;
 
 import javax.annotation.Nonnull;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Abstract base class for events involving an Actor and Channel and have a
@@ -66,6 +67,22 @@ public abstract class TargetedUserChannelMessageEventBase extends ActorChannelMe
         this.prefix = prefix;
     }
 
+    /**
+     * Constructs the event with a channel snapshot taken on first access.
+     *
+     * @param client the client
+     * @param originalMessages original messages
+     * @param user the user
+     * @param channelSupplier supplier of the channel, called at most once
+     * @param prefix the targeted prefix
+     * @param message the message
+     */
+    protected TargetedUserChannelMessageEventBase(@Nonnull Client client, @Nonnull List<ServerMessage> originalMessages, @Nonnull User user, @Nonnull Supplier<Channel> channelSupplier, @Nonnull ChannelUserMode prefix, @Nonnull String message) {
+        super(client, originalMessages, user, channelSupplier, message);
+        Sanity.nullCheck(prefix, "Prefix cannot be null");
+        this.prefix = prefix;
+    }
+
     /**
      * Gets the prefix to which the message was sent.
      *
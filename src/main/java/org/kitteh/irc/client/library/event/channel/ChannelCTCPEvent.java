@@ -32,6 +32,7 @@ import org.kitteh.irc.client.library.event.helper.ActorMessageEvent;
 
 import javax.annotation.Nonnull;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * The client has received a CTCP message! The method {@link #getMessage()}
@@ -52,4 +53,17 @@ public class ChannelCTCPEvent extends ActorChannelMessageEventBase<User> impleme
     public ChannelCTCPEvent(@Nonnull Client client, @Nonnull List<ServerMessage> originalMessages, @Nonnull User sender, @Nonnull Channel channel, @Nonnull String message) {
         super(client, originalMessages, sender, channel, message);
     }
+
+    /**
+     * Creates the event with a channel snapshot taken on first access.
+     *
+     * @param client client for which this is occurring
+     * @param originalMessages original messages
+     * @param sender sender of the message
+     * @param channelSupplier supplier of the channel, called at most once
+     * @param message message sent
+     */
+    public ChannelCTCPEvent(@Nonnull Client client, @Nonnull List<ServerMessage> originalMessages, @Nonnull User sender, @Nonnull Supplier<Channel> channelSupplier, @Nonnull String message) {
+        super(client, originalMessages, sender, channelSupplier, message);
+    }
 }
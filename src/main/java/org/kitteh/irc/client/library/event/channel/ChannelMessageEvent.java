@@ -33,6 +33,7 @@ import org.kitteh.irc.client.library.event.helper.Replyable;
 
 import javax.annotation.Nonnull;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Fires when a message is sent to a channel. Note that the sender may be the
@@ -52,6 +53,19 @@ public class ChannelMessageEvent extends ActorChannelMessageEventBase<User> impl
         super(client, originalMessages, sender, channel, message);
     }
 
+    /**
+     * Creates the event with a channel snapshot taken on first access.
+     *
+     * @param client client for which this is occurring
+     * @param originalMessages original messages
+     * @param sender who sent it
+     * @param channelSupplier supplier of the channel, called at most once
+     * @param message message sent
+     */
+    public ChannelMessageEvent(@Nonnull Client client, @Nonnull List<ServerMessage> originalMessages, @Nonnull User sender, @Nonnull Supplier<Channel> channelSupplier, @Nonnull String message) {
+        super(client, originalMessages, sender, channelSupplier, message);
+    }
+
     @Override
     public void sendReply(@Nonnull String message) {
         this.getChannel().sendMessage(message);
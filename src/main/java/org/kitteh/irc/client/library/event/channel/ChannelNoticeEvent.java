@@ -32,6 +32,7 @@ import org.kitteh.irc.client.library.event.helper.ActorMessageEvent;
 
 import javax.annotation.Nonnull;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Fires when a notice is sent to a channel. Note that the sender may be the
@@ -50,4 +51,17 @@ public class ChannelNoticeEvent extends ActorChannelMessageEventBase<User> imple
     public ChannelNoticeEvent(@Nonnull Client client, @Nonnull List<ServerMessage> originalMessages, @Nonnull User sender, @Nonnull Channel channel, @Nonnull String message) {
         super(client, originalMessages, sender, channel, message);
     }
+
+    /**
+     * Creates the event with a channel snapshot taken on first access.
+     *
+     * @param client client for which this is occurring
+     * @param originalMessages original messages
+     * @param sender who sent it
+     * @param channelSupplier supplier of the channel, called at most once
+     * @param message message sent
+     */
+    public ChannelNoticeEvent(@Nonnull Client client, @Nonnull List<ServerMessage> originalMessages, @Nonnull User sender, @Nonnull Supplier<Channel> channelSupplier, @Nonnull String message) {
+        super(client, originalMessages, sender, channelSupplier, message);
+    }
 }
@@ -33,6 +33,7 @@ import org.kitteh.irc.client.library.event.helper.ActorMessageEvent;
 
 import javax.annotation.Nonnull;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Fires when a CTCP message is sent to a subset of users in a channel. The
@@ -54,4 +55,18 @@ public class ChannelTargetedCTCPEvent extends TargetedUserChannelMessageEventBas
     public ChannelTargetedCTCPEvent(@Nonnull Client client, @Nonnull List<ServerMessage> originalMessages, @Nonnull User sender, @Nonnull Channel channel, @Nonnull ChannelUserMode prefix, @Nonnull String message) {
         super(client, originalMessages, sender, channel, prefix, message);
     }
+
+    /**
+     * Creates the event with a channel snapshot taken on first access.
+     *
+     * @param client client for which this is occurring
+     * @param originalMessages original messages
+     * @param sender who sent it
+     * @param channelSupplier supplier of the channel, called at most once
+     * @param prefix targeted prefix
+     * @param message message sent
+     */
+    public ChannelTargetedCTCPEvent(@Nonnull Client client, @Nonnull List<ServerMessage> originalMessages, @Nonnull User sender, @Nonnull Supplier<Channel> channelSupplier, @Nonnull ChannelUserMode prefix, @Nonnull String message) {
+        super(client, originalMessages, sender, channelSupplier, prefix, message);
+    }
 }
@@ -34,6 +34,7 @@ import org.kitteh.irc.client.library.event.helper.Replyable;
 
 import javax.annotation.Nonnull;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Fires when a message is sent to a subset of users in a channel. Note that
@@ -55,6 +56,20 @@ public class ChannelTargetedMessageEvent extends TargetedUserChannelMessageEvent
         super(client, originalMessages, sender, channel, prefix, message);
     }
 
+    /**
+     * Creates the event with a channel snapshot taken on first access.
+     *
+     * @param client client for which this is occurring
+     * @param originalMessages original messages
+     * @param sender who sent it
+     * @param channelSupplier supplier of the channel, called at most once
+     * @param prefix targeted prefix
+     * @param message message sent
+     */
+    public ChannelTargetedMessageEvent(@Nonnull Client client, @Nonnull List<ServerMessage> originalMessages, @Nonnull User sender, @Nonnull Supplier<Channel> channelSupplier, @Nonnull ChannelUserMode prefix, @Nonnull String message) {
+        super(client, originalMessages, sender, channelSupplier, prefix, message);
+    }
+
     @Override
     public void sendReply(@Nonnull String message) {
         this.getClient().sendMessage(this.getTargetedName(), message);
@@ -31,6 +31,7 @@ import org.kitteh.irc.client.library.feature.filter.CommandFilter;
 
 import javax.annotation.Nonnull;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Fires when the client receives a command message. Note that the client
@@ -53,4 +54,17 @@ public class ClientReceiveCommandEvent extends ClientReceiveServerMessageEventBa
     public ClientReceiveCommandEvent(@Nonnull Client client, @Nonnull ServerMessage serverMessage, @Nonnull Actor actor, @Nonnull String command, @Nonnull List<String> args) {
         super(client, serverMessage, actor, command, args);
     }
+
+    /**
+     * Constructs the event with an actor snapshot taken on first access.
+     *
+     * @param client client
+     * @param serverMessage server message
+     * @param actorSupplier supplier of the actor, called at most once
+     * @param command command
+     * @param args args
+     */
+    public ClientReceiveCommandEvent(@Nonnull Client client, @Nonnull ServerMessage serverMessage, @Nonnull Supplier<Actor> actorSupplier, @Nonnull String command, @Nonnull List<String> args) {
+        super(client, serverMessage, actorSupplier, command, args);
+    }
 }
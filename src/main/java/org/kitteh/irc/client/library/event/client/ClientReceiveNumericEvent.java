@@ -31,6 +31,7 @@ import org.kitteh.irc.client.library.feature.filter.NumericFilter;
 
 import javax.annotation.Nonnull;
 import java.util.List;
+import java.util.function.Supplier;
 
 /**
  * Fires when the client receives a numeric coded message. Note that the
@@ -58,6 +59,21 @@ public class ClientReceiveNumericEvent extends ClientReceiveServerMessageEventBa
         this.numeric = numeric;
     }
 
+    /**
+     * Constructs the event with an actor snapshot taken on first access.
+     *
+     * @param client client
+     * @param serverMessage server message
+     * @param serverSupplier supplier of the server, called at most once
+     * @param command command
+     * @param numeric numeric
+     * @param args args
+     */
+    public ClientReceiveNumericEvent(@Nonnull Client client, @Nonnull ServerMessage serverMessage, @Nonnull Supplier<Actor> serverSupplier, String command, int numeric, @Nonnull List<String> args) {
+        super(client, serverMessage, serverSupplier, command, args);
+        this.numeric = numeric;
+    }
+
     /**
      * Gets the numeric code sent.
      *
@@ -80,20 +80,91 @@ public enum CaseMapping {
      * @return true if equal ignoring case using this case mapping
      */
     public boolean areEqualIgnoringCase(@Nonnull String one, @Nonnull String two) {
-        return this.toLowerCase(one).equals(this.toLowerCase(two));
+        return this.equals(one, two);
+    }
+
+    /**
+     * Compares two given character sequences lexicographically, case
+     * insensitive, using this case mapping. Does not allocate.
+     *
+     * @param one one sequence
+     * @param two another sequence
+     * @return negative, zero or positive as one is less than, equal to or
+     * greater than two
+     */
+    public int compare(@Nonnull CharSequence one, @Nonnull CharSequence two) {
+        int length = Math.min(one.length(), two.length());
+        for (int i = 0; i < length; i++) {
+            char a = one.charAt(i);
+            char b = two.charAt(i);
+            if (a != b) {
+                a = this.fold(a);
+                b = this.fold(b);
+                if (a != b) {
+                    return a - b;
+                }
+            }
+        }
+        return one.length() - two.length();
+    }
+
+    /**
+     * Gets if two given character sequences are equal, case insensitive,
+     * using this case mapping. Does not allocate.
+     *
+     * @param one one sequence
+     * @param two another sequence
+     * @return true if equal ignoring case using this case mapping
+     */
+    public boolean equals(@Nonnull CharSequence one, @Nonnull CharSequence two) {
+        int length = one.length();
+        if (length != two.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            char a = one.charAt(i);
+            char b = two.charAt(i);
+            if ((a != b) && (this.fold(a) != this.fold(b))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets a hash code of the given character sequence, case insensitive,
+     * using this case mapping. Does not allocate, and matches the hash
+     * code of the lowercased string.
+     *
+     * @param input sequence to hash
+     * @return hash code
+     */
+    public int hash(@Nonnull CharSequence input) {
+        int hash = 0;
+        for (int i = 0; i < input.length(); i++) {
+            hash = (31 * hash) + this.fold(input.charAt(i));
+        }
+        return hash;
     }
 
     /**
      * Converts a given String to lowercase per spec.
      *
      * @param input string to be lowercased
-     * @return lowercased string
+     * @return lowercased string, the same instance if already lowercase
      * @throws IllegalArgumentException if input is null
      */
     @Nonnull
     public String toLowerCase(@Nonnull String input) {
+        int first = 0;
+        while ((first < input.length()) && (this.fold(input.charAt(first)) == input.charAt(first))) {
+            first++;
+        }
+        if (first == input.length()) {
+            return input;
+        }
         char[] arr = input.toCharArray();
-        for (int i = 0; i < arr.length; i++) {
+        for (int i = first; i < arr.length; i++) {
             char c = arr[i];
             if ((c >= 'A') && (c <= this.upperbound)) {
                 arr[i] += (char) 32;
@@ -101,4 +172,8 @@ public enum CaseMapping {
         }
         return new String(arr);
     }
+
+    private char fold(char c) {
+        return ((c >= 'A') && (c <= this.upperbound)) ? (char) (c + 32) : c;
+    }
 }
@@ -31,6 +31,7 @@ import org.kitteh.irc.client.library.element.mode.UserMode;
 import javax.annotation.Nonnull;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 
@@ -196,6 +197,32 @@ public interface ServerInfo {
         return optional.isPresent() ? optional.get().getInteger() : -1;
     }
 
+    /**
+     * Gets the maximum number of comma-separated targets a command may
+     * have, from TARGMAX or, failing that, MAXTARGETS. JOIN and PART are
+     * commonly left out of TARGMAX despite taking several channels, so
+     * for them only a listed limit counts.
+     *
+     * @param command command, such as PRIVMSG or JOIN
+     * @return target limit, {@link Integer#MAX_VALUE} if unlimited, 1 if
+     * TARGMAX does not list the command other than JOIN or PART, or -1 if
+     * unknown
+     */
+    default int getTargetLimit(@Nonnull String command) {
+        String upperCommand = command.toUpperCase(Locale.ENGLISH);
+        boolean channelList = upperCommand.equals("JOIN") || upperCommand.equals("PART");
+        Optional<ISupportParameter.TargMax> targMax = this.getISupportParameter(ISupportParameter.TargMax.NAME, ISupportParameter.TargMax.class);
+        if (targMax.isPresent()) {
+            Integer limit = targMax.get().getLimits().get(upperCommand);
+            return (limit != null) ? limit : (channelList ? -1 : 1);
+        }
+        if (channelList) {
+            return -1;
+        }
+        Optional<ISupportParameter.MaxTargets> maxTargets = this.getISupportParameter(ISupportParameter.MaxTargets.NAME, ISupportParameter.MaxTargets.class);
+        return maxTargets.isPresent() ? maxTargets.get().getInteger() : -1;
+    }
+
     /**
      * Gets the user modes available. If the server has not provided
      * information on user modes, defaults are used and returned here.
@@ -25,6 +25,7 @@ package org.kitteh.irc.client.library.feature.filter;
 
 import net.engio.mbassy.bus.BusRuntime;
 import net.engio.mbassy.bus.IMessagePublication;
+import net.engio.mbassy.bus.MessagePublication;
 import net.engio.mbassy.bus.config.IBusConfiguration;
 import net.engio.mbassy.bus.error.MessageBusException;
 import net.engio.mbassy.common.StrongConcurrentSet;
@@ -35,6 +36,8 @@ import net.engio.mbassy.listener.MessageHandler;
 import net.engio.mbassy.subscription.Subscription;
 import net.engio.mbassy.subscription.SubscriptionContext;
 import net.engio.mbassy.subscription.SubscriptionFactory;
+import org.kitteh.irc.client.library.event.client.ClientReceiveCommandEvent;
+import org.kitteh.irc.client.library.event.client.ClientReceiveNumericEvent;
 import org.kitteh.irc.client.library.util.Sanity;
 import org.kitteh.irc.client.library.util.ToStringer;
 
@@ -43,12 +46,56 @@ import java.lang.annotation.Annotation;
 import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class FilteringSubscriptionFactory extends SubscriptionFactory {
+    /**
+     * Publishes command and numeric events only to the subscriptions indexed
+     * under the event's command or numeric, plus any not indexed at all.
+     */
+    private final class IndexedPublicationFactory extends MessagePublication.Factory {
+        @Override
+        public IMessagePublication createPublication(BusRuntime runtime, Collection<Subscription> subscriptions, Object message) {
+            if (message instanceof ClientReceiveCommandEvent) {
+                String command = ((ClientReceiveCommandEvent) message).getCommand().toUpperCase(Locale.ENGLISH);
+                subscriptions = FilteringSubscriptionFactory.this.filter(message.getClass(), subscriptions, FilteringSubscriptionFactory.this.commandIndexed, command, FilteringSubscriptionFactory.this.commandIndex.get(command));
+            } else if (message instanceof ClientReceiveNumericEvent) {
+                int numeric = ((ClientReceiveNumericEvent) message).getNumeric();
+                subscriptions = FilteringSubscriptionFactory.this.filter(message.getClass(), subscriptions, FilteringSubscriptionFactory.this.numericIndexed, numeric, FilteringSubscriptionFactory.this.numericIndex.get(numeric));
+            }
+            return super.createPublication(runtime, subscriptions, message);
+        }
+    }
+
+    /**
+     * Subscriptions for one index key, filtered from the given number of
+     * subscriptions to the message type.
+     */
+    private static final class Filtered {
+        private final int sourceSize;
+        private final List<Subscription> subscriptions;
+
+        private Filtered(int sourceSize, @Nonnull List<Subscription> subscriptions) {
+            this.sourceSize = sourceSize;
+            this.subscriptions = subscriptions;
+        }
+    }
+
+    private static final Object UNINDEXED = new Object();
     private static final Constructor<Subscription> SUBSCRIPTION_CONSTRUCTOR;
     private final Map<Class<? extends Annotation>, FilterProcessor<?, ? extends Annotation>> filters;
+    private final Map<String, Set<Subscription>> commandIndex = new ConcurrentHashMap<>();
+    private final Set<Subscription> commandIndexed = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final Map<Integer, Set<Subscription>> numericIndex = new ConcurrentHashMap<>();
+    private final Set<Subscription> numericIndexed = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private final Map<Class<?>, Map<Object, Filtered>> filtered = new ConcurrentHashMap<>();
+    private final MessagePublication.Factory publicationFactory = new IndexedPublicationFactory();
+    private volatile boolean indexing;
 
     public FilteringSubscriptionFactory(@Nonnull Map<Class<? extends Annotation>, FilterProcessor<?, ? extends Annotation>> filters) {
         this.filters = Sanity.nullCheck(filters, "filters");
@@ -69,21 +116,86 @@ public class FilteringSubscriptionFactory extends SubscriptionFactory {
             SubscriptionContext context = new SubscriptionContext(runtime, handlerMetadata, runtime.get(IBusConfiguration.Properties.PublicationErrorHandlers));
             IMessageDispatcher dispatcher = this.buildDispatcher(context, this.buildInvocationForHandler(context));
             List<FilterProcessorWrapper> filterWrappers = new ArrayList<>();
+            CommandFilter[] indexedCommands = null;
+            NumericFilter[] indexedNumerics = null;
             for (Map.Entry<Class<? extends Annotation>, FilterProcessor<?, ? extends Annotation>> entry : this.filters.entrySet()) {
                 Annotation[] annotations = handlerMetadata.getMethod().getAnnotationsByType(entry.getKey());
                 if (annotations.length > 0) {
-                    filterWrappers.add(new FilterProcessorWrapper(entry.getValue(), annotations));
+                    // The default command and numeric processors are replaced by an index lookup at publication
+                    if (this.indexing && (entry.getValue().getClass() == CommandFilter.Processor.class)) {
+                        indexedCommands = (CommandFilter[]) annotations;
+                    } else if (this.indexing && (entry.getValue().getClass() == NumericFilter.Processor.class)) {
+                        indexedNumerics = (NumericFilter[]) annotations;
+                    } else {
+                        filterWrappers.add(new FilterProcessorWrapper(entry.getValue(), annotations));
+                    }
                 }
             }
             if (!filterWrappers.isEmpty()) {
                 dispatcher = new FilteredMessageDispatcher(dispatcher, filterWrappers.toArray(new FilterProcessorWrapper[filterWrappers.size()]));
             }
-            return SUBSCRIPTION_CONSTRUCTOR.newInstance(context, dispatcher, handlerMetadata.useStrongReferences() ? new StrongConcurrentSet<>() : new WeakConcurrentSet<>());
+            this.filtered.clear();
+            Subscription subscription = SUBSCRIPTION_CONSTRUCTOR.newInstance(context, dispatcher, handlerMetadata.useStrongReferences() ? new StrongConcurrentSet<>() : new WeakConcurrentSet<>());
+            if (indexedCommands != null) {
+                for (CommandFilter commandFilter : indexedCommands) {
+                    this.commandIndex.computeIfAbsent(commandFilter.value().toUpperCase(Locale.ENGLISH), key -> Collections.newSetFromMap(new ConcurrentHashMap<>())).add(subscription);
+                }
+                this.commandIndexed.add(subscription);
+            }
+            if (indexedNumerics != null) {
+                for (NumericFilter numericFilter : indexedNumerics) {
+                    this.numericIndex.computeIfAbsent(numericFilter.value(), key -> Collections.newSetFromMap(new ConcurrentHashMap<>())).add(subscription);
+                }
+                this.numericIndexed.add(subscription);
+            }
+            return subscription;
         } catch (Exception e) {
             throw new MessageBusException(e);
         }
     }
 
+    /**
+     * Gets the publication factory which applies the command and numeric
+     * index built by this subscription factory. Must be set on the same bus
+     * configuration as this subscription factory. Until this is called,
+     * command and numeric filters are evaluated per subscription instead.
+     *
+     * @return publication factory
+     */
+    @Nonnull
+    public MessagePublication.Factory getPublicationFactory() {
+        this.indexing = true;
+        return this.publicationFactory;
+    }
+
+    /**
+     * Gets the subscriptions for an index key, filtering them only the
+     * first time the key is seen for a message type. Lists are dropped
+     * whenever a subscription is created, and refiltered if the number of
+     * subscriptions to the message type has changed regardless.
+     */
+    @Nonnull
+    private Collection<Subscription> filter(@Nonnull Class<?> messageType, @Nonnull Collection<Subscription> subscriptions, @Nonnull Set<Subscription> indexed, @Nonnull Object key, Set<Subscription> matching) {
+        if (indexed.isEmpty()) {
+            return subscriptions;
+        }
+        Map<Object, Filtered> byKey = this.filtered.computeIfAbsent(messageType, type -> new ConcurrentHashMap<>());
+        Object cacheKey = (matching == null) ? UNINDEXED : key;
+        Filtered cached = byKey.get(cacheKey);
+        if ((cached != null) && (cached.sourceSize == subscriptions.size())) {
+            return cached.subscriptions;
+        }
+        List<Subscription> filtered = new ArrayList<>(subscriptions.size());
+        for (Subscription subscription : subscriptions) {
+            if (!indexed.contains(subscription) || ((matching != null) && matching.contains(subscription))) {
+                filtered.add(subscription);
+            }
+        }
+        List<Subscription> list = Collections.unmodifiableList(filtered);
+        byKey.put(cacheKey, new Filtered(subscriptions.size(), list));
+        return list;
+    }
+
     private final class FilteredMessageDispatcher extends DelegatingMessageDispatcher {
         private final FilterProcessorWrapper[] filters;
 
@@ -37,7 +37,9 @@ import org.kitteh.irc.client.library.element.mode.ChannelUserMode;
 import org.kitteh.irc.client.library.element.mode.ModeInfo;
 import org.kitteh.irc.client.library.element.mode.ModeStatus;
 import org.kitteh.irc.client.library.element.mode.ModeStatusList;
+import org.kitteh.irc.client.library.feature.CaseMapping;
 import org.kitteh.irc.client.library.util.CIKeyMap;
+import org.kitteh.irc.client.library.util.CISet;
 import org.kitteh.irc.client.library.util.Sanity;
 import org.kitteh.irc.client.library.util.ToStringer;
 
@@ -51,17 +53,15 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
-import java.util.function.Function;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Supplier;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 class ActorProvider implements Resettable {
@@ -97,6 +97,8 @@ class ActorProvider implements Resettable {
         private final Client client;
         private final long creationTime = System.currentTimeMillis();
         private final String name;
+        // Case mapping ordinal plus one in the high half, hash in the low half
+        private volatile long nameHash;
 
         private IRCActorSnapshot(@Nonnull IRCActor actor) {
             this.client = ActorProvider.this.client;
@@ -120,9 +122,32 @@ class ActorProvider implements Resettable {
             return this.name;
         }
 
-        @Nonnull
-        String toLowerCase(@Nonnull String input) { // Shortcut
-            return this.client.getServerInfo().getCaseMapping().toLowerCase(input);
+        /**
+         * Gets if the other snapshot's name matches this one, case
+         * insensitive.
+         *
+         * @param other other snapshot
+         * @return true if the names match per the current case mapping
+         */
+        boolean nameEquals(@Nonnull IRCActorSnapshot other) {
+            return this.client.getServerInfo().getCaseMapping().equals(this.name, other.name);
+        }
+
+        /**
+         * Gets the case insensitive hash of the name, computed once per case
+         * mapping as snapshots are frequently used as map and set keys.
+         *
+         * @return name hash per the current case mapping
+         */
+        int nameHash() {
+            CaseMapping caseMapping = this.client.getServerInfo().getCaseMapping();
+            long cached = this.nameHash;
+            if ((cached >>> 32) == (caseMapping.ordinal() + 1)) {
+                return (int) cached;
+            }
+            int hash = caseMapping.hash(this.name);
+            this.nameHash = ((long) (caseMapping.ordinal() + 1) << 32) | (hash & 0xFFFFFFFFL);
+            return hash;
         }
 
         @Nonnull
@@ -161,18 +186,28 @@ class ActorProvider implements Resettable {
         private final Map<Character, ModeStatus<ChannelMode>> channelModes = new HashMap<>();
         private final Map<Character, List<ModeInfo>> modeInfoLists = new HashMap<>();
         private final Set<Character> trackedModes = new HashSet<>();
-        private final Map<String, Set<ChannelUserMode>> modes;
+        private final Set<String> dirtyUsers;
+        private volatile PersistentMap<String, SortedSet<ChannelUserMode>> members;
+        private PersistentMap<String, User> users;
+        private CaseMapping caseMapping;
+        private Comparator<ChannelUserMode> modeComparator;
         private volatile boolean fullListReceived;
         private long lastWho = System.currentTimeMillis();
         private String topic;
         private Actor topicSetter;
         private Instant topicTime;
         private volatile boolean tracked;
+        private boolean indexed;
 
         private IRCChannel(@Nonnull String channel) {
             super(channel);
-            this.modes = new CIKeyMap<>(ActorProvider.this.client);
+            this.dirtyUsers = new CISet(ActorProvider.this.client);
+            this.caseMapping = ActorProvider.this.client.getServerInfo().getCaseMapping();
+            this.modeComparator = ActorProvider.this.getModeComparator();
+            this.members = PersistentMap.empty(this.caseMapping::compare);
+            this.users = PersistentMap.empty(this.caseMapping::compare);
             ActorProvider.this.trackedChannels.put(channel, this);
+            this.indexed = true;
         }
 
         void setListReceived() {
@@ -182,7 +217,7 @@ class ActorProvider implements Resettable {
 
         private void setTracked(boolean tracked) {
             this.tracked = tracked;
-            this.modes.keySet().forEach(ActorProvider.this::staleUser);
+            this.members.keys().forEach(ActorProvider.this::staleUser);
             this.markStale();
         }
 
@@ -202,7 +237,7 @@ class ActorProvider implements Resettable {
         @Override
         @Nonnull
         IRCChannelSnapshot snapshot() {
-            synchronized (this.modes) {
+            synchronized (this) {
                 if (this.tracked && !this.fullListReceived) {
                     long now = System.currentTimeMillis();
                     if ((now - this.lastWho) > 5000) {
@@ -211,7 +246,34 @@ class ActorProvider implements Resettable {
                     }
                 }
             }
-            return super.snapshot(() -> new IRCChannelSnapshot(IRCChannel.this, new IRCChannelTopicSnapshot(IRCChannel.this.topicTime, IRCChannel.this.topic, IRCChannel.this.topicSetter)));
+            return super.snapshot(() -> {
+                this.refreshUsers();
+                return new IRCChannelSnapshot(IRCChannel.this, new IRCChannelTopicSnapshot(IRCChannel.this.topicTime, IRCChannel.this.topic, IRCChannel.this.topicSetter));
+            });
+        }
+
+        /**
+         * Brings the user snapshots up to date for members which have
+         * changed since the last channel snapshot, leaving the rest shared.
+         */
+        private void refreshUsers() {
+            PersistentMap<String, SortedSet<ChannelUserMode>> members = this.getMembers();
+            PersistentMap<String, User> users = this.users;
+            if (users.getComparator() != members.getComparator()) {
+                users = users.withComparator(members.getComparator());
+            }
+            Iterator<String> iterator = this.dirtyUsers.iterator();
+            while (iterator.hasNext()) {
+                String nick = iterator.next();
+                iterator.remove();
+                IRCUser user = ActorProvider.this.trackedUsers.get(nick);
+                if ((user != null) && members.containsKey(nick)) {
+                    users = users.remove(nick).put(user.getNick(), user.snapshot());
+                } else {
+                    users = users.remove(nick);
+                }
+            }
+            this.users = users;
         }
 
         void trackMode(@Nonnull ChannelMode mode, boolean track) {
@@ -226,7 +288,7 @@ class ActorProvider implements Resettable {
             if (!this.trackedModes.contains(character)) {
                 return;
             }
-            this.modeInfoLists.put(character, modeInfoList);
+            this.modeInfoLists.put(character, Collections.unmodifiableList(new ArrayList<>(modeInfoList)));
             this.markStale();
         }
 
@@ -234,17 +296,25 @@ class ActorProvider implements Resettable {
             if (!this.trackedModes.contains(modeInfo.getMode().getChar())) {
                 return;
             }
+            List<ModeInfo> current = this.modeInfoLists.get(modeInfo.getMode().getChar());
+            if (current == null) {
+                return;
+            }
+            // Lists are shared with snapshots, so replace rather than modify
+            List<ModeInfo> list = new ArrayList<>(current);
             if (add) {
-                this.modeInfoLists.get(modeInfo.getMode().getChar()).add(modeInfo);
+                list.add(modeInfo);
             } else {
-                Iterator<ModeInfo> iterator = this.modeInfoLists.get(modeInfo.getMode().getChar()).iterator();
+                Iterator<ModeInfo> iterator = list.iterator();
                 while (iterator.hasNext()) {
                     if (modeInfo.getMask().equals(iterator.next().getMask())) {
                         iterator.remove();
-                        return;
+                        break;
                     }
                 }
             }
+            this.modeInfoLists.put(modeInfo.getMode().getChar(), Collections.unmodifiableList(list));
+            this.markStale();
         }
 
         void trackUser(@Nonnull IRCUser user, @Nonnull Set<ChannelUserMode> modes) {
@@ -267,24 +337,35 @@ class ActorProvider implements Resettable {
                     }
                 }
             }
-            if (!this.modes.containsKey(nickname) || this.modes.get(nickname).isEmpty()) {
+            Set<ChannelUserMode> existing = this.getMembers().get(nickname);
+            if ((existing == null) || existing.isEmpty()) {
                 this.setModes(nickname, modes);
             }
             this.markStale();
         }
 
         void trackUserModeAdd(@Nonnull String nick, @Nonnull ChannelUserMode mode) {
-            this.getModes(nick).add(mode);
+            Set<ChannelUserMode> modes = this.getModes(nick);
+            if (!modes.contains(mode)) {
+                modes = new HashSet<>(modes);
+                modes.add(mode);
+                this.putModes(nick, modes);
+            }
             this.markStale();
         }
 
         void trackUserModeRemove(@Nonnull String nick, @Nonnull ChannelUserMode mode) {
-            this.getModes(nick).remove(mode);
+            Set<ChannelUserMode> modes = this.getModes(nick);
+            if (modes.contains(mode)) {
+                modes = new HashSet<>(modes);
+                modes.remove(mode);
+                this.putModes(nick, modes);
+            }
             this.markStale();
         }
 
         private void trackUserNick(@Nonnull String oldNick, @Nonnull String newNick) {
-            Set<ChannelUserMode> modes = this.modes.remove(oldNick);
+            Set<ChannelUserMode> modes = this.removeModes(oldNick);
             if (modes != null) {
                 this.setModes(newNick, modes);
             }
@@ -292,7 +373,7 @@ class ActorProvider implements Resettable {
         }
 
         void trackUserPart(@Nonnull String nick) {
-            this.modes.remove(nick);
+            this.removeModes(nick);
             ActorProvider.this.checkUserForTracking(nick);
             ActorProvider.this.staleUser(nick);
             this.markStale();
@@ -300,19 +381,107 @@ class ActorProvider implements Resettable {
 
         @Nonnull
         private Set<ChannelUserMode> getModes(@Nonnull String nick) {
-            Set<ChannelUserMode> set = this.modes.get(nick);
+            Set<ChannelUserMode> set = this.getMembers().get(nick);
             if (set == null) {
-                set = new HashSet<>();
-                this.modes.put(nick, set);
+                set = Collections.emptySortedSet();
+                this.putModes(nick, set);
             }
             return set;
         }
 
         private void setModes(@Nonnull String nick, @Nonnull Set<ChannelUserMode> modes) {
-            this.modes.put(nick, new HashSet<>(modes));
+            this.putModes(nick, modes);
             this.markStale();
         }
 
+        /**
+         * Gets the member map, rebuilding it first if the case mapping or
+         * the prefix ordering has changed since it was built.
+         *
+         * @return current member map
+         */
+        @Nonnull
+        private synchronized PersistentMap<String, SortedSet<ChannelUserMode>> getMembers() {
+            CaseMapping caseMapping = ActorProvider.this.client.getServerInfo().getCaseMapping();
+            Comparator<ChannelUserMode> modeComparator = ActorProvider.this.getModeComparator();
+            if ((caseMapping == this.caseMapping) && (modeComparator == this.modeComparator)) {
+                return this.members;
+            }
+            PersistentMap<String, SortedSet<ChannelUserMode>> members = this.members;
+            if (caseMapping != this.caseMapping) {
+                this.caseMapping = caseMapping;
+                members = members.withComparator(caseMapping::compare);
+            }
+            if (modeComparator != this.modeComparator) {
+                this.modeComparator = modeComparator;
+                PersistentMap<String, SortedSet<ChannelUserMode>> sorted = PersistentMap.empty(members.getComparator());
+                for (String nick : members.keys()) {
+                    sorted = sorted.put(nick, this.sortModes(members.get(nick)));
+                }
+                members = sorted;
+            }
+            return this.members = members;
+        }
+
+        @Nonnull
+        private SortedSet<ChannelUserMode> sortModes(@Nonnull Set<ChannelUserMode> modes) {
+            SortedSet<ChannelUserMode> set = new TreeSet<>(this.modeComparator);
+            set.addAll(modes);
+            return Collections.unmodifiableSortedSet(set);
+        }
+
+        private synchronized void putModes(@Nonnull String nick, @Nonnull Set<ChannelUserMode> modes) {
+            this.members = this.getMembers().put(nick, this.sortModes(modes));
+            this.dirtyUsers.add(nick);
+            if (this.indexed) {
+                ActorProvider.this.addMembership(nick, this);
+            }
+        }
+
+        @Nullable
+        private synchronized Set<ChannelUserMode> removeModes(@Nonnull String nick) {
+            PersistentMap<String, SortedSet<ChannelUserMode>> members = this.getMembers();
+            Set<ChannelUserMode> removed = members.get(nick);
+            if (removed != null) {
+                this.members = members.remove(nick);
+                this.dirtyUsers.add(nick);
+                if (this.indexed) {
+                    ActorProvider.this.removeMembership(nick, this);
+                }
+            }
+            return removed;
+        }
+
+        /**
+         * Notes that a member's user snapshot needs replacing when this
+         * channel is next snapshotted.
+         *
+         * @param nick member nick
+         */
+        private void dirtyUser(@Nonnull String nick) {
+            this.dirtyUsers.add(nick);
+        }
+
+        /**
+         * Sets if this channel's members are listed in the user to channels
+         * index, which covers exactly the channels in trackedChannels.
+         *
+         * @param indexed true if to be indexed
+         */
+        private void setIndexed(boolean indexed) {
+            if (this.indexed == indexed) {
+                return;
+            }
+            this.indexed = indexed;
+            for (String nick : this.members.keys()) {
+                if (indexed) {
+                    ActorProvider.this.addMembership(nick, this);
+                } else {
+                    ActorProvider.this.removeMembership(nick, this);
+                }
+            }
+        }
+
         void updateChannelModes(ModeStatusList<ChannelMode> statusList) {
             statusList.getStatuses().stream().filter(status -> (status.getMode() instanceof ChannelUserMode) && (status.getParameter().isPresent())).forEach(status -> {
                 if (status.isSetting()) {
@@ -377,10 +546,10 @@ class ActorProvider implements Resettable {
     class IRCChannelSnapshot extends IRCActorSnapshot implements Channel {
         private final ModeStatusList<ChannelMode> channelModes;
         private final Map<Character, List<ModeInfo>> modeInfoLists;
-        private final Map<String, SortedSet<ChannelUserMode>> modes;
-        private final List<String> names;
-        private final Map<String, User> nickMap;
-        private final List<User> users;
+        private final PersistentMap<String, SortedSet<ChannelUserMode>> members;
+        private final PersistentMap<String, User> userMap;
+        private volatile List<String> names;
+        private volatile List<User> users;
         private final boolean complete;
         private final Topic topic;
 
@@ -389,29 +558,17 @@ class ActorProvider implements Resettable {
             this.complete = channel.fullListReceived;
             this.channelModes = ModeStatusList.of(channel.channelModes.values());
             this.topic = topic;
-            this.modeInfoLists = new HashMap<>();
-            for (Map.Entry<Character, List<ModeInfo>> entry : channel.modeInfoLists.entrySet()) {
-                this.modeInfoLists.put(entry.getKey(), Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
-            }
-            channel.trackedModes.stream().filter(character -> !this.modeInfoLists.containsKey(character)).forEach(character -> this.modeInfoLists.put(character, Collections.unmodifiableList(new ArrayList<>())));
-            Map<String, SortedSet<ChannelUserMode>> newModes = new CIKeyMap<>(ActorProvider.this.client);
-            Optional<ISupportParameter.Prefix> prefix = ActorProvider.this.client.getServerInfo().getISupportParameter("PREFIX", ISupportParameter.Prefix.class);
-            Comparator<ChannelUserMode> comparator = prefix.isPresent() ? Comparator.comparingInt(prefix.get().getModes()::indexOf) : Comparator.comparing(ChannelUserMode::getChar);
-            for (Map.Entry<String, Set<ChannelUserMode>> entry : channel.modes.entrySet()) {
-                SortedSet<ChannelUserMode> newSet = new TreeSet<>(comparator);
-                newSet.addAll(entry.getValue());
-                newModes.put(entry.getKey(), newSet);
-            }
-            this.modes = Collections.unmodifiableMap(newModes);
-            this.names = Collections.unmodifiableList(new ArrayList<>(this.modes.keySet()));
-            this.nickMap = Collections.unmodifiableMap(channel.modes.keySet().stream().map(ActorProvider.this.trackedUsers::get).filter(Objects::nonNull).map(IRCUser::snapshot).collect(Collectors.toMap(User::getNick, Function.identity())));
-            this.users = Collections.unmodifiableList(new ArrayList<>(this.nickMap.values()));
+            // Mode info lists are immutable, only the small map is copied
+            this.modeInfoLists = new HashMap<>(channel.modeInfoLists);
+            channel.trackedModes.stream().filter(character -> !this.modeInfoLists.containsKey(character)).forEach(character -> this.modeInfoLists.put(character, Collections.emptyList()));
+            this.members = channel.members;
+            this.userMap = channel.users;
         }
 
         @Override
         public boolean equals(Object o) {
             // RFC 2812 section 1.3 'Channel names are case insensitive.'
-            return (o instanceof IRCChannelSnapshot) && (((IRCChannelSnapshot) o).getClient() == this.getClient()) && this.toLowerCase(((Channel) o).getName()).equals(this.toLowerCase((this.getName())));
+            return (o instanceof IRCChannelSnapshot) && (((IRCChannelSnapshot) o).getClient() == this.getClient()) && this.nameEquals((IRCChannelSnapshot) o);
         }
 
         @Nonnull
@@ -437,7 +594,11 @@ class ActorProvider implements Resettable {
         @Nonnull
         @Override
         public List<String> getNicknames() {
-            return this.names;
+            List<String> names = this.names;
+            if (names == null) {
+                this.names = names = Collections.unmodifiableList(this.members.keys());
+            }
+            return names;
         }
 
         @Nonnull
@@ -450,20 +611,24 @@ class ActorProvider implements Resettable {
         @Override
         public Optional<User> getUser(@Nonnull String nick) {
             Sanity.nullCheck(nick, "Nick cannot be null");
-            return Optional.ofNullable(this.nickMap.get(nick));
+            return Optional.ofNullable(this.userMap.get(nick));
         }
 
         @Nonnull
         @Override
         public Optional<SortedSet<ChannelUserMode>> getUserModes(@Nonnull String nick) {
             Sanity.nullCheck(nick, "Nick cannot be null");
-            return Optional.ofNullable(this.modes.get(nick));
+            return Optional.ofNullable(this.members.get(nick));
         }
 
         @Nonnull
         @Override
         public List<User> getUsers() {
-            return this.users;
+            List<User> users = this.users;
+            if (users == null) {
+                this.users = users = Collections.unmodifiableList(this.userMap.values());
+            }
+            return users;
         }
 
         @Override
@@ -486,7 +651,7 @@ class ActorProvider implements Resettable {
         @Override
         public int hashCode() {
             // RFC 2812 section 1.3 'Channel names are case insensitive.'
-            return (this.toLowerCase(this.getName()).hashCode() * 2) + this.getClient().hashCode();
+            return (this.nameHash() * 2) + this.getClient().hashCode();
         }
 
         @Override
@@ -498,7 +663,7 @@ class ActorProvider implements Resettable {
         @Override
         @Nonnull
         public String toString() {
-            return new ToStringer(this).add("client", this.getClient()).add("name", this.getName()).add("complete", this.complete).add("users", this.users.size()).toString();
+            return new ToStringer(this).add("client", this.getClient()).add("name", this.getName()).add("complete", this.complete).add("users", this.userMap.size()).toString();
         }
     }
 
@@ -563,6 +728,15 @@ class ActorProvider implements Resettable {
             this.markStale();
         }
 
+        @Override
+        void markStale() {
+            super.markStale();
+            Set<IRCChannel> channels = ActorProvider.this.memberships.get(this.nick);
+            if (channels != null) {
+                channels.forEach(channel -> channel.dirtyUser(this.nick));
+            }
+        }
+
         @Override
         @Nonnull
         IRCUserSnapshot snapshot() {
@@ -595,12 +769,12 @@ class ActorProvider implements Resettable {
             this.host = user.host;
             this.realName = Optional.ofNullable(user.realName);
             this.server = Optional.ofNullable(user.server);
-            this.channels = Collections.unmodifiableSet(ActorProvider.this.trackedChannels.values().stream().filter(channel -> channel.modes.containsKey(this.nick)).map(IRCChannel::getName).collect(Collectors.toSet()));
+            this.channels = Collections.unmodifiableSet(ActorProvider.this.getMemberships(this.nick).stream().map(IRCChannel::getName).collect(Collectors.toSet()));
         }
 
         @Override
         public boolean equals(Object o) {
-            return (o instanceof IRCUserSnapshot) && (((IRCUserSnapshot) o).getClient() == this.getClient()) && this.toLowerCase(((IRCUserSnapshot) o).getName()).equals(this.toLowerCase((this.getName())));
+            return (o instanceof IRCUserSnapshot) && (((IRCUserSnapshot) o).getClient() == this.getClient()) && this.nameEquals((IRCUserSnapshot) o);
         }
 
         @Nonnull
@@ -653,7 +827,7 @@ class ActorProvider implements Resettable {
 
         @Override
         public int hashCode() {
-            return (this.toLowerCase(this.getName()).hashCode() * 2) + this.getClient().hashCode();
+            return (this.nameHash() * 2) + this.getClient().hashCode();
         }
 
         @Override
@@ -698,60 +872,164 @@ class ActorProvider implements Resettable {
         }
     }
 
-    // Valid nick chars: \w\[]^`{}|-_
-    // Pattern unescaped: ([\w\\\[\]\^`\{\}\|\-_]+)!([~\w]+)@([\w\.\-:]+)
-    // You know what? Screw it.
-    // Let's just do it assuming no IRCD can handle following the rules.
-    // New pattern: ([^!@]+)!([^!@]+)@([^!@]+)
-    private static final Pattern NICK_PATTERN = Pattern.compile("([^!@]+)!([^!@]+)@([^!@]+)");
-    private static final Pattern SERVER_PATTERN = Pattern.compile("(?!\\-)(?:[a-zA-Z\\d\\-]{0,62}[a-zA-Z\\d]\\.){1,126}(?!\\d+)[a-zA-Z\\d]{1,63}");
+    /**
+     * Least recently used actors, up to {@link #ACTOR_CACHE_SIZE}.
+     */
+    private static final class ActorCache extends LinkedHashMap<String, IRCActor> {
+        private static final long serialVersionUID = 1L;
+
+        private ActorCache() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, IRCActor> eldest) {
+            return this.size() > ACTOR_CACHE_SIZE;
+        }
+    }
+
+    private static final int ACTOR_CACHE_SIZE = 64;
+    private static final int MAX_LABEL_LENGTH = 63;
+    private static final int MAX_LABELS = 127;
 
     private final InternalClient client;
 
+    // Untracked users, servers and other actors by full prefix, least recently used first
+    private final Map<String, IRCActor> actorCache = new ActorCache();
+
     private final Map<String, IRCChannel> trackedChannels;
     private final Map<String, IRCUser> trackedUsers;
+    private final Map<String, Set<IRCChannel>> memberships;
+    private Comparator<ChannelUserMode> modeComparator;
+    private ISupportParameter.Prefix modeComparatorPrefix;
 
     ActorProvider(@Nonnull InternalClient client) {
         this.client = client;
         this.trackedChannels = new CIKeyMap<>(this.client);
         this.trackedUsers = new CIKeyMap<>(this.client);
+        this.memberships = new CIKeyMap<>(this.client);
     }
 
     @Override
     public void reset() {
+        synchronized (this.actorCache) {
+            this.actorCache.clear();
+        }
         this.trackedChannels.forEach((name, channel) -> channel.markStale());
         this.trackedUsers.forEach((name, user) -> user.markStale());
     }
 
     void trackChannel(@Nonnull IRCChannel channel) {
-        this.trackedChannels.put(channel.getName(), channel);
+        IRCChannel previous = this.trackedChannels.put(channel.getName(), channel);
+        if ((previous != null) && (previous != channel)) {
+            previous.setIndexed(false);
+        }
+        channel.setIndexed(true);
         channel.setTracked(true);
     }
 
     void unTrackChannel(@Nonnull IRCChannel channel) {
-        this.trackedChannels.remove(channel.getName());
+        IRCChannel removed = this.trackedChannels.remove(channel.getName());
+        if (removed != null) {
+            removed.setIndexed(false);
+        }
+        channel.setIndexed(false);
         channel.setTracked(false);
     }
 
     @Nonnull
     IRCActor getActor(@Nonnull String name) {
-        Matcher nickMatcher = NICK_PATTERN.matcher(name);
-        if (nickMatcher.matches()) {
-            String nick = nickMatcher.group(1);
-            IRCUser user = this.trackedUsers.get(nick);
-            if (user != null) {
-                return user;
+        int bang = -1;
+        int at = -1;
+        boolean user = true;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if ((c == '!') && (bang < 0) && (at < 0)) {
+                bang = i;
+            } else if ((c == '@') && (bang >= 0) && (at < 0)) {
+                at = i;
+            } else if ((c == '!') || (c == '@')) {
+                user = false;
+                break;
             }
-            return new IRCUser(name, nick, nickMatcher.group(2), nickMatcher.group(3));
+        }
+        // Same shape as ([^!@]+)!([^!@]+)@([^!@]+)
+        if (user && (bang > 0) && (at > (bang + 1)) && (at < (name.length() - 1))) {
+            String nick = name.substring(0, bang);
+            IRCUser tracked = this.trackedUsers.get(nick);
+            if (tracked != null) {
+                return tracked;
+            }
+            IRCActor cached = this.getCachedActor(name);
+            if (cached instanceof IRCUser) {
+                return cached;
+            }
+            return this.cacheActor(new IRCUser(name, nick, name.substring(bang + 1, at), name.substring(at + 1)));
         }
         IRCChannel channel = this.getChannel(name);
         if (channel != null) {
             return channel;
         }
-        if (name.isEmpty() || SERVER_PATTERN.matcher(name).matches()) {
-            return new IRCServer(name);
+        IRCActor cached = this.getCachedActor(name);
+        if ((cached != null) && !(cached instanceof IRCUser)) {
+            return cached;
+        }
+        if (name.isEmpty() || isServerName(name)) {
+            return this.cacheActor(new IRCServer(name));
+        }
+        return this.cacheActor(new IRCActor(name));
+    }
+
+    @Nullable
+    private IRCActor getCachedActor(@Nonnull String name) {
+        synchronized (this.actorCache) {
+            return this.actorCache.get(name);
+        }
+    }
+
+    @Nonnull
+    private IRCActor cacheActor(@Nonnull IRCActor actor) {
+        synchronized (this.actorCache) {
+            this.actorCache.put(actor.getName(), actor);
+        }
+        return actor;
+    }
+
+    /**
+     * Gets if a name is a dotted host name, as servers are named. Labels
+     * are alphanumeric with inner hyphens, the first may not start with a
+     * hyphen and the last is alphanumeric and may not start with a digit.
+     *
+     * @param name name to check
+     * @return true if the name looks like a server
+     */
+    static boolean isServerName(@Nonnull String name) {
+        int length = name.length();
+        if ((length == 0) || (name.charAt(0) == '-')) {
+            return false;
+        }
+        int labelStart = 0;
+        int labels = 1;
+        boolean hyphen = false;
+        for (int i = 0; i < length; i++) {
+            char c = name.charAt(i);
+            if (c == '.') {
+                if ((i == labelStart) || ((i - labelStart) > MAX_LABEL_LENGTH) || (name.charAt(i - 1) == '-') || (++labels > MAX_LABELS)) {
+                    return false;
+                }
+                labelStart = i + 1;
+                hyphen = false;
+            } else if (c == '-') {
+                hyphen = true;
+            } else if (!(((c >= 'a') && (c <= 'z')) || ((c >= 'A') && (c <= 'Z')) || ((c >= '0') && (c <= '9')))) {
+                return false;
+            }
+        }
+        if ((labels < 2) || (labelStart == length) || hyphen || ((length - labelStart) > MAX_LABEL_LENGTH)) {
+            return false;
         }
-        return new IRCActor(name);
+        char first = name.charAt(labelStart);
+        return (first < '0') || (first > '9');
     }
 
     @Nullable
@@ -795,8 +1073,12 @@ class ActorProvider implements Resettable {
     }
 
     void trackUser(@Nonnull IRCUser user) {
+        synchronized (this.actorCache) {
+            this.actorCache.remove(user.getName(), user);
+        }
         if (!this.trackedUsers.containsKey(user.getNick())) {
             this.trackedUsers.put(user.getNick(), user);
+            user.markStale();
         }
     }
 
@@ -811,7 +1093,7 @@ class ActorProvider implements Resettable {
         IRCUser user = this.trackedUsers.remove(oldNick);
         user.setNick(newNick);
         this.trackedUsers.put(newNick, user);
-        this.trackedChannels.values().forEach(channel -> channel.trackUserNick(oldNick, newNick));
+        this.getMemberships(oldNick).forEach(channel -> channel.trackUserNick(oldNick, newNick));
     }
 
     void trackUserHostnameChange(@Nonnull String nick, @Nonnull String newHostname) {
@@ -826,13 +1108,13 @@ class ActorProvider implements Resettable {
 
     void trackUserQuit(@Nonnull String nick) {
         this.trackedUsers.remove(nick);
-        this.trackedChannels.values().forEach(channel -> channel.trackUserPart(nick));
+        this.getMemberships(nick).forEach(channel -> channel.trackUserPart(nick));
         this.checkUserForTracking(nick);
     }
 
     private void checkUserForTracking(@Nonnull String nick) {
         if (!this.client.getServerInfo().getCaseMapping().areEqualIgnoringCase(nick, this.client.getNick())
-                && this.trackedChannels.values().stream().noneMatch(channel -> channel.modes.containsKey(nick))) {
+                && !this.memberships.containsKey(nick)) {
             IRCUser removed = this.trackedUsers.remove(nick);
             if (removed != null) {
                 removed.markStale();
@@ -840,6 +1122,53 @@ class ActorProvider implements Resettable {
         }
     }
 
+    /**
+     * Gets the ordering for channel user modes, following the server's
+     * PREFIX order. The same instance is returned until PREFIX changes.
+     *
+     * @return mode comparator
+     */
+    @Nonnull
+    private synchronized Comparator<ChannelUserMode> getModeComparator() {
+        ISupportParameter.Prefix prefix = this.client.getServerInfo().getISupportParameter(ISupportParameter.Prefix.NAME, ISupportParameter.Prefix.class).orElse(null);
+        if ((this.modeComparator == null) || (prefix != this.modeComparatorPrefix)) {
+            this.modeComparatorPrefix = prefix;
+            this.modeComparator = (prefix == null) ? Comparator.comparing(ChannelUserMode::getChar) : Comparator.comparingInt(prefix.getModes()::indexOf);
+        }
+        return this.modeComparator;
+    }
+
+    /**
+     * Gets the tracked channels containing a given nick.
+     *
+     * @param nick nick to look up
+     * @return copy of the channels, empty if none
+     */
+    @Nonnull
+    private List<IRCChannel> getMemberships(@Nonnull String nick) {
+        Set<IRCChannel> channels = this.memberships.get(nick);
+        return (channels == null) ? Collections.emptyList() : new ArrayList<>(channels);
+    }
+
+    private void addMembership(@Nonnull String nick, @Nonnull IRCChannel channel) {
+        Set<IRCChannel> channels = this.memberships.get(nick);
+        if (channels == null) {
+            channels = Collections.newSetFromMap(new ConcurrentHashMap<>());
+            this.memberships.put(nick, channels);
+        }
+        channels.add(channel);
+    }
+
+    private void removeMembership(@Nonnull String nick, @Nonnull IRCChannel channel) {
+        Set<IRCChannel> channels = this.memberships.get(nick);
+        if (channels != null) {
+            channels.remove(channel);
+            if (channels.isEmpty()) {
+                this.memberships.remove(nick);
+            }
+        }
+    }
+
     @Nonnull
     @Override
     public String toString() {
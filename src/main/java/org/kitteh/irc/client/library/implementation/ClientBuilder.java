@@ -24,6 +24,8 @@
 package org.kitteh.irc.client.library.implementation;
 
 import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.util.QueuedMessage;
+import org.kitteh.irc.client.library.util.RateLimiter;
 import org.kitteh.irc.client.library.util.Sanity;
 import org.kitteh.irc.client.library.util.ToStringer;
 
@@ -33,6 +35,8 @@ import javax.net.ssl.TrustManagerFactory;
 import java.io.File;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.function.Consumer;
 
 final class ClientBuilder implements Client.Builder, Cloneable {
@@ -71,6 +75,30 @@ final class ClientBuilder implements Client.Builder, Cloneable {
         return this;
     }
 
+    @Nonnull
+    @Override
+    public ClientBuilder eventLoop(@Nullable ThreadFactory threadFactory, int threads) {
+        Sanity.truthiness(threads >= 0, "Threads cannot be negative");
+        this.config.set(Config.EVENT_LOOP_THREAD_FACTORY, threadFactory);
+        this.config.set(Config.EVENT_LOOP_THREADS, threads);
+        return this;
+    }
+
+    @Nonnull
+    @Override
+    public ClientBuilder executor(@Nullable ExecutorService executor) {
+        this.config.set(Config.EXECUTOR, executor);
+        return this;
+    }
+
+    @Nonnull
+    @Override
+    public ClientBuilder inboundCapacity(int capacity) {
+        Sanity.truthiness(capacity > 0, "Capacity must be positive");
+        this.config.set(Config.INBOUND_CAPACITY, capacity);
+        return this;
+    }
+
     @Nonnull
     @Override
     public ClientBuilder listenException(@Nullable Consumer<Exception> listener) {
@@ -167,6 +195,31 @@ final class ClientBuilder implements Client.Builder, Cloneable {
         return this;
     }
 
+    @Nonnull
+    @Override
+    public ClientBuilder outboundCapacity(int capacity, @Nonnull QueuedMessage.Overflow overflow) {
+        Sanity.truthiness(capacity > 0, "Capacity must be positive");
+        Sanity.nullCheck(overflow, "Overflow cannot be null");
+        this.config.set(Config.OUTBOUND_CAPACITY, capacity);
+        this.config.set(Config.OUTBOUND_OVERFLOW, overflow);
+        return this;
+    }
+
+    @Nonnull
+    @Override
+    public ClientBuilder outboundTimeToLive(long timeToLive) {
+        Sanity.truthiness(timeToLive >= 0, "Time to live cannot be negative");
+        this.config.set(Config.OUTBOUND_TIME_TO_LIVE, timeToLive);
+        return this;
+    }
+
+    @Nonnull
+    @Override
+    public ClientBuilder rateLimiter(@Nullable RateLimiter rateLimiter) {
+        this.config.set(Config.RATE_LIMITER, rateLimiter);
+        return this;
+    }
+
     @Nonnull
     @Override
     public ClientBuilder serverHost(@Nonnull String host) {
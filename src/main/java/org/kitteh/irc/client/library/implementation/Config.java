@@ -24,6 +24,8 @@
 package org.kitteh.irc.client.library.implementation;
 
 import org.kitteh.irc.client.library.Client;
+import org.kitteh.irc.client.library.util.QueuedMessage;
+import org.kitteh.irc.client.library.util.RateLimiter;
 import org.kitteh.irc.client.library.util.ToStringer;
 
 import javax.annotation.Nonnull;
@@ -36,6 +38,8 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadFactory;
 import java.util.function.Consumer;
 
 /**
@@ -130,11 +134,19 @@ final class Config {
 
     static final Entry<String> NAME = new Entry<>("Unnamed", String.class);
     static final Entry<InetSocketAddress> BIND_ADDRESS = new Entry<>(null, InetSocketAddress.class);
+    static final Entry<ThreadFactory> EVENT_LOOP_THREAD_FACTORY = new Entry<>(null, ThreadFactory.class);
+    static final Entry<Integer> EVENT_LOOP_THREADS = new Entry<>(0, Integer.class);
+    static final Entry<ExecutorService> EXECUTOR = new Entry<>(null, ExecutorService.class);
+    static final Entry<Integer> INBOUND_CAPACITY = new Entry<>(Integer.MAX_VALUE, Integer.class);
     static final Entry<ExceptionConsumerWrapper> LISTENER_EXCEPTION = new Entry<>(new ExceptionConsumerWrapper(Throwable::printStackTrace), ExceptionConsumerWrapper.class);
     static final Entry<StringConsumerWrapper> LISTENER_INPUT = new Entry<>(null, StringConsumerWrapper.class);
     static final Entry<StringConsumerWrapper> LISTENER_OUTPUT = new Entry<>(null, StringConsumerWrapper.class);
     static final Entry<Integer> MESSAGE_DELAY = new Entry<>(Client.DEFAULT_MESSAGE_DELAY, Integer.class);
     static final Entry<String> NICK = new Entry<>("Kitteh", String.class);
+    static final Entry<Integer> OUTBOUND_CAPACITY = new Entry<>(Integer.MAX_VALUE, Integer.class);
+    static final Entry<QueuedMessage.Overflow> OUTBOUND_OVERFLOW = new Entry<>(QueuedMessage.Overflow.REJECT, QueuedMessage.Overflow.class);
+    static final Entry<Long> OUTBOUND_TIME_TO_LIVE = new Entry<>(0L, Long.class);
+    static final Entry<RateLimiter> RATE_LIMITER = new Entry<>(null, RateLimiter.class);
     static final Entry<String> REAL_NAME = new Entry<>("Kitteh", String.class);
     static final Entry<InetSocketAddress> SERVER_ADDRESS = new Entry<>(new InetSocketAddress("localhost", 6697), InetSocketAddress.class);
     static final Entry<String> SERVER_PASSWORD = new Entry<>(null, String.class, true);
@@ -23,8 +23,6 @@
  */
 package org.kitteh.irc.client.library.implementation;
 
-import net.engio.mbassy.listener.Handler;
-import net.engio.mbassy.listener.References;
 import org.kitteh.irc.client.library.command.CapabilityRequestCommand;
 import org.kitteh.irc.client.library.element.CapabilityState;
 import org.kitteh.irc.client.library.element.Channel;
@@ -91,9 +89,7 @@ import org.kitteh.irc.client.library.event.user.WallopsEvent;
 import org.kitteh.irc.client.library.event.user.WhoisEvent;
 import org.kitteh.irc.client.library.exception.KittehServerMessageException;
 import org.kitteh.irc.client.library.feature.CapabilityManager;
-import org.kitteh.irc.client.library.feature.filter.CommandFilter;
-import org.kitteh.irc.client.library.feature.filter.NumericFilter;
-import org.kitteh.irc.client.library.util.StringUtil;
+import org.kitteh.irc.client.library.feature.EventManager;
 import org.kitteh.irc.client.library.util.ToStringer;
 
 import javax.annotation.Nonnull;
@@ -103,23 +99,117 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
-@net.engio.mbassy.listener.Listener(references = References.Strong)
 class EventListener {
+    // Non-generic, so handlers can be held in a plain array
+    private interface NumericHandler extends Consumer<ClientReceiveNumericEvent> {
+    }
+
     private final InternalClient client;
+    private final Map<String, Consumer<ClientReceiveCommandEvent>> commands = new HashMap<>();
+    private final NumericHandler[] numerics = new NumericHandler[1000];
 
     EventListener(InternalClient client) {
         this.client = client;
-    }
-
-    @NumericFilter(1)
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void welcome(ClientReceiveNumericEvent event) {
+        this.numerics[1] = this::welcome;
+        this.numerics[4] = this::version;
+        this.numerics[5] = this::iSupport;
+        this.numerics[221] = this::umode; // UMODEIS
+        this.numerics[263] = this::tryAgain; // TRYAGAIN, or LOAD2HI
+        this.numerics[305] = this::away; // UNAWAY
+        this.numerics[306] = this::away; // NOWAWAY
+        this.numerics[301] = this::whoisAway; // WHOISAWAY
+        this.numerics[311] = this::whoisUser; // WHOISUSER
+        this.numerics[312] = this::whoisServer; // WHOISSERVER
+        this.numerics[313] = this::whoisOperator; // WHOISOPERATOR
+        this.numerics[317] = this::whoisIdle; // WHOISIDLE
+        this.numerics[330] = this::whoisAccount; // WHOISACCOUNT
+        this.numerics[319] = this::whoisChannels; // WHOISCHANNELS
+        this.numerics[671] = this::whoisSecure; // WHOISSECURE
+        this.numerics[318] = this::whoisEnd; // ENDOFWHOIS
+        this.numerics[352] = this::who; // WHO
+        this.numerics[354] = this::who; // WHOX
+        this.numerics[315] = this::whoComplete; // WHO completed
+        this.numerics[324] = this::channelMode;
+        this.numerics[332] = this::topic; // Topic
+        this.numerics[333] = this::topicInfo; // Topic info
+        this.numerics[353] = this::names; // NAMES
+        this.numerics[366] = this::namesComplete; // End of NAMES
+        this.numerics[367] = this::banList; // BANLIST
+        this.numerics[346] = this::inviteList; // INVITELIST
+        this.numerics[348] = this::exceptList; // EXCEPTLIST
+        this.numerics[344] = this::quietList; // QUIETLIST
+        this.numerics[728] = this::quietList; // QUIETLIST
+        this.numerics[368] = this::banListEnd; // End of ban list
+        this.numerics[347] = this::inviteListEnd; // End of invite list
+        this.numerics[349] = this::exceptListEnd; // End of except list
+        this.numerics[345] = this::quietListEnd; // End of quiet list
+        this.numerics[729] = this::quietListEnd; // End of quiet list
+        this.numerics[375] = this::motdStart;
+        this.numerics[372] = this::motdContent;
+        this.numerics[376] = this::motdEnd;
+        this.numerics[431] = this::nickInUse; // No nick given
+        this.numerics[432] = this::nickInUse; // Erroneous nickname
+        this.numerics[433] = this::nickInUse; // Nick in use
+        this.numerics[710] = this::knock; // Knock
+        this.numerics[730] = this::monitorOnline; // Monitor online
+        this.numerics[731] = this::monitorOnline; // Monitor offline
+        this.numerics[732] = this::monitorList; // Monitor list
+        this.numerics[733] = this::monitorListEnd; // Monitor list end
+        this.numerics[734] = this::monitorListFull; // Monitor list full
+        this.commands.put("CAP", this::cap);
+        this.commands.put("CHGHOST", this::chghost);
+        this.commands.put("ACCOUNT", this::account);
+        this.commands.put("AWAY", this::away);
+        this.commands.put("NOTICE", this::notice);
+        this.commands.put("PRIVMSG", this::privmsg);
+        this.commands.put("MODE", this::mode);
+        this.commands.put("JOIN", this::join);
+        this.commands.put("PART", this::part);
+        this.commands.put("QUIT", this::quit);
+        this.commands.put("KICK", this::kick);
+        this.commands.put("NICK", this::nick);
+        this.commands.put("INVITE", this::invite);
+        this.commands.put("TOPIC", this::topic);
+        this.commands.put("WALLOPS", this::wallops);
+        this.commands.put("PONG", this::pong);
+        this.commands.put("ERROR", this::error);
+    }
+
+    /**
+     * Processes a command, updating state and firing events accordingly.
+     *
+     * @param event command received
+     */
+    void handle(@Nonnull ClientReceiveCommandEvent event) {
+        Consumer<ClientReceiveCommandEvent> handler = this.commands.get(event.getCommand().toUpperCase(Locale.ENGLISH));
+        if (handler != null) {
+            handler.accept(event);
+        }
+    }
+
+    /**
+     * Processes a numeric, updating state and firing events accordingly.
+     *
+     * @param event numeric received
+     */
+    void handle(@Nonnull ClientReceiveNumericEvent event) {
+        int numeric = event.getNumeric();
+        if ((numeric >= 0) && (numeric < this.numerics.length) && (this.numerics[numeric] != null)) {
+            this.numerics[numeric].accept(event);
+        }
+    }
+
+    void welcome(ClientReceiveNumericEvent event) {
         if (!event.getParameters().isEmpty()) {
             this.client.setCurrentNick(event.getParameters().get(0));
         } else {
@@ -127,9 +217,7 @@ class EventListener {
         }
     }
 
-    @NumericFilter(4)
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void version(ClientReceiveNumericEvent event) {
+    void version(ClientReceiveNumericEvent event) {
         this.client.resetServerInfo();
         if (event.getParameters().size() > 1) {
             this.client.getServerInfo().setAddress(event.getParameters().get(1));
@@ -155,17 +243,17 @@ class EventListener {
         this.client.startSending();
     }
 
-    @NumericFilter(5)
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void iSupport(ClientReceiveNumericEvent event) {
+    void tryAgain(ClientReceiveNumericEvent event) {
+        this.client.throttled();
+    }
+
+    void iSupport(ClientReceiveNumericEvent event) {
         for (int i = 1; i < event.getParameters().size(); i++) {
             this.client.getServerInfo().addISupportParameter(this.client.getISupportManager().getParameter(event.getParameters().get(i)));
         }
     }
 
-    @NumericFilter(221) // UMODEIS
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void umode(ClientReceiveNumericEvent event) {
+    void umode(ClientReceiveNumericEvent event) {
         if (event.getParameters().size() < 2) {
             this.trackException(event, "UMODE response of incorrect length");
             return;
@@ -177,7 +265,7 @@ class EventListener {
         }
         ModeStatusList<UserMode> modes;
         try {
-            modes = ModeStatusList.fromUser(this.client, StringUtil.combineSplit(event.getParameters().toArray(new String[event.getParameters().size()]), 1));
+            modes = ModeStatusList.fromUser(this.client, String.join(" ", event.getParameters().subList(1, event.getParameters().size())));
         } catch (IllegalArgumentException e) {
             this.trackException(event, e.getMessage());
             return;
@@ -185,10 +273,7 @@ class EventListener {
         this.client.setUserModes(modes);
     }
 
-    @NumericFilter(305) // UNAWAY
-    @NumericFilter(306) // NOWAWAY
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void away(ClientReceiveNumericEvent event) {
+    void away(ClientReceiveNumericEvent event) {
         this.fire(new ClientAwayStatusChangeEvent(this.client, event.getOriginalMessages(), event.getNumeric() == 306));
     }
 
@@ -201,9 +286,7 @@ class EventListener {
         return this.whoisBuilder;
     }
 
-    @NumericFilter(301) // WHOISAWAY
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void whoisAway(ClientReceiveNumericEvent event) {
+    void whoisAway(ClientReceiveNumericEvent event) {
         if (event.getParameters().size() < 3) {
             this.trackException(event, "WHOIS AWAY response of incorrect length");
             return;
@@ -211,9 +294,7 @@ class EventListener {
         this.getWhoisBuilder(event.getParameters().get(1)).setAway(event.getParameters().get((event.getParameters().size() == 3) ? 2 : 3));
     }
 
-    @NumericFilter(311) // WHOISUSER
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void whoisUser(ClientReceiveNumericEvent event) {
+    void whoisUser(ClientReceiveNumericEvent event) {
         if (event.getParameters().size() < 2) {
             this.trackException(event, "WHOIS USER response of incorrect length");
             return;
@@ -229,9 +310,7 @@ class EventListener {
         }
     }
 
-    @NumericFilter(312) // WHOISSERVER
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void whoisServer(ClientReceiveNumericEvent event) {
+    void whoisServer(ClientReceiveNumericEvent event) {
         if (event.getParameters().size() < 3) {
             this.trackException(event, "WHOIS SERVER response of incorrect length");
             return;
@@ -243,9 +322,7 @@ class EventListener {
         }
     }
 
-    @NumericFilter(313) // WHOISOPERATOR
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void whoisOperator(ClientReceiveNumericEvent event) {
+    void whoisOperator(ClientReceiveNumericEvent event) {
         if (event.getParameters().size() < 3) {
             this.trackException(event, "WHOIS OPERATOR response of incorrect length");
             return;
@@ -253,9 +330,7 @@ class EventListener {
         this.getWhoisBuilder(event.getParameters().get(1)).setOperatorInformation(event.getParameters().get(2));
     }
 
-    @NumericFilter(317) // WHOISIDLE
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void whoisIdle(ClientReceiveNumericEvent event) {
+    void whoisIdle(ClientReceiveNumericEvent event) {
         if (event.getParameters().size() < 4) {
             this.trackException(event, "WHOIS IDLE response of incorrect length");
             return;
@@ -281,9 +356,7 @@ class EventListener {
         }
     }
 
-    @NumericFilter(330) // WHOISACCOUNT
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void whoisAccount(ClientReceiveNumericEvent event) {
+    void whoisAccount(ClientReceiveNumericEvent event) {
         if (event.getParameters().size() < 3) {
             this.trackException(event, "WHOIS ACCOUNT response of incorrect length");
             return;
@@ -291,9 +364,7 @@ class EventListener {
         this.getWhoisBuilder(event.getParameters().get(1)).setAccount(event.getParameters().get(2));
     }
 
-    @NumericFilter(319) // WHOISCHANNELS
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void whoisChannels(ClientReceiveNumericEvent event) {
+    void whoisChannels(ClientReceiveNumericEvent event) {
         if (event.getParameters().size() < 3) {
             this.trackException(event, "WHOIS CHANNELS response of incorrect length");
             return;
@@ -301,9 +372,7 @@ class EventListener {
         this.getWhoisBuilder(event.getParameters().get(1)).addChannels(event.getParameters().get(2));
     }
 
-    @NumericFilter(671) // WHOISSECURE
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void whoisSecure(ClientReceiveNumericEvent event) {
+    void whoisSecure(ClientReceiveNumericEvent event) {
         if (event.getParameters().size() < 2) {
             this.trackException(event, "WHOIS SECURE response of incorrect length");
             return;
@@ -311,9 +380,7 @@ class EventListener {
         this.getWhoisBuilder(event.getParameters().get(1)).setSecure();
     }
 
-    @NumericFilter(318) // ENDOFWHOIS
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void whoisEnd(ClientReceiveNumericEvent event) {
+    void whoisEnd(ClientReceiveNumericEvent event) {
         if (event.getParameters().size() < 2) {
             this.trackException(event, "WHOIS END response of incorrect length");
             return;
@@ -328,10 +395,7 @@ class EventListener {
 
     private final List<ServerMessage> whoMessages = new ArrayList<>();
 
-    @NumericFilter(352) // WHO
-    @NumericFilter(354) // WHOX
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void who(ClientReceiveNumericEvent event) {
+    void who(ClientReceiveNumericEvent event) {
         if (event.getParameters().size() < ((event.getNumeric() == 352) ? 8 : 9)) {
             this.trackException(event, "WHO response of incorrect length");
             return;
@@ -364,11 +428,9 @@ class EventListener {
                     user.setAway(true);
                     continue;
                 }
-                for (ChannelUserMode mode : this.client.getServerInfo().getChannelUserModes()) {
-                    if (mode.getNickPrefix() == prefix) {
-                        modes.add(mode);
-                        break;
-                    }
+                ChannelUserMode mode = this.client.getServerInfo().getChannelUserModeByPrefix(prefix);
+                if (mode != null) {
+                    modes.add(mode);
                 }
             }
             channel.trackUser(user, modes);
@@ -376,9 +438,7 @@ class EventListener {
         } // No else, server might send other WHO information about non-channels.
     }
 
-    @NumericFilter(315) // WHO completed
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void whoComplete(ClientReceiveNumericEvent event) {
+    void whoComplete(ClientReceiveNumericEvent event) {
         if (event.getParameters().size() < 2) {
             this.trackException(event, "WHO response of incorrect length");
             return;
@@ -392,9 +452,7 @@ class EventListener {
         } // No else, server might send other WHO information about non-channels.
     }
 
-    @NumericFilter(324)
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void channelMode(ClientReceiveNumericEvent event) {
+    void channelMode(ClientReceiveNumericEvent event) {
         if (event.getParameters().size() < 3) {
             this.trackException(event, "Channel mode info message of incorrect length");
             return;
@@ -403,7 +461,7 @@ class EventListener {
         if (channel != null) {
             ModeStatusList<ChannelMode> statusList;
             try {
-                statusList = ModeStatusList.fromChannel(this.client, StringUtil.combineSplit(event.getParameters().toArray(new String[event.getParameters().size()]), 2));
+                statusList = ModeStatusList.fromChannel(this.client, String.join(" ", event.getParameters().subList(2, event.getParameters().size())));
             } catch (IllegalArgumentException e) {
                 this.trackException(event, e.getMessage());
                 return;
@@ -414,9 +472,7 @@ class EventListener {
         }
     }
 
-    @NumericFilter(332) // Topic
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void topic(ClientReceiveNumericEvent event) {
+    void topic(ClientReceiveNumericEvent event) {
         if (event.getParameters().size() < 2) {
             this.trackException(event, "Topic message of incorrect length");
             return;
@@ -429,9 +485,7 @@ class EventListener {
         }
     }
 
-    @NumericFilter(333) // Topic info
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void topicInfo(ClientReceiveNumericEvent event) {
+    void topicInfo(ClientReceiveNumericEvent event) {
         if (event.getParameters().size() < 4) {
             this.trackException(event, "Topic message of incorrect length");
             return;
@@ -447,23 +501,20 @@ class EventListener {
 
     private final List<ServerMessage> namesMessages = new ArrayList<>();
 
-    @NumericFilter(353) // NAMES
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void names(ClientReceiveNumericEvent event) {
+    void names(ClientReceiveNumericEvent event) {
         if (event.getParameters().size() < 4) {
             this.trackException(event, "NAMES response of incorrect length");
             return;
         }
         ActorProvider.IRCChannel channel = this.client.getActorProvider().getChannel(event.getParameters().get(2));
         if (channel != null) {
-            List<ChannelUserMode> channelUserModes = this.client.getServerInfo().getChannelUserModes();
+            IRCServerInfo serverInfo = this.client.getServerInfo();
             for (String combo : event.getParameters().get(3).split(" ")) {
                 Set<ChannelUserMode> modes = new HashSet<>();
                 for (int i = 0; i < combo.length(); i++) {
-                    char c = combo.charAt(i);
-                    Optional<ChannelUserMode> mode = channelUserModes.stream().filter(userMode -> userMode.getNickPrefix() == c).findFirst();
-                    if (mode.isPresent()) {
-                        modes.add(mode.get());
+                    ChannelUserMode mode = serverInfo.getChannelUserModeByPrefix(combo.charAt(i));
+                    if (mode != null) {
+                        modes.add(mode);
                     } else {
                         channel.trackNick(combo.substring(i), modes);
                         break;
@@ -476,9 +527,7 @@ class EventListener {
         }
     }
 
-    @NumericFilter(366) // End of NAMES
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void namesComplete(ClientReceiveNumericEvent event) {
+    void namesComplete(ClientReceiveNumericEvent event) {
         if (event.getParameters().size() < 2) {
             this.trackException(event, "NAMES response of incorrect length");
             return;
@@ -505,28 +554,19 @@ class EventListener {
     private final List<ServerMessage> quietMessages = new ArrayList<>();
     private final List<ModeInfo> quiets = new ArrayList<>();
 
-    @NumericFilter(367) // BANLIST
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void banList(ClientReceiveNumericEvent event) {
+    void banList(ClientReceiveNumericEvent event) {
         this.modeInfoList(event, "BANLIST", 'b', this.banMessages, this.bans);
     }
 
-    @NumericFilter(346) // INVITELIST
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void inviteList(ClientReceiveNumericEvent event) {
+    void inviteList(ClientReceiveNumericEvent event) {
         this.modeInfoList(event, "INVITELIST", 'I', this.inviteMessages, this.invites);
     }
 
-    @NumericFilter(348) // EXCEPTLIST
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void exceptList(ClientReceiveNumericEvent event) {
+    void exceptList(ClientReceiveNumericEvent event) {
         this.modeInfoList(event, "EXCEPTLIST", 'e', this.exceptMessages, this.excepts);
     }
 
-    @NumericFilter(344) // QUIETLIST
-    @NumericFilter(728) // QUIETLIST
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void quietList(ClientReceiveNumericEvent event) {
+    void quietList(ClientReceiveNumericEvent event) {
         this.modeInfoList(event, "QUIETLIST", 'q', this.quietMessages, this.quiets, (event.getNumeric() == 344) ? 0 : 1);
     }
 
@@ -561,28 +601,19 @@ class EventListener {
         }
     }
 
-    @NumericFilter(368) // End of ban list
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void banListEnd(ClientReceiveNumericEvent event) {
+    void banListEnd(ClientReceiveNumericEvent event) {
         this.endModeInfoList(event, "BANLIST", 'b', this.banMessages, this.bans);
     }
 
-    @NumericFilter(347) // End of invite list
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void inviteListEnd(ClientReceiveNumericEvent event) {
+    void inviteListEnd(ClientReceiveNumericEvent event) {
         this.endModeInfoList(event, "INVITELIST", 'I', this.inviteMessages, this.invites);
     }
 
-    @NumericFilter(349) // End of except list
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void exceptListEnd(ClientReceiveNumericEvent event) {
+    void exceptListEnd(ClientReceiveNumericEvent event) {
         this.endModeInfoList(event, "EXCEPTLIST", 'e', this.exceptMessages, this.excepts);
     }
 
-    @NumericFilter(345) // End of quiet list
-    @NumericFilter(729) // End of quiet list
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void quietListEnd(ClientReceiveNumericEvent event) {
+    void quietListEnd(ClientReceiveNumericEvent event) {
         this.endModeInfoList(event, "QUIETLIST", 'q', this.quietMessages, this.quiets);
     }
 
@@ -612,16 +643,12 @@ class EventListener {
     private final List<String> motd = new ArrayList<>();
     private final List<ServerMessage> motdMessages = new ArrayList<>();
 
-    @NumericFilter(375)
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void motdStart(ClientReceiveNumericEvent event) {
+    void motdStart(ClientReceiveNumericEvent event) {
         this.motd.clear();
         this.motdMessages.clear();
     }
 
-    @NumericFilter(372)
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void motdContent(ClientReceiveNumericEvent event) {
+    void motdContent(ClientReceiveNumericEvent event) {
         if (event.getParameters().size() < 2) {
             this.trackException(event, "MOTD message of incorrect length");
             return;
@@ -630,27 +657,19 @@ class EventListener {
         this.motdMessages.add(messageFromEvent(event));
     }
 
-    @NumericFilter(376)
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void motdEnd(ClientReceiveNumericEvent event) {
+    void motdEnd(ClientReceiveNumericEvent event) {
         this.motdMessages.add(messageFromEvent(event));
         this.client.getServerInfo().setMOTD(new ArrayList<>(this.motd));
         this.fire(new ClientReceiveMOTDEvent(this.client, this.motdMessages));
     }
 
-    @NumericFilter(431) // No nick given
-    @NumericFilter(432) // Erroneous nickname
-    @NumericFilter(433) // Nick in use
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void nickInUse(ClientReceiveNumericEvent event) {
+    void nickInUse(ClientReceiveNumericEvent event) {
         NickRejectedEvent nickRejectedEvent = new NickRejectedEvent(this.client, event.getOriginalMessages(), this.client.getRequestedNick(), this.client.getRequestedNick() + '`');
         this.fire(nickRejectedEvent);
         this.client.sendNickChange(nickRejectedEvent.getNewNick());
     }
 
-    @NumericFilter(710) // Knock
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void knock(ClientReceiveNumericEvent event) {
+    void knock(ClientReceiveNumericEvent event) {
         if (event.getParameters().size() < 3) {
             this.trackException(event, "KNOCK message of incorrect length");
             return;
@@ -664,10 +683,7 @@ class EventListener {
         }
     }
 
-    @NumericFilter(730) // Monitor online
-    @NumericFilter(731) // Monitor offline
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void monitorOnline(ClientReceiveNumericEvent event) {
+    void monitorOnline(ClientReceiveNumericEvent event) {
         if (event.getParameters().size() < 2) {
             this.trackException(event, "MONITOR status message of incorrect length");
             return;
@@ -687,9 +703,7 @@ class EventListener {
     private final List<String> monitorList = new ArrayList<>();
     private final List<ServerMessage> monitorListMessages = new ArrayList<>();
 
-    @NumericFilter(732) // Monitor list
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void monitorList(ClientReceiveNumericEvent event) {
+    void monitorList(ClientReceiveNumericEvent event) {
         if (event.getParameters().size() < 2) {
             this.trackException(event, "MONITOR list message of incorrect length");
             return;
@@ -698,17 +712,13 @@ class EventListener {
         this.monitorListMessages.add(messageFromEvent(event));
     }
 
-    @NumericFilter(733) // Monitor list end
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void monitorListEnd(ClientReceiveNumericEvent event) {
+    void monitorListEnd(ClientReceiveNumericEvent event) {
         this.fire(new MonitoredNickListEvent(this.client, this.monitorListMessages, this.monitorList));
         this.monitorList.clear();
         this.monitorListMessages.clear();
     }
 
-    @NumericFilter(734) // Monitor list full
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void monitorListFull(ClientReceiveNumericEvent event) {
+    void monitorListFull(ClientReceiveNumericEvent event) {
         if (event.getParameters().size() < 3) {
             this.trackException(event, "MONITOR list full message of incorrect length");
             return;
@@ -729,9 +739,7 @@ class EventListener {
     private final List<ServerMessage> capLsMessages = new ArrayList<>();
     private static final int CAPABILITY_LIST_INDEX_DEFAULT = 2;
 
-    @CommandFilter("CAP")
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void cap(ClientReceiveCommandEvent event) {
+    void cap(ClientReceiveCommandEvent event) {
         if (event.getParameters().size() < 3) {
             this.trackException(event, "CAP message of incorrect length");
             return;
@@ -833,9 +841,7 @@ class EventListener {
         }
     }
 
-    @CommandFilter("CHGHOST")
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void chghost(ClientReceiveCommandEvent event) {
+    void chghost(ClientReceiveCommandEvent event) {
         if (event.getParameters().size() != 2) {
             this.trackException(event, "Invalid number of parameters for CHGHOST message");
             return;
@@ -872,9 +878,7 @@ class EventListener {
         }
     }
 
-    @CommandFilter("ACCOUNT")
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void account(ClientReceiveCommandEvent event) {
+    void account(ClientReceiveCommandEvent event) {
         if (event.getParameters().size() < 1) {
             this.trackException(event, "ACCOUNT message of incorrect length");
             return;
@@ -883,15 +887,11 @@ class EventListener {
         this.client.getActorProvider().setUserAccount(((User) event.getActor()).getNick(), "*".equals(account) ? null : account);
     }
 
-    @CommandFilter("AWAY")
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void away(ClientReceiveCommandEvent event) {
+    void away(ClientReceiveCommandEvent event) {
         this.client.getActorProvider().setUserAway(((User) event.getActor()).getNick(), !event.getParameters().isEmpty());
     }
 
-    @CommandFilter("NOTICE")
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void notice(ClientReceiveCommandEvent event) {
+    void notice(ClientReceiveCommandEvent event) {
         if (event.getParameters().size() < 2) {
             this.trackException(event, "NOTICE message of incorrect length");
             return;
@@ -903,7 +903,9 @@ class EventListener {
                     this.trackException(event, "Server sent a CTCP message and I panicked");
                     return;
                 }
-                this.fire(new ServerNoticeEvent(this.client, event.getOriginalMessages(), (Server) event.getActor(), message));
+                if (this.isListenedTo(ServerNoticeEvent.class)) {
+                    this.fire(new ServerNoticeEvent(this.client, event.getOriginalMessages(), (Server) event.getActor(), message));
+                }
             } else {
                 this.trackException(event, "Message from neither server nor user");
             }
@@ -916,19 +918,23 @@ class EventListener {
         User user = (User) event.getActor();
         MessageTargetInfo messageTargetInfo = this.getTypeByTarget(event.getParameters().get(0));
         if (messageTargetInfo instanceof MessageTargetInfo.Private) {
-            this.fire(new PrivateNoticeEvent(this.client, event.getOriginalMessages(), user, event.getParameters().get(0), message));
+            if (this.isListenedTo(PrivateNoticeEvent.class)) {
+                this.fire(new PrivateNoticeEvent(this.client, event.getOriginalMessages(), user, event.getParameters().get(0), message));
+            }
         } else if (messageTargetInfo instanceof MessageTargetInfo.Channel) {
             MessageTargetInfo.Channel channelInfo = (MessageTargetInfo.Channel) messageTargetInfo;
-            this.fire(new ChannelNoticeEvent(this.client, event.getOriginalMessages(), user, channelInfo.getChannel().snapshot(), message));
+            if (this.isListenedTo(ChannelNoticeEvent.class)) {
+                this.fire(new ChannelNoticeEvent(this.client, event.getOriginalMessages(), user, channelInfo.getChannel()::snapshot, message));
+            }
         } else if (messageTargetInfo instanceof MessageTargetInfo.TargetedChannel) {
             MessageTargetInfo.TargetedChannel channelInfo = (MessageTargetInfo.TargetedChannel) messageTargetInfo;
-            this.fire(new ChannelTargetedNoticeEvent(this.client, event.getOriginalMessages(), user, channelInfo.getChannel().snapshot(), channelInfo.getPrefix(), message));
+            if (this.isListenedTo(ChannelTargetedNoticeEvent.class)) {
+                this.fire(new ChannelTargetedNoticeEvent(this.client, event.getOriginalMessages(), user, channelInfo.getChannel()::snapshot, channelInfo.getPrefix(), message));
+            }
         }
     }
 
-    @CommandFilter("PRIVMSG")
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void privmsg(ClientReceiveCommandEvent event) {
+    void privmsg(ClientReceiveCommandEvent event) {
         if (event.getParameters().size() < 2) {
             this.trackException(event, "PRIVMSG message of incorrect length");
             return;
@@ -944,24 +950,32 @@ class EventListener {
         User user = (User) event.getActor();
         MessageTargetInfo messageTargetInfo = this.getTypeByTarget(event.getParameters().get(0));
         if (messageTargetInfo instanceof MessageTargetInfo.Private) {
-            this.fire(new PrivateMessageEvent(this.client, event.getOriginalMessages(), user, event.getParameters().get(0), event.getParameters().get(1)));
+            if (this.isListenedTo(PrivateMessageEvent.class)) {
+                this.fire(new PrivateMessageEvent(this.client, event.getOriginalMessages(), user, event.getParameters().get(0), event.getParameters().get(1)));
+            }
         } else if (messageTargetInfo instanceof MessageTargetInfo.Channel) {
             MessageTargetInfo.Channel channelInfo = (MessageTargetInfo.Channel) messageTargetInfo;
-            this.fire(new ChannelMessageEvent(this.client, event.getOriginalMessages(), user, channelInfo.getChannel().snapshot(), event.getParameters().get(1)));
+            if (this.isListenedTo(ChannelMessageEvent.class)) {
+                this.fire(new ChannelMessageEvent(this.client, event.getOriginalMessages(), user, channelInfo.getChannel()::snapshot, event.getParameters().get(1)));
+            }
         } else if (messageTargetInfo instanceof MessageTargetInfo.TargetedChannel) {
             MessageTargetInfo.TargetedChannel channelInfo = (MessageTargetInfo.TargetedChannel) messageTargetInfo;
-            this.fire(new ChannelTargetedMessageEvent(this.client, event.getOriginalMessages(), user, channelInfo.getChannel().snapshot(), channelInfo.getPrefix(), event.getParameters().get(1)));
+            if (this.isListenedTo(ChannelTargetedMessageEvent.class)) {
+                this.fire(new ChannelTargetedMessageEvent(this.client, event.getOriginalMessages(), user, channelInfo.getChannel()::snapshot, channelInfo.getPrefix(), event.getParameters().get(1)));
+            }
         }
     }
 
-    public void ctcp(ClientReceiveCommandEvent event) {
+    void ctcp(ClientReceiveCommandEvent event) {
         final String ctcpMessage = CTCPUtil.fromCTCP(event.getParameters().get(1));
         final MessageTargetInfo messageTargetInfo = this.getTypeByTarget(event.getParameters().get(0));
         User user = (User) event.getActor();
         switch (event.getCommand()) {
             case "NOTICE":
                 if (messageTargetInfo instanceof MessageTargetInfo.Private) {
-                    this.fire(new PrivateCTCPReplyEvent(this.client, event.getOriginalMessages(), user, event.getParameters().get(0), ctcpMessage));
+                    if (this.isListenedTo(PrivateCTCPReplyEvent.class)) {
+                        this.fire(new PrivateCTCPReplyEvent(this.client, event.getOriginalMessages(), user, event.getParameters().get(0), ctcpMessage));
+                    }
                 }
                 break;
             case "PRIVMSG":
@@ -989,18 +1003,20 @@ class EventListener {
                     }
                 } else if (messageTargetInfo instanceof MessageTargetInfo.Channel) {
                     MessageTargetInfo.Channel channelInfo = (MessageTargetInfo.Channel) messageTargetInfo;
-                    this.fire(new ChannelCTCPEvent(this.client, event.getOriginalMessages(), user, channelInfo.getChannel().snapshot(), ctcpMessage));
+                    if (this.isListenedTo(ChannelCTCPEvent.class)) {
+                        this.fire(new ChannelCTCPEvent(this.client, event.getOriginalMessages(), user, channelInfo.getChannel()::snapshot, ctcpMessage));
+                    }
                 } else if (messageTargetInfo instanceof MessageTargetInfo.TargetedChannel) {
                     MessageTargetInfo.TargetedChannel channelInfo = (MessageTargetInfo.TargetedChannel) messageTargetInfo;
-                    this.fire(new ChannelTargetedCTCPEvent(this.client, event.getOriginalMessages(), user, channelInfo.getChannel().snapshot(), channelInfo.getPrefix(), ctcpMessage));
+                    if (this.isListenedTo(ChannelTargetedCTCPEvent.class)) {
+                        this.fire(new ChannelTargetedCTCPEvent(this.client, event.getOriginalMessages(), user, channelInfo.getChannel()::snapshot, channelInfo.getPrefix(), ctcpMessage));
+                    }
                 }
                 break;
         }
     }
 
-    @CommandFilter("MODE")
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void mode(ClientReceiveCommandEvent event) {
+    void mode(ClientReceiveCommandEvent event) {
         if (event.getParameters().size() < 2) {
             this.trackException(event, "MODE message of incorrect length");
             return;
@@ -1009,24 +1025,28 @@ class EventListener {
         if (messageTargetInfo instanceof MessageTargetInfo.Private) {
             ModeStatusList<UserMode> statusList;
             try {
-                statusList = ModeStatusList.fromUser(this.client, StringUtil.combineSplit(event.getParameters().toArray(new String[event.getParameters().size()]), 1));
+                statusList = ModeStatusList.fromUser(this.client, String.join(" ", event.getParameters().subList(1, event.getParameters().size())));
             } catch (IllegalArgumentException e) {
                 this.trackException(event, e.getMessage());
                 return;
             }
-            this.fire(new UserModeEvent(this.client, event.getOriginalMessages(), event.getActor(), event.getParameters().get(0), statusList));
+            if (this.isListenedTo(UserModeEvent.class)) {
+                this.fire(new UserModeEvent(this.client, event.getOriginalMessages(), event.getActor(), event.getParameters().get(0), statusList));
+            }
             this.client.updateUserModes(statusList);
         } else if (messageTargetInfo instanceof MessageTargetInfo.Channel) {
             ActorProvider.IRCChannel channel = ((MessageTargetInfo.Channel) messageTargetInfo).getChannel();
             ModeStatusList<ChannelMode> statusList;
             try {
-                statusList = ModeStatusList.fromChannel(this.client, StringUtil.combineSplit(event.getParameters().toArray(new String[event.getParameters().size()]), 1));
+                statusList = ModeStatusList.fromChannel(this.client, String.join(" ", event.getParameters().subList(1, event.getParameters().size())));
             } catch (IllegalArgumentException e) {
                 this.trackException(event, e.getMessage());
                 return;
             }
             Channel channelSnapshot = channel.snapshot();
-            this.fire(new ChannelModeEvent(this.client, event.getOriginalMessages(), event.getActor(), channelSnapshot, statusList));
+            if (this.isListenedTo(ChannelModeEvent.class)) {
+                this.fire(new ChannelModeEvent(this.client, event.getOriginalMessages(), event.getActor(), channelSnapshot, statusList));
+            }
             statusList.getStatuses().stream().filter(status -> status.getMode().getType() == ChannelMode.Type.A_MASK).forEach(status -> channel.trackModeInfo(status.isSetting(), new ModeData.IRCModeInfo(this.client, channelSnapshot, status.getMode(), status.getParameter().get(), Optional.of(event.getActor().getName()), Optional.of(Instant.now()))));
             channel.updateChannelModes(statusList);
         } else {
@@ -1034,9 +1054,7 @@ class EventListener {
         }
     }
 
-    @CommandFilter("JOIN")
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void join(ClientReceiveCommandEvent event) {
+    void join(ClientReceiveCommandEvent event) {
         if (event.getParameters().size() < 1) {
             this.trackException(event, "JOIN message of incorrect length");
             return;
@@ -1051,7 +1069,7 @@ class EventListener {
                     this.client.getActorProvider().trackChannel(channel);
                     this.client.sendRawLine("MODE " + channel.getName());
                     this.client.sendRawLine("WHO " + channel.getName() + (this.client.getServerInfo().hasWhoXSupport() ? " %cuhsnfar" : ""));
-                    if (this.client.getIntendedChannels().contains(channel.getName())) {
+                    if (this.client.getIntendedChannels().contains(channel.getName()) && this.isListenedTo(RequestedChannelJoinCompleteEvent.class)) {
                         joinEvent = new RequestedChannelJoinCompleteEvent(this.client, event.getOriginalMessages(), channel.snapshot(), user.snapshot());
                     }
                 }
@@ -1061,10 +1079,12 @@ class EventListener {
                     }
                     user.setRealName(event.getParameters().get(2));
                 }
-                if (joinEvent == null) {
+                if ((joinEvent == null) && this.isListenedTo(ChannelJoinEvent.class)) {
                     joinEvent = new ChannelJoinEvent(this.client, event.getOriginalMessages(), channel.snapshot(), user.snapshot());
                 }
-                this.fire(joinEvent);
+                if (joinEvent != null) {
+                    this.fire(joinEvent);
+                }
             } else {
                 this.trackException(event, "JOIN message sent for non-user");
             }
@@ -1073,9 +1093,7 @@ class EventListener {
         }
     }
 
-    @CommandFilter("PART")
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void part(ClientReceiveCommandEvent event) {
+    void part(ClientReceiveCommandEvent event) {
         if (event.getParameters().size() < 1) {
             this.trackException(event, "PART message of incorrect length");
             return;
@@ -1086,13 +1104,13 @@ class EventListener {
                 User user = (User) event.getActor();
                 boolean isSelf = user.getNick().equals(this.client.getNick());
                 String partReason = (event.getParameters().size() > 1) ? event.getParameters().get(1) : "";
-                ChannelPartEvent partEvent;
                 if (isSelf && this.client.getIntendedChannels().contains(channel.getName())) {
-                    partEvent = new RequestedChannelLeaveViaPartEvent(this.client, event.getOriginalMessages(), channel.snapshot(), user, partReason);
-                } else {
-                    partEvent = new ChannelPartEvent(this.client, event.getOriginalMessages(), channel.snapshot(), user, partReason);
+                    if (this.isListenedTo(RequestedChannelLeaveViaPartEvent.class)) {
+                        this.fire(new RequestedChannelLeaveViaPartEvent(this.client, event.getOriginalMessages(), channel.snapshot(), user, partReason));
+                    }
+                } else if (this.isListenedTo(ChannelPartEvent.class)) {
+                    this.fire(new ChannelPartEvent(this.client, event.getOriginalMessages(), channel.snapshot(), user, partReason));
                 }
-                this.fire(partEvent);
                 channel.trackUserPart(user.getNick());
                 if (isSelf) {
                     this.client.getActorProvider().unTrackChannel(channel);
@@ -1105,20 +1123,18 @@ class EventListener {
         }
     }
 
-    @CommandFilter("QUIT")
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void quit(ClientReceiveCommandEvent event) {
+    void quit(ClientReceiveCommandEvent event) {
         if (event.getActor() instanceof User) {
-            this.fire(new UserQuitEvent(this.client, event.getOriginalMessages(), (User) event.getActor(), (event.getParameters().isEmpty()) ? "" : event.getParameters().get(0)));
+            if (this.isListenedTo(UserQuitEvent.class)) {
+                this.fire(new UserQuitEvent(this.client, event.getOriginalMessages(), (User) event.getActor(), (event.getParameters().isEmpty()) ? "" : event.getParameters().get(0)));
+            }
             this.client.getActorProvider().trackUserQuit(((User) event.getActor()).getNick());
         } else {
             this.trackException(event, "QUIT message sent for non-user");
         }
     }
 
-    @CommandFilter("KICK")
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void kick(ClientReceiveCommandEvent event) {
+    void kick(ClientReceiveCommandEvent event) {
         if (event.getParameters().size() < 2) {
             this.trackException(event, "KICK message of incorrect length");
             return;
@@ -1128,14 +1144,14 @@ class EventListener {
             ActorProvider.IRCUser kickedUser = this.client.getActorProvider().getUser(event.getParameters().get(1));
             if (kickedUser != null) {
                 boolean isSelf = event.getParameters().get(1).equals(this.client.getNick());
-                ChannelKickEvent kickEvent;
                 String kickReason = (event.getParameters().size() > 2) ? event.getParameters().get(2) : "";
                 if (isSelf && this.client.getIntendedChannels().contains(channel.getName())) {
-                    kickEvent = new RequestedChannelLeaveViaKickEvent(this.client, event.getOriginalMessages(), channel.snapshot(), (User) event.getActor(), kickedUser.snapshot(), kickReason);
-                } else {
-                    kickEvent = new ChannelKickEvent(this.client, event.getOriginalMessages(), channel.snapshot(), (User) event.getActor(), kickedUser.snapshot(), kickReason);
+                    if (this.isListenedTo(RequestedChannelLeaveViaKickEvent.class)) {
+                        this.fire(new RequestedChannelLeaveViaKickEvent(this.client, event.getOriginalMessages(), channel.snapshot(), (User) event.getActor(), kickedUser.snapshot(), kickReason));
+                    }
+                } else if (this.isListenedTo(ChannelKickEvent.class)) {
+                    this.fire(new ChannelKickEvent(this.client, event.getOriginalMessages(), channel.snapshot(), (User) event.getActor(), kickedUser.snapshot(), kickReason));
                 }
-                this.fire(kickEvent);
                 channel.trackUserPart(event.getParameters().get(1));
                 if (isSelf) {
                     this.client.getActorProvider().unTrackChannel(channel);
@@ -1148,9 +1164,7 @@ class EventListener {
         }
     }
 
-    @CommandFilter("NICK")
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void nick(ClientReceiveCommandEvent event) {
+    void nick(ClientReceiveCommandEvent event) {
         if (event.getParameters().size() < 1) {
             this.trackException(event, "NICK message of incorrect length");
             return;
@@ -1166,10 +1180,13 @@ class EventListener {
                 this.trackException(event, "NICK message sent for user not in tracked channels");
                 return;
             }
-            User oldUser = user.snapshot();
-            this.client.getActorProvider().trackUserNickChange(user.getNick(), event.getParameters().get(0));
-            User newUser = user.snapshot();
-            this.fire(new UserNickChangeEvent(this.client, event.getOriginalMessages(), oldUser, newUser));
+            if (this.isListenedTo(UserNickChangeEvent.class)) {
+                User oldUser = user.snapshot();
+                this.client.getActorProvider().trackUserNickChange(user.getNick(), event.getParameters().get(0));
+                this.fire(new UserNickChangeEvent(this.client, event.getOriginalMessages(), oldUser, user.snapshot()));
+            } else {
+                this.client.getActorProvider().trackUserNickChange(user.getNick(), event.getParameters().get(0));
+            }
             if (isSelf) {
                 this.client.setCurrentNick(event.getParameters().get(0));
             }
@@ -1178,9 +1195,7 @@ class EventListener {
         }
     }
 
-    @CommandFilter("INVITE")
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void invite(ClientReceiveCommandEvent event) {
+    void invite(ClientReceiveCommandEvent event) {
         if (event.getParameters().size() < 2) {
             this.trackException(event, "INVITE message of incorrect length");
             return;
@@ -1190,15 +1205,15 @@ class EventListener {
             if (this.client.getNick().equalsIgnoreCase(event.getParameters().get(0)) && this.client.getIntendedChannels().contains(channel.getName())) {
                 this.client.sendRawLine("JOIN " + channel.getName());
             }
-            this.fire(new ChannelInviteEvent(this.client, event.getOriginalMessages(), channel.snapshot(), event.getActor(), event.getParameters().get(0)));
+            if (this.isListenedTo(ChannelInviteEvent.class)) {
+                this.fire(new ChannelInviteEvent(this.client, event.getOriginalMessages(), channel.snapshot(), event.getActor(), event.getParameters().get(0)));
+            }
         } else {
             this.trackException(event, "INVITE message sent for invalid channel name");
         }
     }
 
-    @CommandFilter("TOPIC")
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void topic(ClientReceiveCommandEvent event) {
+    void topic(ClientReceiveCommandEvent event) {
         if (event.getParameters().size() < 2) {
             this.trackException(event, "TOPIC message of incorrect length");
             return;
@@ -1207,15 +1222,15 @@ class EventListener {
         if (channel != null) {
             channel.setTopic(event.getParameters().get(1));
             channel.setTopic(System.currentTimeMillis(), event.getActor());
-            this.fire(new ChannelTopicEvent(this.client, event.getOriginalMessages(), channel.snapshot(), true));
+            if (this.isListenedTo(ChannelTopicEvent.class)) {
+                this.fire(new ChannelTopicEvent(this.client, event.getOriginalMessages(), channel.snapshot(), true));
+            }
         } else {
             this.trackException(event, "TOPIC message sent for invalid channel name");
         }
     }
 
-    @CommandFilter("WALLOPS")
-    @Handler(priority = Integer.MAX_VALUE - 1)
-    public void wallops(ClientReceiveCommandEvent event) {
+    void wallops(ClientReceiveCommandEvent event) {
         if (event.getParameters().size() < 1) {
             this.trackException(event, "WALLOPS message of incorrect length");
             return;
@@ -1223,6 +1238,20 @@ class EventListener {
         this.fire(new WallopsEvent(this.client, event.getOriginalMessages(), event.getActor(), event.getParameters().get(0)));
     }
 
+    void pong(ClientReceiveCommandEvent event) {
+        if (event.getParameters().isEmpty()) {
+            this.trackException(event, "PONG message of incorrect length");
+            return;
+        }
+        this.client.pong(event.getParameters().get(event.getParameters().size() - 1));
+    }
+
+    void error(ClientReceiveCommandEvent event) {
+        if (!event.getParameters().isEmpty() && event.getParameters().get(0).toLowerCase(Locale.ENGLISH).contains("flood")) {
+            this.client.throttled();
+        }
+    }
+
     private static class MessageTargetInfo {
         private static class Channel extends MessageTargetInfo {
             private final ActorProvider.IRCChannel channel;
@@ -1293,6 +1322,19 @@ class EventListener {
         this.client.getEventManager().callEvent(event);
     }
 
+    /**
+     * Gets if an event of the given type would reach any listener, so
+     * building it and its snapshots can be skipped if not. Other event
+     * manager implementations are assumed to listen to everything.
+     *
+     * @param eventClass event type
+     * @return true if the event should be built and fired
+     */
+    private boolean isListenedTo(@Nonnull Class<? extends ClientEvent> eventClass) {
+        EventManager eventManager = this.client.getEventManager();
+        return !(eventManager instanceof ManagerEvent) || ((ManagerEvent) eventManager).hasSubscribers(eventClass);
+    }
+
     @Nonnull
     private MessageTargetInfo getTypeByTarget(@Nonnull String target) {
         ActorProvider.IRCChannel channel = this.client.getActorProvider().getChannel(target);
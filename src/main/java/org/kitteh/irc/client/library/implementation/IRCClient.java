@@ -31,6 +31,7 @@ import org.kitteh.irc.client.library.element.mode.ModeStatusList;
 import org.kitteh.irc.client.library.element.mode.UserMode;
 import org.kitteh.irc.client.library.event.client.ClientReceiveCommandEvent;
 import org.kitteh.irc.client.library.event.client.ClientReceiveNumericEvent;
+import org.kitteh.irc.client.library.exception.KittehEventException;
 import org.kitteh.irc.client.library.exception.KittehServerMessageException;
 import org.kitteh.irc.client.library.exception.KittehServerMessageTagException;
 import org.kitteh.irc.client.library.feature.AuthManager;
@@ -39,45 +40,62 @@ import org.kitteh.irc.client.library.feature.MessageTagManager;
 import org.kitteh.irc.client.library.util.CISet;
 import org.kitteh.irc.client.library.util.Cutter;
 import org.kitteh.irc.client.library.util.Pair;
-import org.kitteh.irc.client.library.util.QueueProcessingThread;
+import org.kitteh.irc.client.library.util.QueuedMessage;
+import org.kitteh.irc.client.library.util.RateLimiter;
 import org.kitteh.irc.client.library.util.Sanity;
-import org.kitteh.irc.client.library.util.StringUtil;
 import org.kitteh.irc.client.library.util.ToStringer;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
-import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 final class IRCClient extends InternalClient {
-    private final class InputProcessor extends QueueProcessingThread<String> {
-        private InputProcessor() {
-            super("Kitteh IRC Client Input Processor (" + IRCClient.this.getName() + ')');
+    private final class InputProcessor extends QueueProcessor<IRCLine> {
+        private InputProcessor(@Nullable Executor executor) {
+            super("Kitteh IRC Client Input Processor (" + IRCClient.this.getName() + ')', executor);
         }
 
         @Override
-        protected void processElement(@Nonnull String element) {
+        protected void processElement(@Nonnull IRCLine element) {
             try {
                 IRCClient.this.handleLine(element);
             } catch (final Exception thrown) {
                 IRCClient.this.exceptionListener.queue(thrown);
             }
+            if (element != IRCLine.EMPTY) {
+                IRCClient.this.lineProcessed();
+            }
+        }
+
+        @Override
+        protected void reportException(@Nonnull Exception exception) {
+            IRCClient.this.exceptionListener.queue(exception);
         }
     }
 
     private final String[] pingPurr = new String[]{"MEOW", "MEOW!", "PURR", "PURRRRRRR", "MEOWMEOW", ":3", "HISS"};
     private int pingPurrCount;
+    private volatile String pingPending;
+    private volatile long pingSentNanos;
 
     private final Config config;
     private final InputProcessor processor;
+    private final AtomicInteger inboundPending = new AtomicInteger();
+    private final int inboundCapacity;
+    private final RateLimiter.TokenBucket defaultRateLimiter;
     private IRCServerInfo serverInfo = new IRCServerInfo(this);
 
     private String goalNick;
@@ -86,13 +104,13 @@ final class IRCClient extends InternalClient {
 
     private final Set<String> channelsIntended = new CISet(this);
 
-    private NettyManager.ClientConnection connection;
+    private volatile NettyManager.ClientConnection connection;
 
     private Cutter messageCutter = new Cutter.DefaultWordCutter();
 
     private final AuthManager authManager = new ManagerAuth(this);
     private final ManagerCapability capabilityManager = new ManagerCapability(this);
-    private final EventManager eventManager = new ManagerEvent(this);
+    private final EventManager eventManager;
     private final ManagerISupport iSupportManager = new ManagerISupport(this);
     private final ManagerMessageTag messageTagManager = new ManagerMessageTag(this);
 
@@ -101,6 +119,7 @@ final class IRCClient extends InternalClient {
     private final Listener<String> outputListener;
 
     private final ActorProvider actorProvider = new ActorProvider(this);
+    private final EventListener eventListener = new EventListener(this);
 
     private Map<Character, ModeStatus<UserMode>> userModes;
 
@@ -109,16 +128,21 @@ final class IRCClient extends InternalClient {
         this.currentNick = this.requestedNick = this.goalNick = this.config.get(Config.NICK);
 
         final String name = this.config.getNotNull(Config.NAME);
+        final ExecutorService executor = this.config.get(Config.EXECUTOR);
+        this.inboundCapacity = this.config.getNotNull(Config.INBOUND_CAPACITY);
+        this.defaultRateLimiter = new RateLimiter.TokenBucket(DEFAULT_MESSAGE_BURST, this.getMessageDelay());
+
+        this.eventManager = new ManagerEvent(this, executor);
 
         Config.ExceptionConsumerWrapper exceptionListenerWrapper = this.config.get(Config.LISTENER_EXCEPTION);
-        this.exceptionListener = new Listener<>(name, (exceptionListenerWrapper == null) ? null : exceptionListenerWrapper.getConsumer());
+        // The exception listener can't report its own failures to itself
+        this.exceptionListener = new Listener<>(name, (exceptionListenerWrapper == null) ? null : exceptionListenerWrapper.getConsumer(), executor, null);
         Config.StringConsumerWrapper inputListenerWrapper = this.config.get(Config.LISTENER_INPUT);
-        this.inputListener = new Listener<>(name, (inputListenerWrapper == null) ? null : inputListenerWrapper.getConsumer());
+        this.inputListener = new Listener<>(name, (inputListenerWrapper == null) ? null : inputListenerWrapper.getConsumer(), executor, this.exceptionListener::queue);
         Config.StringConsumerWrapper outputListenerWrapper = this.config.get(Config.LISTENER_OUTPUT);
-        this.outputListener = new Listener<>(name, (outputListenerWrapper == null) ? null : outputListenerWrapper.getConsumer());
+        this.outputListener = new Listener<>(name, (outputListenerWrapper == null) ? null : outputListenerWrapper.getConsumer(), executor, this.exceptionListener::queue);
 
-        this.processor = new InputProcessor();
-        this.eventManager.registerEventListener(new EventListener(this));
+        this.processor = new InputProcessor(executor);
     }
 
     @Override
@@ -130,7 +154,7 @@ final class IRCClient extends InternalClient {
                 continue;
             }
             this.channelsIntended.add(channelName);
-            this.sendRawLine("JOIN :" + channelName);
+            this.sendRawLine("JOIN " + channelName);
         }
     }
 
@@ -140,7 +164,7 @@ final class IRCClient extends InternalClient {
         Sanity.nullCheck(key, "Key cannot be null");
         Sanity.truthiness(this.serverInfo.isValidChannel(channel), "Invalid channel name");
         this.channelsIntended.add(channel);
-        this.sendRawLine("JOIN :" + channel + ' ' + key);
+        this.sendRawLine("JOIN " + channel + ' ' + key);
     }
 
     /**
@@ -159,7 +183,7 @@ final class IRCClient extends InternalClient {
                 continue;
             }
             this.channelsIntended.add(channelAndKey.getLeft());
-            this.sendRawLine("JOIN :" + channelAndKey.getLeft() + (channelAndKey.getRight() == null ? "" : (' ' + channelAndKey.getRight())));
+            this.sendRawLine("JOIN " + channelAndKey.getLeft() + (channelAndKey.getRight() == null ? "" : (' ' + channelAndKey.getRight())));
         }
     }
 
@@ -218,6 +242,13 @@ final class IRCClient extends InternalClient {
         return this.config.getNotNull(Config.MESSAGE_DELAY);
     }
 
+    @Nonnull
+    @Override
+    RateLimiter getRateLimiter() {
+        RateLimiter rateLimiter = this.config.get(Config.RATE_LIMITER);
+        return (rateLimiter != null) ? rateLimiter : this.defaultRateLimiter;
+    }
+
     @Nonnull
     @Override
     public MessageTagManager getMessageTagManager() {
@@ -327,6 +358,11 @@ final class IRCClient extends InternalClient {
         return 505 - this.getUser().map(user -> user.getName().length()).orElse(100) - target.length() - type.length();
     }
 
+    @Override
+    public void sendMessageToAll(@Nonnull Collection<String> targets, @Nonnull String message) {
+        this.sendToAll("PRIVMSG", targets, message);
+    }
+
     @Override
     public void sendNotice(@Nonnull String target, @Nonnull String message) {
         Sanity.safeMessageCheck(target, "Target");
@@ -335,6 +371,24 @@ final class IRCClient extends InternalClient {
         this.sendRawLine("NOTICE " + target + " :" + message);
     }
 
+    @Override
+    public void sendNoticeToAll(@Nonnull Collection<String> targets, @Nonnull String message) {
+        this.sendToAll("NOTICE", targets, message);
+    }
+
+    private void sendToAll(@Nonnull String command, @Nonnull Collection<String> targets, @Nonnull String message) {
+        Sanity.nullCheck(targets, "Targets cannot be null");
+        Sanity.safeMessageCheck(message);
+        for (String target : targets) {
+            Sanity.safeMessageCheck(target, "Target");
+            Sanity.truthiness((target.indexOf(' ') == -1) && (target.indexOf(',') == -1), "Target cannot have spaces or commas");
+        }
+        List<String> lines = LineCombiner.packTargets(command, targets, " :" + message, this.serverInfo.getTargetLimit(command));
+        // Check every line first, so a bad one doesn't leave a partial broadcast
+        lines.forEach(this::sendRawLineCheck);
+        lines.forEach(this::sendRawLine);
+    }
+
     @Override
     public void sendRawLine(@Nonnull String message) {
         this.sendRawLineCheck(message);
@@ -347,6 +401,13 @@ final class IRCClient extends InternalClient {
         this.connection.sendMessage(message, false, true);
     }
 
+    @Nonnull
+    @Override
+    public QueuedMessage sendRawLineQueued(@Nonnull String message) {
+        this.sendRawLineCheck(message);
+        return this.connection.queueMessage(message);
+    }
+
     @Override
     public void sendRawLineImmediately(@Nonnull String message) {
         this.sendRawLineCheck(message);
@@ -390,6 +451,8 @@ final class IRCClient extends InternalClient {
     public void setMessageDelay(int delay) {
         Sanity.truthiness(delay > 0, "Delay must be at least 1");
         this.config.set(Config.MESSAGE_DELAY, delay);
+        // Keep the same bucket, so changing the delay doesn't refill it
+        this.defaultRateLimiter.setRefillMillis(delay);
         if (this.connection != null) {
             this.connection.updateScheduling();
         }
@@ -423,7 +486,7 @@ final class IRCClient extends InternalClient {
     }
 
     private void shutdownInternal(@Nullable String reason) {
-        this.processor.interrupt();
+        this.processor.shutdown();
 
         if (this.connection != null) { // In case shutdown is called while building.
             this.connection.shutdown(reason);
@@ -447,14 +510,42 @@ final class IRCClient extends InternalClient {
      * @param line line to be processed
      */
     @Override
-    void processLine(@Nonnull String line) {
-        if (line.startsWith("PING ")) {
-            this.sendRawLineImmediately("PONG " + line.substring(5));
-        } else if (!line.isEmpty()) {
+    void processLine(@Nonnull IRCLine line) {
+        if (line.getRaw().startsWith("PING ")) {
+            this.sendRawLineImmediately("PONG " + line.getRaw().substring(5));
+        } else {
+            int pending = this.inboundPending.incrementAndGet();
             this.processor.queue(line);
+            NettyManager.ClientConnection connection = this.connection;
+            if ((pending >= this.inboundCapacity) && (connection != null)) {
+                connection.setReadPaused(true);
+                // The backlog may have drained before pausing, recheck
+                if (this.inboundPending.get() <= this.getInboundResumeLevel()) {
+                    connection.setReadPaused(false);
+                }
+            }
+        }
+    }
+
+    /**
+     * Resumes reading once the backlog has fallen far enough.
+     */
+    private void lineProcessed() {
+        int pending = this.inboundPending.decrementAndGet();
+        NettyManager.ClientConnection connection = this.connection;
+        if ((connection != null) && connection.isReadPaused() && (pending <= this.getInboundResumeLevel())) {
+            connection.setReadPaused(false);
         }
     }
 
+    private int getInboundResumeLevel() {
+        return this.inboundCapacity / 2;
+    }
+
+    int getInboundPending() {
+        return this.inboundPending.get();
+    }
+
     @Nonnull
     @Override
     ActorProvider getActorProvider() {
@@ -497,10 +588,24 @@ final class IRCClient extends InternalClient {
         return this.requestedNick;
     }
 
+    /**
+     * Connects over a channel which is already open, without the usual
+     * registration, for testing against an embedded channel.
+     *
+     * @param channel open channel
+     * @return the connection
+     */
+    @Nonnull
+    NettyManager.ClientConnection connect(@Nonnull io.netty.channel.Channel channel) {
+        NettyManager.ClientConnection connection = NettyManager.connect(this, channel);
+        this.connection = connection;
+        return connection;
+    }
+
     @Override
     void connect() {
         this.connection = NettyManager.connect(this);
-        this.processor.queue("");
+        this.processor.queue(IRCLine.EMPTY);
 
         this.sendRawLineImmediately("CAP LS 302");
 
@@ -522,7 +627,28 @@ final class IRCClient extends InternalClient {
 
     @Override
     void ping() {
-        this.sendRawLine("PING " + this.pingPurr[this.pingPurrCount++ % this.pingPurr.length]); // Connection's asleep, post cat sounds
+        String purr = this.pingPurr[this.pingPurrCount++ % this.pingPurr.length]; // Connection's asleep, post cat sounds
+        this.pingSentNanos = System.nanoTime();
+        this.pingPending = purr;
+        // Skips the queue, so the round trip measures the server rather than our backlog
+        this.sendRawLineImmediately("PING " + purr);
+    }
+
+    @Override
+    void pong(@Nonnull String purr) {
+        NettyManager.ClientConnection connection = this.connection;
+        if (purr.equals(this.pingPending) && (connection != null)) {
+            this.pingPending = null;
+            connection.reportLag(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.pingSentNanos));
+        }
+    }
+
+    @Override
+    void throttled() {
+        NettyManager.ClientConnection connection = this.connection;
+        if (connection != null) {
+            connection.reportThrottle();
+        }
     }
 
     @Override
@@ -565,72 +691,59 @@ final class IRCClient extends InternalClient {
         }
     }
 
-    private List<String> handleArgs(@Nonnull String[] split, int start) {
-        final List<String> argsList = new ArrayList<>();
-
-        int index = start;
-        for (; index < split.length; index++) {
-            if (split[index].startsWith(":")) {
-                split[index] = split[index].substring(1);
-                argsList.add(StringUtil.combineSplit(split, index));
-                break;
-            }
-            argsList.add(split[index]);
-        }
-
-        return argsList;
-    }
-
-    private void handleLine(@Nonnull final String line) {
-        if (line.isEmpty()) {
+    private void handleLine(@Nonnull final IRCLine line) {
+        if (line == IRCLine.EMPTY) {
             this.actorProvider.reset();
             this.capabilityManager.reset();
             this.serverInfo.reset();
+            return;
         }
 
-        final String[] split = line.split(" ");
-
-        int index = 0;
-
         List<MessageTag> tags;
-        if (split[index].startsWith("@")) {
-            if (split.length <= index) {
-                throw new KittehServerMessageException(line, "Server sent a message without a command");
-            }
-            String tagSection = split[index];
-            if (tagSection.length() < 2) {
-                throw new KittehServerMessageTagException(line, "Server sent an empty tag section");
+        String tagSection = line.getTags();
+        if (tagSection != null) {
+            if (tagSection.isEmpty()) {
+                throw new KittehServerMessageTagException(line.getRaw(), "Server sent an empty tag section");
             }
-            tags = this.messageTagManager.getTags(tagSection.substring(1));
-            index++;
+            tags = this.messageTagManager.getTags(tagSection);
         } else {
-            tags = Collections.unmodifiableList(new ArrayList<>());
+            tags = Collections.emptyList();
         }
 
-        final String actorName;
-        if (split[index].startsWith(":")) {
-            actorName = split[index].substring(1);
-            index++;
-        } else {
-            actorName = "";
-        }
-        final ActorProvider.IRCActor actor = this.actorProvider.getActor(actorName);
+        final ActorProvider.IRCActor actor = this.actorProvider.getActor(line.getPrefix());
 
-        if (split.length <= index) {
-            throw new KittehServerMessageException(line, "Server sent a message without a command");
-        }
-
-        final String commandString = split[index++];
+        final String commandString = line.getCommand();
 
-        final List<String> args = this.handleArgs(split, index);
+        final List<String> args = line.getParameters();
 
-        final IRCServerMessage serverMessage = new IRCServerMessage(line, tags);
+        final IRCServerMessage serverMessage = new IRCServerMessage(line.getRaw(), tags);
 
-        try {
-            int numeric = Integer.parseInt(commandString);
-            this.eventManager.callEvent(new ClientReceiveNumericEvent(this, serverMessage, actor.snapshot(), commandString, numeric, args));
-        } catch (NumberFormatException exception) {
-            this.eventManager.callEvent(new ClientReceiveCommandEvent(this, serverMessage, actor.snapshot(), commandString, args));
+        if (line.isNumeric()) {
+            ClientReceiveNumericEvent event = new ClientReceiveNumericEvent(this, serverMessage, actor::snapshot, commandString, line.getNumeric(), args);
+            try {
+                this.eventListener.handle(event);
+            } catch (final Exception thrown) {
+                this.trackHandlerException(thrown);
+            }
+            this.eventManager.callEvent(event);
+        } else {
+            ClientReceiveCommandEvent event;
+            if (actor instanceof ActorProvider.IRCUser) {
+                // Handling may change the user before listeners see the event
+                event = new ClientReceiveCommandEvent(this, serverMessage, actor.snapshot(), commandString, args);
+            } else {
+                event = new ClientReceiveCommandEvent(this, serverMessage, actor::snapshot, commandString, args);
+            }
+            try {
+                this.eventListener.handle(event);
+            } catch (final Exception thrown) {
+                this.trackHandlerException(thrown);
+            }
+            this.eventManager.callEvent(event);
         }
     }
+
+    private void trackHandlerException(@Nonnull Exception thrown) {
+        this.exceptionListener.queue((thrown instanceof KittehServerMessageException) ? thrown : new KittehEventException(thrown));
+    }
 }
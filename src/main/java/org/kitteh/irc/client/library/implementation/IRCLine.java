@@ -0,0 +1,290 @@
+/*
+ * * Copyright (C) 2013-2016 Matt Baxter http://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.implementation;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.CharsetUtil;
+import org.kitteh.irc.client.library.exception.KittehServerMessageException;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A line sent by the server, tokenized into its tags, prefix, command and
+ * parameters.
+ */
+final class IRCLine {
+    /**
+     * Marker queued on connect, signalling a fresh connection.
+     */
+    static final IRCLine EMPTY = new IRCLine("", null, "", "", -1, Collections.emptyList());
+
+    private static final char SPACE = ' ';
+
+    /**
+     * Commands handed out as shared constants rather than freshly decoded.
+     */
+    private static final String[] KNOWN_COMMANDS = {
+            "ACCOUNT", "AUTHENTICATE", "AWAY", "BATCH", "CAP", "CHGHOST", "ERROR", "INVITE", "JOIN", "KICK",
+            "MODE", "NICK", "NOTICE", "PART", "PING", "PONG", "PRIVMSG", "QUIT", "TOPIC", "WALLOPS"
+    };
+    private static final String[] COMMAND_TABLE = new String[64];
+    private static final String[] NUMERICS = new String[1000];
+
+    static {
+        for (String command : KNOWN_COMMANDS) {
+            int slot = command.hashCode() & (COMMAND_TABLE.length - 1);
+            while (COMMAND_TABLE[slot] != null) {
+                slot = (slot + 1) & (COMMAND_TABLE.length - 1);
+            }
+            COMMAND_TABLE[slot] = command;
+        }
+    }
+
+    /**
+     * Tokenizes a line from a buffer, decoding it once and slicing tokens
+     * from the decoded line. Reads the readable bytes without consuming
+     * them.
+     *
+     * @param buffer buffer containing a single line, minus linebreaks
+     * @return the parsed line
+     * @throws KittehServerMessageException if the line has no command
+     */
+    @Nonnull
+    static IRCLine parse(@Nonnull ByteBuf buffer) {
+        return parse(buffer.toString(CharsetUtil.UTF_8));
+    }
+
+    /**
+     * Tokenizes a line.
+     *
+     * @param raw a single line, minus linebreaks
+     * @return the parsed line
+     * @throws KittehServerMessageException if the line has no command
+     */
+    @Nonnull
+    static IRCLine parse(@Nonnull String raw) {
+        int index = 0;
+        final int end = raw.length();
+
+        String tags = null;
+        if ((index < end) && (raw.charAt(index) == '@')) {
+            int space = raw.indexOf(SPACE, index);
+            if (space < 0) {
+                throw new KittehServerMessageException(raw, "Server sent a message without a command");
+            }
+            tags = raw.substring(index + 1, space);
+            index = skipSpaces(raw, space, end);
+        }
+
+        String prefix = "";
+        if ((index < end) && (raw.charAt(index) == ':')) {
+            int space = raw.indexOf(SPACE, index);
+            if (space < 0) {
+                throw new KittehServerMessageException(raw, "Server sent a message without a command");
+            }
+            prefix = raw.substring(index + 1, space);
+            index = skipSpaces(raw, space, end);
+        }
+
+        if (index >= end) {
+            throw new KittehServerMessageException(raw, "Server sent a message without a command");
+        }
+        int commandEnd = tokenEnd(raw, index, end);
+        final int numeric = readNumeric(raw, index, commandEnd);
+        final String command;
+        if (numeric >= 0) {
+            String numericString = NUMERICS[numeric];
+            if (numericString == null) {
+                NUMERICS[numeric] = numericString = raw.substring(index, commandEnd);
+            }
+            command = numericString;
+        } else {
+            command = readCommand(raw, index, commandEnd);
+        }
+        index = skipSpaces(raw, commandEnd, end);
+
+        List<String> parameters = new ArrayList<>();
+        while (index < end) {
+            if (raw.charAt(index) == ':') {
+                parameters.add(raw.substring(index + 1));
+                break;
+            }
+            int parameterEnd = tokenEnd(raw, index, end);
+            parameters.add(raw.substring(index, parameterEnd));
+            index = skipSpaces(raw, parameterEnd, end);
+        }
+
+        return new IRCLine(raw, tags, prefix, command, numeric, Collections.unmodifiableList(parameters));
+    }
+
+    /**
+     * Reads a three digit numeric.
+     *
+     * @return numeric or -1 if the command is not numeric
+     */
+    private static int readNumeric(@Nonnull String raw, int start, int end) {
+        if ((end - start) != 3) {
+            return -1;
+        }
+        int numeric = 0;
+        for (int index = start; index < end; index++) {
+            char c = raw.charAt(index);
+            if ((c < '0') || (c > '9')) {
+                return -1;
+            }
+            numeric = (numeric * 10) + (c - '0');
+        }
+        return numeric;
+    }
+
+    /**
+     * Reads a command, handing out the shared constant for known commands
+     * sent as such and keeping the server's case for anything else.
+     */
+    @Nonnull
+    private static String readCommand(@Nonnull String raw, int start, int end) {
+        final int length = end - start;
+        int hash = 0;
+        for (int index = start; index < end; index++) {
+            hash = (31 * hash) + raw.charAt(index);
+        }
+        int slot = hash & (COMMAND_TABLE.length - 1);
+        String candidate;
+        while ((candidate = COMMAND_TABLE[slot]) != null) {
+            if ((candidate.length() == length) && raw.startsWith(candidate, start)) {
+                return candidate;
+            }
+            slot = (slot + 1) & (COMMAND_TABLE.length - 1);
+        }
+        return raw.substring(start, end);
+    }
+
+    private static int tokenEnd(@Nonnull String raw, int index, int end) {
+        int space = raw.indexOf(SPACE, index);
+        return (space < 0) ? end : space;
+    }
+
+    private static int skipSpaces(@Nonnull String raw, int index, int end) {
+        while ((index < end) && (raw.charAt(index) == SPACE)) {
+            index++;
+        }
+        return index;
+    }
+
+    private final String raw;
+    private final String tags;
+    private final String prefix;
+    private final String command;
+    private final int numeric;
+    private final List<String> parameters;
+
+    private IRCLine(@Nonnull String raw, @Nullable String tags, @Nonnull String prefix, @Nonnull String command, int numeric, @Nonnull List<String> parameters) {
+        this.raw = raw;
+        this.tags = tags;
+        this.prefix = prefix;
+        this.command = command;
+        this.numeric = numeric;
+        this.parameters = parameters;
+    }
+
+    /**
+     * Gets the full line as sent by the server.
+     *
+     * @return full line
+     */
+    @Nonnull
+    String getRaw() {
+        return this.raw;
+    }
+
+    /**
+     * Gets the unprocessed tag section, minus the leading @.
+     *
+     * @return tag section or null if no tags were sent
+     */
+    @Nullable
+    String getTags() {
+        return this.tags;
+    }
+
+    /**
+     * Gets the prefix, minus the leading colon.
+     *
+     * @return prefix or empty string if none was sent
+     */
+    @Nonnull
+    String getPrefix() {
+        return this.prefix;
+    }
+
+    /**
+     * Gets the command or numeric, in the case the server sent it. Known
+     * commands sent in upper case are returned as shared constants.
+     *
+     * @return command
+     */
+    @Nonnull
+    String getCommand() {
+        return this.command;
+    }
+
+    /**
+     * Gets if the command is a three digit numeric.
+     *
+     * @return true if numeric
+     */
+    boolean isNumeric() {
+        return this.numeric >= 0;
+    }
+
+    /**
+     * Gets the numeric.
+     *
+     * @return numeric or -1 if the command is not numeric
+     */
+    int getNumeric() {
+        return this.numeric;
+    }
+
+    /**
+     * Gets the parameters, with the trailing parameter unprefixed.
+     *
+     * @return unmodifiable list of parameters
+     */
+    @Nonnull
+    List<String> getParameters() {
+        return this.parameters;
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return new ToStringer(this).add("raw", this.raw).add("tags", this.tags).add("prefix", this.prefix).add("command", this.command).add("numeric", this.numeric).add("parameters", this.parameters).toString();
+    }
+}
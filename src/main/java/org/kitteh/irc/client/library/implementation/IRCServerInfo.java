@@ -27,6 +27,7 @@ import org.kitteh.irc.client.library.element.ISupportParameter;
 import org.kitteh.irc.client.library.element.mode.ChannelMode;
 import org.kitteh.irc.client.library.element.mode.ChannelUserMode;
 import org.kitteh.irc.client.library.element.mode.UserMode;
+import org.kitteh.irc.client.library.feature.CaseMapping;
 import org.kitteh.irc.client.library.feature.ServerInfo;
 import org.kitteh.irc.client.library.util.Sanity;
 import org.kitteh.irc.client.library.util.ToStringer;
@@ -41,11 +42,105 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.regex.Pattern;
+import java.util.concurrent.atomic.AtomicInteger;
 
 class IRCServerInfo implements Resettable, ServerInfo {
+    /**
+     * Immutable views of the ISUPPORT-derived lists, with lookup tables
+     * indexed by character, built for one ISUPPORT version.
+     */
+    private static final class Lookup {
+        private static final int TABLE_SIZE = 128;
+
+        private final int version;
+        private final List<ChannelMode> channelModes;
+        private final List<Character> channelPrefixes;
+        private final List<ChannelUserMode> channelUserModes;
+        private final int channelLengthLimit;
+        private final ChannelMode[] channelModesByChar = new ChannelMode[TABLE_SIZE];
+        private final ChannelUserMode[] channelUserModesByChar = new ChannelUserMode[TABLE_SIZE];
+        private final ChannelUserMode[] channelUserModesByPrefix = new ChannelUserMode[TABLE_SIZE];
+        private final boolean[] channelPrefixTable = new boolean[TABLE_SIZE];
+
+        private Lookup(int version, @Nonnull List<ChannelMode> channelModes, @Nonnull List<Character> channelPrefixes, @Nonnull List<ChannelUserMode> channelUserModes, int channelLengthLimit) {
+            this.version = version;
+            this.channelModes = Collections.unmodifiableList(new ArrayList<>(channelModes));
+            this.channelPrefixes = Collections.unmodifiableList(new ArrayList<>(channelPrefixes));
+            this.channelUserModes = Collections.unmodifiableList(new ArrayList<>(channelUserModes));
+            this.channelLengthLimit = channelLengthLimit;
+            // Filled in reverse, so the first of any duplicates wins as with a list search
+            for (int i = this.channelModes.size() - 1; i >= 0; i--) {
+                ChannelMode mode = this.channelModes.get(i);
+                if (mode.getChar() < TABLE_SIZE) {
+                    this.channelModesByChar[mode.getChar()] = mode;
+                }
+            }
+            for (int i = this.channelUserModes.size() - 1; i >= 0; i--) {
+                ChannelUserMode mode = this.channelUserModes.get(i);
+                if (mode.getChar() < TABLE_SIZE) {
+                    this.channelUserModesByChar[mode.getChar()] = mode;
+                }
+                if (mode.getNickPrefix() < TABLE_SIZE) {
+                    this.channelUserModesByPrefix[mode.getNickPrefix()] = mode;
+                }
+            }
+            for (char prefix : this.channelPrefixes) {
+                if (prefix < TABLE_SIZE) {
+                    this.channelPrefixTable[prefix] = true;
+                }
+            }
+        }
+
+        @Nullable
+        private ChannelMode getChannelMode(char character) {
+            if (character < TABLE_SIZE) {
+                return this.channelModesByChar[character];
+            }
+            for (ChannelMode mode : this.channelModes) {
+                if (mode.getChar() == character) {
+                    return mode;
+                }
+            }
+            return null;
+        }
+
+        @Nullable
+        private ChannelUserMode getChannelUserMode(char character) {
+            if (character < TABLE_SIZE) {
+                return this.channelUserModesByChar[character];
+            }
+            for (ChannelUserMode mode : this.channelUserModes) {
+                if (mode.getChar() == character) {
+                    return mode;
+                }
+            }
+            return null;
+        }
+
+        @Nullable
+        private ChannelUserMode getChannelUserModeByPrefix(char prefix) {
+            if (prefix < TABLE_SIZE) {
+                return this.channelUserModesByPrefix[prefix];
+            }
+            for (ChannelUserMode mode : this.channelUserModes) {
+                if (mode.getNickPrefix() == prefix) {
+                    return mode;
+                }
+            }
+            return null;
+        }
+
+        private boolean isChannelPrefix(char prefix) {
+            return (prefix < TABLE_SIZE) ? this.channelPrefixTable[prefix] : this.channelPrefixes.contains(prefix);
+        }
+    }
+
     private final InternalClient client;
     private final Map<String, ISupportParameter> iSupportParameterMap = new ConcurrentHashMap<>();
+    private volatile CaseMapping caseMapping = CaseMapping.RFC1459;
+    private final AtomicInteger iSupportVersion = new AtomicInteger();
+    @Nullable
+    private volatile Lookup lookup;
     private final List<ChannelMode> channelModes;
     private final List<Character> channelPrefixes = Arrays.asList('#', '&', '!', '+');
     private final List<ChannelUserMode> channelUserModes;
@@ -56,8 +151,7 @@ class IRCServerInfo implements Resettable, ServerInfo {
 
     // Pattern: ([#!&\+][^ ,\07\r\n]{1,49})
     // Screw it, let's assume IRCDs disregard length policy
-    // New pattern: ([#!&\+][^ ,\07\r\n]+)
-    private final Pattern channelPattern = Pattern.compile("([#!&\\+][^ ,\\07\\r\\n]+)");
+    // New pattern: ([#!&\+][^ ,\07\r\n]+), now checked by hand in isValidChannel
 
     IRCServerInfo(@Nonnull InternalClient client) {
         this.client = client;
@@ -88,6 +182,32 @@ class IRCServerInfo implements Resettable, ServerInfo {
     @Override
     public void reset() {
         this.iSupportParameterMap.clear();
+        this.caseMapping = CaseMapping.RFC1459;
+        this.iSupportVersion.incrementAndGet();
+    }
+
+    /**
+     * Gets the lookup tables for the current ISUPPORT parameters,
+     * rebuilding them if the parameters have changed since.
+     *
+     * @return current lookup
+     */
+    @Nonnull
+    private Lookup getLookup() {
+        int version = this.iSupportVersion.get();
+        Lookup lookup = this.lookup;
+        if ((lookup == null) || (lookup.version != version)) {
+            Optional<ISupportParameter.ChanModes> chanModes = this.getISupportParameter(ISupportParameter.ChanModes.NAME, ISupportParameter.ChanModes.class);
+            Optional<ISupportParameter.ChanTypes> chanTypes = this.getISupportParameter(ISupportParameter.ChanTypes.NAME, ISupportParameter.ChanTypes.class);
+            Optional<ISupportParameter.Prefix> prefix = this.getISupportParameter(ISupportParameter.Prefix.NAME, ISupportParameter.Prefix.class);
+            lookup = new Lookup(version,
+                    chanModes.isPresent() ? chanModes.get().getModes() : this.channelModes,
+                    chanTypes.isPresent() ? chanTypes.get().getTypes() : this.channelPrefixes,
+                    prefix.isPresent() ? prefix.get().getModes() : this.channelUserModes,
+                    ServerInfo.super.getChannelLengthLimit());
+            this.lookup = lookup;
+        }
+        return lookup;
     }
 
     @Nonnull
@@ -100,25 +220,50 @@ class IRCServerInfo implements Resettable, ServerInfo {
         this.address = Optional.of(serverAddress);
     }
 
+    @Override
+    public int getChannelLengthLimit() {
+        return this.getLookup().channelLengthLimit;
+    }
+
+    @Nonnull
+    @Override
+    public Optional<ChannelMode> getChannelMode(char character) {
+        return Optional.ofNullable(this.getLookup().getChannelMode(character));
+    }
+
     @Nonnull
     @Override
     public List<ChannelMode> getChannelModes() {
-        Optional<ISupportParameter.ChanModes> optional = this.getISupportParameter(ISupportParameter.ChanModes.NAME, ISupportParameter.ChanModes.class);
-        return new ArrayList<>(optional.isPresent() ? optional.get().getModes() : this.channelModes);
+        return this.getLookup().channelModes;
     }
 
     @Nonnull
     @Override
     public List<Character> getChannelPrefixes() {
-        Optional<ISupportParameter.ChanTypes> optional = this.getISupportParameter(ISupportParameter.ChanTypes.NAME, ISupportParameter.ChanTypes.class);
-        return new ArrayList<>(optional.isPresent() ? optional.get().getTypes() : this.channelPrefixes);
+        return this.getLookup().channelPrefixes;
+    }
+
+    @Nonnull
+    @Override
+    public Optional<ChannelUserMode> getChannelUserMode(char character) {
+        return Optional.ofNullable(this.getLookup().getChannelUserMode(character));
+    }
+
+    /**
+     * Gets the channel user mode granting a nick prefix.
+     *
+     * @param prefix nick prefix, such as @
+     * @return matching mode or null if none
+     */
+    @Nullable
+    ChannelUserMode getChannelUserModeByPrefix(char prefix) {
+        return this.getLookup().getChannelUserModeByPrefix(prefix);
     }
 
     @Nonnull
     @Override
     public List<ChannelUserMode> getChannelUserModes() {
-        Optional<ISupportParameter.Prefix> optional = this.getISupportParameter(ISupportParameter.Prefix.NAME, ISupportParameter.Prefix.class);
-        return new ArrayList<>(optional.isPresent() ? optional.get().getModes() : this.channelUserModes);
+        return this.getLookup().channelUserModes;
     }
 
     @Nonnull
@@ -136,6 +281,22 @@ class IRCServerInfo implements Resettable, ServerInfo {
 
     void addISupportParameter(@Nonnull ISupportParameter parameter) {
         this.iSupportParameterMap.put(parameter.getName().toUpperCase(), parameter);
+        if (parameter instanceof ISupportParameter.CaseMapping) {
+            this.caseMapping = ((ISupportParameter.CaseMapping) parameter).getCaseMapping();
+        }
+        this.iSupportVersion.incrementAndGet();
+    }
+
+    /**
+     * Gets the casemapping, cached as it is consulted for nearly every
+     * nick and channel lookup.
+     *
+     * @return the casemapping
+     */
+    @Nonnull
+    @Override
+    public CaseMapping getCaseMapping() {
+        return this.caseMapping;
     }
 
     @Nonnull
@@ -162,8 +323,25 @@ class IRCServerInfo implements Resettable, ServerInfo {
     @Override
     public boolean isValidChannel(@Nonnull String name) {
         Sanity.nullCheck(name, "Name cannot be null");
-        int channelLengthLimit = this.getChannelLengthLimit();
-        return (name.length() > 1) && ((channelLengthLimit < 0) || (name.length() <= channelLengthLimit)) && this.getChannelPrefixes().contains(name.charAt(0)) && this.channelPattern.matcher(name).matches();
+        return this.isValidChannel(this.getLookup(), name, 0);
+    }
+
+    private boolean isValidChannel(@Nonnull Lookup lookup, @Nonnull String name, int start) {
+        int length = name.length() - start;
+        if ((length < 2) || ((lookup.channelLengthLimit >= 0) && (length > lookup.channelLengthLimit))) {
+            return false;
+        }
+        char first = name.charAt(start);
+        if (!lookup.isChannelPrefix(first) || ((first != '#') && (first != '!') && (first != '&') && (first != '+'))) {
+            return false;
+        }
+        for (int i = start + 1; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if ((c == ' ') || (c == ',') || (c == '\07') || (c == '\r') || (c == '\n')) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Nullable
@@ -171,14 +349,10 @@ class IRCServerInfo implements Resettable, ServerInfo {
         if (name.length() < 2) {
             return null;
         }
+        Lookup lookup = this.getLookup();
         final char first = name.charAt(0);
-        final String shorter = name.substring(1);
-        if (!this.getChannelPrefixes().contains(first) && this.isValidChannel(shorter)) {
-            for (ChannelUserMode mode : this.getChannelUserModes()) {
-                if (mode.getNickPrefix() == first) {
-                    return mode;
-                }
-            }
+        if (!lookup.isChannelPrefix(first) && this.isValidChannel(lookup, name, 1)) {
+            return lookup.getChannelUserModeByPrefix(first);
         }
         return null;
     }
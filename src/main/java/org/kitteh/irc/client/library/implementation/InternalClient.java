@@ -26,6 +26,7 @@ package org.kitteh.irc.client.library.implementation;
 import org.kitteh.irc.client.library.Client;
 import org.kitteh.irc.client.library.element.mode.ModeStatusList;
 import org.kitteh.irc.client.library.element.mode.UserMode;
+import org.kitteh.irc.client.library.util.RateLimiter;
 
 import javax.annotation.Nonnull;
 import java.util.Set;
@@ -59,6 +60,9 @@ abstract class InternalClient implements Client {
     @Nonnull
     abstract Listener<String> getOutputListener();
 
+    @Nonnull
+    abstract RateLimiter getRateLimiter();
+
     @Nonnull
     abstract String getRequestedNick();
 
@@ -68,7 +72,9 @@ abstract class InternalClient implements Client {
 
     abstract void ping();
 
-    abstract void processLine(@Nonnull String line);
+    abstract void pong(@Nonnull String purr);
+
+    abstract void processLine(@Nonnull IRCLine line);
 
     abstract void resetServerInfo();
 
@@ -80,5 +86,7 @@ abstract class InternalClient implements Client {
 
     abstract void startSending();
 
+    abstract void throttled();
+
     abstract void updateUserModes(@Nonnull ModeStatusList<UserMode> userModes);
 }
@@ -0,0 +1,205 @@
+/*
+ * * Copyright (C) 2013-2016 Matt Baxter http://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.implementation;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BinaryOperator;
+import java.util.function.ToIntFunction;
+
+/**
+ * Combines consecutive JOIN or PART lines into single lines with
+ * comma-separated channels, within the line length limit and the
+ * server's target limits. Lines that cannot be combined produce null.
+ * Also packs many targets into as few lines as possible.
+ */
+final class LineCombiner implements BinaryOperator<String> {
+    /**
+     * Longest line, in bytes, excluding the line ending.
+     */
+    static final int MAX_LINE_BYTES = 510;
+
+    private final ToIntFunction<String> targetLimit;
+
+    /**
+     * Creates a combiner.
+     *
+     * @param targetLimit target limit by command, -1 if unknown
+     */
+    LineCombiner(@Nonnull ToIntFunction<String> targetLimit) {
+        this.targetLimit = targetLimit;
+    }
+
+    /**
+     * Packs targets into as few lines as fit the line length and target
+     * limits, each line ending with the same text.
+     *
+     * @param command command, such as PRIVMSG
+     * @param targets targets to pack
+     * @param trailing text following the targets, including its space
+     * @param targetLimit most targets per line, or below 1 for one
+     * @return lines to send
+     */
+    @Nonnull
+    static List<String> packTargets(@Nonnull String command, @Nonnull Collection<String> targets, @Nonnull String trailing, int targetLimit) {
+        int limit = Math.max(1, targetLimit);
+        int fixedBytes = command.length() + 1 + trailing.getBytes(StandardCharsets.UTF_8).length;
+        List<String> lines = new ArrayList<>();
+        StringBuilder builder = new StringBuilder();
+        int bytes = 0;
+        int count = 0;
+        for (String target : targets) {
+            int targetBytes = target.getBytes(StandardCharsets.UTF_8).length;
+            if ((count > 0) && ((count == limit) || ((fixedBytes + bytes + 1 + targetBytes) > MAX_LINE_BYTES))) {
+                lines.add(command + ' ' + builder + trailing);
+                builder.setLength(0);
+                bytes = 0;
+                count = 0;
+            }
+            if (count > 0) {
+                builder.append(',');
+                bytes++;
+            }
+            builder.append(target);
+            bytes += targetBytes;
+            count++;
+        }
+        if (count > 0) {
+            lines.add(command + ' ' + builder + trailing);
+        }
+        return lines;
+    }
+
+    @Nullable
+    @Override
+    public String apply(@Nonnull String line, @Nonnull String next) {
+        String combined;
+        if (line.startsWith("JOIN ") && next.startsWith("JOIN ")) {
+            combined = this.combineJoin(line.substring(5), next.substring(5));
+        } else if (line.startsWith("PART ") && next.startsWith("PART ")) {
+            combined = this.combinePart(line.substring(5), next.substring(5));
+        } else {
+            return null;
+        }
+        return ((combined != null) && (combined.getBytes(StandardCharsets.UTF_8).length <= MAX_LINE_BYTES)) ? combined : null;
+    }
+
+    @Nullable
+    private String combineJoin(@Nonnull String first, @Nonnull String second) {
+        String[] firstParams = params(first);
+        String[] secondParams = params(second);
+        if ((firstParams == null) || (secondParams == null)) {
+            return null;
+        }
+        String[] firstChannels = firstParams[0].split(",");
+        String[] secondChannels = secondParams[0].split(",");
+        if (!this.withinLimit("JOIN", firstChannels.length + secondChannels.length) || contains(firstChannels, "0") || contains(secondChannels, "0")) {
+            return null;
+        }
+        String[] firstKeys = (firstParams.length > 1) ? firstParams[1].split(",") : new String[0];
+        String[] secondKeys = (secondParams.length > 1) ? secondParams[1].split(",") : new String[0];
+        if ((firstKeys.length > firstChannels.length) || (secondKeys.length > secondChannels.length)) {
+            return null;
+        }
+        // Keys apply to channels in order, so keyed channels go first
+        StringBuilder channels = new StringBuilder(first.length() + second.length());
+        append(channels, firstChannels, 0, firstKeys.length);
+        append(channels, secondChannels, 0, secondKeys.length);
+        append(channels, firstChannels, firstKeys.length, firstChannels.length);
+        append(channels, secondChannels, secondKeys.length, secondChannels.length);
+        StringBuilder builder = new StringBuilder("JOIN ").append(channels);
+        if ((firstKeys.length + secondKeys.length) > 0) {
+            StringBuilder keys = new StringBuilder();
+            append(keys, firstKeys, 0, firstKeys.length);
+            append(keys, secondKeys, 0, secondKeys.length);
+            builder.append(' ').append(keys);
+        }
+        return builder.toString();
+    }
+
+    @Nullable
+    private String combinePart(@Nonnull String first, @Nonnull String second) {
+        int firstSpace = first.indexOf(' ');
+        int secondSpace = second.indexOf(' ');
+        String firstChannels = (firstSpace == -1) ? first : first.substring(0, firstSpace);
+        String secondChannels = (secondSpace == -1) ? second : second.substring(0, secondSpace);
+        String reason = (firstSpace == -1) ? "" : first.substring(firstSpace);
+        if (!reason.equals((secondSpace == -1) ? "" : second.substring(secondSpace)) || firstChannels.isEmpty() || secondChannels.isEmpty()) {
+            return null;
+        }
+        if (!this.withinLimit("PART", firstChannels.split(",").length + secondChannels.split(",").length)) {
+            return null;
+        }
+        return "PART " + firstChannels + ',' + secondChannels + reason;
+    }
+
+    private boolean withinLimit(@Nonnull String command, int targets) {
+        int limit = this.targetLimit.applyAsInt(command);
+        // Channel lists are part of JOIN and PART, so no stated limit means no limit
+        return (limit < 0) || (targets <= limit);
+    }
+
+    /**
+     * Splits JOIN parameters into channels and, optionally, keys.
+     *
+     * @param params parameters
+     * @return one or two parameters, or null if unexpected
+     */
+    @Nullable
+    private static String[] params(@Nonnull String params) {
+        String[] split = params.split(" ", -1);
+        if ((split.length > 2) || split[0].isEmpty() || ((split.length == 2) && (split[0].charAt(0) == ':'))) {
+            return null;
+        }
+        split[split.length - 1] = trailing(split[split.length - 1]);
+        return ((split.length == 2) && split[1].isEmpty()) ? null : split;
+    }
+
+    @Nonnull
+    private static String trailing(@Nonnull String param) {
+        return (!param.isEmpty() && (param.charAt(0) == ':')) ? param.substring(1) : param;
+    }
+
+    private static boolean contains(@Nonnull String[] array, @Nonnull String value) {
+        for (String element : array) {
+            if (element.equals(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void append(@Nonnull StringBuilder builder, @Nonnull String[] items, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(items[i]);
+        }
+    }
+}
@@ -23,25 +23,25 @@
  */
 package org.kitteh.irc.client.library.implementation;
 
-import org.kitteh.irc.client.library.util.QueueProcessingThread;
 import org.kitteh.irc.client.library.util.ToStringer;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.Queue;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 
 class Listener<Type> {
-    private final class ListenerThread extends QueueProcessingThread<Type> {
+    private final class ListenerProcessor extends QueueProcessor<Type> {
         private volatile Consumer<Type> consumer;
 
-        private ListenerThread(@Nonnull String clientName, @Nonnull Consumer<Type> consumer) {
-            super("Kitteh IRC Client Listener (" + clientName + ')');
+        private ListenerProcessor(@Nonnull String clientName, @Nonnull Consumer<Type> consumer, @Nullable Executor executor) {
+            super("Kitteh IRC Client Listener (" + clientName + ')', executor);
             this.consumer = consumer;
         }
 
         @Override
-        protected void processElement(Type element) {
+        protected void processElement(@Nonnull Type element) {
             try {
                 this.consumer.accept(element);
             } catch (final Throwable thrown) {
@@ -50,7 +50,17 @@ class Listener<Type> {
         }
 
         @Override
-        protected void cleanup(Queue<Type> remainingQueue) {
+        protected void reportException(@Nonnull Exception exception) {
+            Consumer<Exception> exceptionConsumer = Listener.this.exceptionConsumer;
+            if (exceptionConsumer == null) {
+                exception.printStackTrace();
+            } else {
+                exceptionConsumer.accept(exception);
+            }
+        }
+
+        @Override
+        protected void cleanup(@Nonnull Queue<Type> remainingQueue) {
             while (!remainingQueue.isEmpty()) {
                 try {
                     this.consumer.accept(remainingQueue.poll());
@@ -63,35 +73,54 @@ class Listener<Type> {
 
     private final String clientName;
     @Nullable
-    private ListenerThread thread;
+    private final Executor executor;
+    @Nullable
+    private final Consumer<Exception> exceptionConsumer;
+    @Nullable
+    private ListenerProcessor processor;
 
     Listener(@Nonnull String clientName, @Nullable Consumer<Type> consumer) {
+        this(clientName, consumer, null, null);
+    }
+
+    /**
+     * Creates a listener.
+     *
+     * @param clientName name of the client
+     * @param consumer consumer or null for none yet
+     * @param executor executor to process on, or null for a dedicated thread
+     * @param exceptionConsumer where failures to process on the executor
+     * are reported, or null to print them
+     */
+    Listener(@Nonnull String clientName, @Nullable Consumer<Type> consumer, @Nullable Executor executor, @Nullable Consumer<Exception> exceptionConsumer) {
         this.clientName = clientName;
-        this.thread = (consumer == null) ? null : new ListenerThread(clientName, consumer);
+        this.executor = executor;
+        this.exceptionConsumer = exceptionConsumer;
+        this.processor = (consumer == null) ? null : new ListenerProcessor(clientName, consumer, executor);
     }
 
     void queue(@Nonnull Type item) {
-        if (this.thread != null) {
-            this.thread.queue(item);
+        if (this.processor != null) {
+            this.processor.queue(item);
         }
     }
 
     void removeConsumer() {
         this.shutdown();
-        this.thread = null;
+        this.processor = null;
     }
 
     void setConsumer(@Nonnull Consumer<Type> consumer) {
-        if (this.thread == null) {
-            this.thread = new ListenerThread(this.clientName, consumer);
+        if (this.processor == null) {
+            this.processor = new ListenerProcessor(this.clientName, consumer, this.executor);
         } else {
-            this.thread.consumer = consumer;
+            this.processor.consumer = consumer;
         }
     }
 
     void shutdown() {
-        if (this.thread != null) {
-            this.thread.interrupt();
+        if (this.processor != null) {
+            this.processor.shutdown();
         }
     }
 
@@ -24,6 +24,7 @@
 package org.kitteh.irc.client.library.implementation;
 
 import net.engio.mbassy.bus.MBassador;
+import net.engio.mbassy.bus.common.DeadMessage;
 import net.engio.mbassy.bus.config.BusConfiguration;
 import net.engio.mbassy.bus.config.Feature;
 import net.engio.mbassy.bus.error.IPublicationErrorHandler;
@@ -42,6 +43,7 @@ import org.kitteh.irc.client.library.util.Sanity;
 import org.kitteh.irc.client.library.util.ToStringer;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.InvocationTargetException;
 import java.util.Collections;
@@ -50,7 +52,10 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.AbstractExecutorService;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 class ManagerEvent implements EventManager {
     private class Exceptional implements IPublicationErrorHandler {
@@ -73,18 +78,102 @@ class ManagerEvent implements EventManager {
         }
     }
 
-    private final MBassador<Object> bus;
+    private static final class Bus extends MBassador<Object> {
+        private Bus(@Nonnull BusConfiguration configuration) {
+            super(configuration);
+        }
+
+        private boolean hasSubscriptions(@Nonnull Class<?> messageType) {
+            for (Subscription subscription : this.getSubscriptionsByMessageType(messageType)) {
+                if (subscription.size() > 0) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Hands tasks to a shared executor while ignoring shutdown, as the bus
+     * shuts down its executor when shut down or finalized.
+     */
+    private static final class UnstoppableExecutor extends AbstractExecutorService {
+        private final ExecutorService executor;
+
+        private UnstoppableExecutor(@Nonnull ExecutorService executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public void execute(@Nonnull Runnable command) {
+            this.executor.execute(command);
+        }
+
+        @Override
+        public void shutdown() {
+            // Not ours to stop
+        }
+
+        @Nonnull
+        @Override
+        public List<Runnable> shutdownNow() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return this.executor.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return this.executor.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, @Nonnull TimeUnit unit) throws InterruptedException {
+            return this.executor.awaitTermination(timeout, unit);
+        }
+
+        @Nonnull
+        @Override
+        public String toString() {
+            return new ToStringer(this).add("executor", this.executor).toString();
+        }
+    }
+
+    private final Bus bus;
     private final InternalClient client;
     private final Map<Class<? extends Annotation>, FilterProcessor<?, ? extends Annotation>> filters = new ConcurrentHashMap<>();
     private final Set<Object> listeners = new HashSet<>();
+    private final Map<Class<?>, Boolean> subscribed = new ConcurrentHashMap<>();
 
     ManagerEvent(@Nonnull InternalClient client) {
+        this(client, null);
+    }
+
+    /**
+     * Creates the manager.
+     *
+     * @param client client
+     * @param executor shared executor for asynchronous handlers, or null
+     * for a pool of the bus's own
+     */
+    ManagerEvent(@Nonnull InternalClient client, @Nullable ExecutorService executor) {
+        FilteringSubscriptionFactory subscriptionFactory = new FilteringSubscriptionFactory(this.filters);
+        Feature.AsynchronousHandlerInvocation handlerInvocation = Feature.AsynchronousHandlerInvocation.Default();
+        Feature.AsynchronousMessageDispatch messageDispatch = Feature.AsynchronousMessageDispatch.Default();
+        if (executor != null) {
+            handlerInvocation.setExecutor(new UnstoppableExecutor(executor));
+            // Events are only ever published synchronously, no dispatcher threads needed
+            messageDispatch.setNumberOfMessageDispatchers(0);
+        }
         BusConfiguration configuration = new BusConfiguration()
-                .addFeature(Feature.SyncPubSub.Default().setSubscriptionFactory(new FilteringSubscriptionFactory(this.filters)))
-                .addFeature(Feature.AsynchronousHandlerInvocation.Default())
-                .addFeature(Feature.AsynchronousMessageDispatch.Default())
+                .addFeature(Feature.SyncPubSub.Default().setSubscriptionFactory(subscriptionFactory).setPublicationFactory(subscriptionFactory.getPublicationFactory()))
+                .addFeature(handlerInvocation)
+                .addFeature(messageDispatch)
                 .addPublicationErrorHandler(new Exceptional());
-        this.bus = new MBassador<>(configuration);
+        this.bus = new Bus(configuration);
         this.client = client;
         // Defaults!
         this.registerAnnotationFilter(CommandFilter.class, new CommandFilter.Processor());
@@ -101,6 +190,26 @@ class ManagerEvent implements EventManager {
         this.bus.publish(event);
     }
 
+    /**
+     * Gets if publishing an event of the given type would reach a listener,
+     * either by a handler for the type or one of its supertypes or by a
+     * handler for dead messages. The answer is cached per type until a
+     * listener is registered or unregistered.
+     *
+     * @param eventClass event type
+     * @return true if an event of the type may be handled
+     */
+    boolean hasSubscribers(@Nonnull Class<?> eventClass) {
+        Boolean subscribed = this.subscribed.get(eventClass);
+        if (subscribed == null) {
+            synchronized (this) {
+                subscribed = this.bus.hasSubscriptions(eventClass) || this.bus.hasSubscriptions(DeadMessage.class);
+                this.subscribed.put(eventClass, subscribed);
+            }
+        }
+        return subscribed;
+    }
+
     @Nonnull
     @Override
     public synchronized Set<Object> getRegisteredEventListeners() {
@@ -123,6 +232,7 @@ class ManagerEvent implements EventManager {
         Sanity.nullCheck(listener, "Listener cannot be null");
         this.listeners.add(listener);
         this.bus.subscribe(listener);
+        this.subscribed.clear();
     }
 
     @Override
@@ -130,6 +240,7 @@ class ManagerEvent implements EventManager {
         Sanity.nullCheck(listener, "Listener cannot be null");
         this.listeners.remove(listener);
         this.bus.unsubscribe(listener);
+        this.subscribed.clear();
     }
 
     @Nonnull
@@ -37,6 +37,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import java.util.regex.Matcher;
@@ -301,6 +302,45 @@ final class ManagerISupport extends AbstractNameValueProcessor<ISupportParameter
         }
     }
 
+    private static final class ISupportMaxTargets extends IRCISupportParameterInteger implements ISupportParameter.MaxTargets {
+        private ISupportMaxTargets(@Nonnull Client client, @Nonnull String name, @Nonnull Optional<String> value) {
+            super(client, name, value);
+        }
+    }
+
+    private static final class ISupportTargMax extends IRCISupportParameterValueRequired implements ISupportParameter.TargMax {
+        private final Map<String, Integer> limits;
+
+        private ISupportTargMax(@Nonnull Client client, @Nonnull String name, @Nonnull Optional<String> value) {
+            super(client, name, value);
+            Map<String, Integer> limits = new HashMap<>();
+            for (String p : value.get().split(",")) {
+                int colon = p.indexOf(':');
+                if (colon < 1) {
+                    throw new KittehServerISupportException(name, "Invalid format");
+                }
+                int limit;
+                if (colon == (p.length() - 1)) {
+                    limit = Integer.MAX_VALUE;
+                } else {
+                    try {
+                        limit = Integer.parseInt(p.substring(colon + 1));
+                    } catch (Exception e) {
+                        throw new KittehServerISupportException(name, "Non-integer limit", e);
+                    }
+                }
+                limits.put(p.substring(0, colon).toUpperCase(Locale.ENGLISH), limit);
+            }
+            this.limits = Collections.unmodifiableMap(limits);
+        }
+
+        @Nonnull
+        @Override
+        public Map<String, Integer> getLimits() {
+            return this.limits;
+        }
+    }
+
     private static final class ISupportTopicLen extends IRCISupportParameterInteger implements ISupportParameter.TopicLen {
         private ISupportTopicLen(@Nonnull Client client, @Nonnull String name, @Nonnull Optional<String> value) {
             super(client, name, value);
@@ -314,10 +354,12 @@ final class ManagerISupport extends AbstractNameValueProcessor<ISupportParameter
         this.registerParameter(ISupportParameter.ChanLimit.NAME, ISupportChanLimit::new);
         this.registerParameter(ISupportParameter.ChanModes.NAME, ISupportChanModes::new);
         this.registerParameter(ISupportParameter.ChanTypes.NAME, ISupportChanTypes::new);
+        this.registerParameter(ISupportParameter.MaxTargets.NAME, ISupportMaxTargets::new);
         this.registerParameter(ISupportParameter.Modes.NAME, ISupportModes::new);
         this.registerParameter(ISupportParameter.Network.NAME, ISupportNetwork::new);
         this.registerParameter(ISupportParameter.NickLen.NAME, ISupportNickLen::new);
         this.registerParameter(ISupportParameter.Prefix.NAME, ISupportPrefix::new);
+        this.registerParameter(ISupportParameter.TargMax.NAME, ISupportTargMax::new);
         this.registerParameter(ISupportParameter.WHOX.NAME, ISupportWHOX::new);
         this.registerParameter(ISupportParameter.TopicLen.NAME, ISupportTopicLen::new);
     }
@@ -24,6 +24,7 @@
 package org.kitteh.irc.client.library.implementation;
 
 import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelDuplexHandler;
@@ -35,12 +36,13 @@ import io.netty.channel.ChannelOption;
 import io.netty.channel.ChannelOutboundHandlerAdapter;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.WriteBufferWaterMark;
 import io.netty.channel.nio.NioEventLoopGroup;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.channel.socket.nio.NioSocketChannel;
 import io.netty.handler.codec.DelimiterBasedFrameDecoder;
+import io.netty.handler.codec.MessageToMessageDecoder;
 import io.netty.handler.codec.MessageToMessageEncoder;
-import io.netty.handler.codec.string.StringDecoder;
 import io.netty.handler.codec.string.StringEncoder;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
@@ -48,10 +50,13 @@ import io.netty.handler.timeout.IdleState;
 import io.netty.handler.timeout.IdleStateEvent;
 import io.netty.handler.timeout.IdleStateHandler;
 import io.netty.util.CharsetUtil;
+import io.netty.util.concurrent.DefaultThreadFactory;
 import io.netty.util.concurrent.ScheduledFuture;
 import org.kitteh.irc.client.library.event.client.ClientConnectionClosedEvent;
 import org.kitteh.irc.client.library.exception.KittehConnectionException;
-import org.kitteh.irc.client.library.util.QueueProcessingThread;
+import org.kitteh.irc.client.library.exception.KittehServerMessageException;
+import org.kitteh.irc.client.library.util.QueuedMessage;
+import org.kitteh.irc.client.library.util.RateLimiter;
 import org.kitteh.irc.client.library.util.ToStringer;
 
 import javax.annotation.Nonnull;
@@ -64,54 +69,59 @@ import java.net.SocketAddress;
 import java.security.KeyStore;
 import java.security.KeyStoreException;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 final class NettyManager {
     static final class ClientConnection {
         private static final int MAX_LINE_LENGTH = 2048;
+        private static final WriteBufferWaterMark WRITE_BUFFER_WATER_MARK = new WriteBufferWaterMark(8 * 1024, 32 * 1024);
 
         private final InternalClient client;
+        private final EventLoopGroup eventLoopGroup;
         private final Channel channel;
-        private final Queue<String> queue = new ConcurrentLinkedQueue<>();
+        private final OutboundQueue queue;
+        private final LineCombiner lineCombiner;
         private boolean reconnect = true;
-        private ScheduledFuture<?> scheduledSending;
+        private volatile boolean readPaused;
+        @Nullable
+        private volatile RateLimiter rateLimiter;
+        private final AtomicBoolean drainScheduled = new AtomicBoolean();
         private ScheduledFuture<?> scheduledPing;
         private final Object scheduledSendingLock = new Object();
         private final Object immediateSendingLock = new Object();
         private boolean immediateSendingReady = false;
-        private final QueueProcessingThread<String> immediateSending;
+        private boolean immediateSendingClosed = false;
+        private final Queue<String> immediateSendingPending = new ArrayDeque<>();
+        private final Queue<String> outbound = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean outboundFlushScheduled = new AtomicBoolean();
 
-        private ClientConnection(@Nonnull final InternalClient client, @Nonnull ChannelFuture channelFuture) {
+        private ClientConnection(@Nonnull final InternalClient client, @Nonnull EventLoopGroup eventLoopGroup, @Nonnull ChannelFuture channelFuture) {
             this.client = client;
+            this.eventLoopGroup = eventLoopGroup;
             this.channel = channelFuture.channel();
-
-            this.immediateSending = new QueueProcessingThread<String>("Kitteh IRC Client Immediate Sending Queue (" + client.getName() + ')') {
-                @Override
-                protected void processElement(String message) {
-                    synchronized (ClientConnection.this.immediateSendingLock) {
-                        if (!ClientConnection.this.immediateSendingReady) {
-                            try {
-                                ClientConnection.this.immediateSendingLock.wait();
-                            } catch (InterruptedException e) {
-                                return;
-                            }
-                        }
-                        ClientConnection.this.channel.writeAndFlush(message);
-                    }
-                }
-            };
+            Config config = client.getConfig();
+            this.lineCombiner = new LineCombiner(command -> client.getServerInfo().getTargetLimit(command));
+            this.queue = new OutboundQueue(config.getNotNull(Config.OUTBOUND_CAPACITY), config.getNotNull(Config.OUTBOUND_OVERFLOW), config.getNotNull(Config.OUTBOUND_TIME_TO_LIVE));
 
             channelFuture.addListener(future -> {
                 if (future.isSuccess()) {
                     this.buildOurFutureTogether();
                     synchronized (ClientConnection.this.immediateSendingLock) {
                         this.immediateSendingReady = true;
-                        this.immediateSendingLock.notify();
+                        String message;
+                        while ((message = this.immediateSendingPending.poll()) != null) {
+                            this.write(message);
+                        }
                     }
                 } else {
                     this.client.getExceptionListener().queue(new KittehConnectionException(future.cause(), false));
@@ -145,23 +155,44 @@ final class NettyManager {
                 public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
                     if (evt instanceof IdleStateEvent) {
                         IdleStateEvent e = (IdleStateEvent) evt;
-                        if ((e.state() == IdleState.READER_IDLE) && e.isFirst()) {
+                        if ((e.state() == IdleState.READER_IDLE) && e.isFirst() && !ClientConnection.this.readPaused) {
                             ClientConnection.this.shutdown("Reconnecting...", true);
                         }
                     }
                 }
             });
 
+            // Resume sending once the outbound buffer falls below its low water mark
+            this.channel.pipeline().addLast("[INPUT] Writability", new ChannelInboundHandlerAdapter() {
+                @Override
+                public void channelWritabilityChanged(ChannelHandlerContext ctx) throws Exception {
+                    if (ctx.channel().isWritable()) {
+                        ClientConnection.this.scheduleDrain();
+                    }
+                    ctx.fireChannelWritabilityChanged();
+                }
+            });
+
             // Inbound
             this.channel.pipeline().addLast("[INPUT] Line splitter", new DelimiterBasedFrameDecoder(MAX_LINE_LENGTH, Unpooled.wrappedBuffer(new byte[]{(byte) '\r', (byte) '\n'})));
-            this.channel.pipeline().addLast("[INPUT] String decoder", new StringDecoder(CharsetUtil.UTF_8));
-            this.channel.pipeline().addLast("[INPUT] Send to client", new SimpleChannelInboundHandler<String>() {
+            this.channel.pipeline().addLast("[INPUT] Line parser", new MessageToMessageDecoder<ByteBuf>() {
                 @Override
-                protected void channelRead0(ChannelHandlerContext ctx, String msg) throws Exception {
-                    if (msg == null) {
+                protected void decode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) throws Exception {
+                    if (!msg.isReadable()) {
                         return;
                     }
-                    ClientConnection.this.client.getInputListener().queue(msg);
+                    try {
+                        out.add(IRCLine.parse(msg));
+                    } catch (KittehServerMessageException e) {
+                        ClientConnection.this.client.getInputListener().queue(msg.toString(CharsetUtil.UTF_8));
+                        ClientConnection.this.client.getExceptionListener().queue(e);
+                    }
+                }
+            });
+            this.channel.pipeline().addLast("[INPUT] Send to client", new SimpleChannelInboundHandler<IRCLine>() {
+                @Override
+                protected void channelRead0(ChannelHandlerContext ctx, IRCLine msg) throws Exception {
+                    ClientConnection.this.client.getInputListener().queue(msg.getRaw());
                     ClientConnection.this.client.processLine(msg);
                 }
             });
@@ -208,7 +239,11 @@ final class NettyManager {
                 if (ClientConnection.this.reconnect) {
                     this.scheduleReconnect();
                 }
-                this.immediateSending.interrupt();
+                synchronized (ClientConnection.this.immediateSendingLock) {
+                    this.immediateSendingClosed = true;
+                    this.immediateSendingPending.clear();
+                }
+                this.queue.clear();
                 ClientConnection.this.client.getEventManager().callEvent(new ClientConnectionClosedEvent(ClientConnection.this.client, ClientConnection.this.reconnect));
                 removeClientConnection(ClientConnection.this, ClientConnection.this.reconnect);
             });
@@ -224,22 +259,134 @@ final class NettyManager {
 
         void sendMessage(@Nonnull String message, boolean priority, boolean avoidDuplicates) {
             if (priority) {
-                this.immediateSending.queue(message);
-            } else if (!avoidDuplicates || !this.queue.contains(message)) {
-                this.queue.add(message);
+                this.sendImmediately(message);
+            } else if (avoidDuplicates) {
+                if (this.queue.addIfAbsent(message)) {
+                    this.scheduleDrain();
+                }
+            } else {
+                this.queueMessage(message);
             }
         }
 
+        @Nonnull
+        QueuedMessage queueMessage(@Nonnull String message) {
+            QueuedMessage queued = this.queue.add(message);
+            if (queued.getState() == QueuedMessage.State.QUEUED) {
+                this.scheduleDrain();
+            }
+            return queued;
+        }
+
+        /**
+         * Writes a message straight to the channel, or holds it until the
+         * connection is established. Writes are ordered by the channel, so
+         * no sending thread is needed.
+         *
+         * @param message message to send
+         */
+        private void sendImmediately(@Nonnull String message) {
+            synchronized (this.immediateSendingLock) {
+                if (this.immediateSendingClosed) {
+                    return;
+                }
+                if (this.immediateSendingReady) {
+                    this.write(message);
+                } else {
+                    this.immediateSendingPending.add(message);
+                }
+            }
+        }
+
+        /**
+         * Writes a message to the channel. Messages written within the same
+         * event loop tick are flushed together.
+         *
+         * @param message message to write
+         */
+        private void write(@Nonnull String message) {
+            this.outbound.add(message);
+            if (this.outboundFlushScheduled.compareAndSet(false, true)) {
+                this.channel.eventLoop().execute(this::flushOutbound);
+            }
+        }
+
+        private void flushOutbound() {
+            // Reset first, so anything added from here on schedules another flush
+            this.outboundFlushScheduled.set(false);
+            boolean written = false;
+            String message;
+            while ((message = this.outbound.poll()) != null) {
+                this.channel.write(message);
+                written = true;
+            }
+            if (written) {
+                this.channel.flush();
+            }
+        }
+
+        /**
+         * Passes the latest ping round trip time to the rate limiter.
+         *
+         * @param millis round trip time in milliseconds
+         */
+        void reportLag(long millis) {
+            RateLimiter rateLimiter = this.rateLimiter;
+            if (rateLimiter != null) {
+                rateLimiter.reportLag(millis);
+                this.scheduleDrain();
+            }
+        }
+
+        /**
+         * Tells the rate limiter the server has complained about flooding.
+         */
+        void reportThrottle() {
+            RateLimiter rateLimiter = this.rateLimiter;
+            if (rateLimiter != null) {
+                rateLimiter.reportThrottle();
+            }
+        }
+
+        boolean isReadPaused() {
+            return this.readPaused;
+        }
+
+        /**
+         * Stops or resumes reading from the server, such as when the
+         * client's backlog of lines to process is full.
+         *
+         * @param paused true to stop reading
+         */
+        synchronized void setReadPaused(boolean paused) {
+            this.readPaused = paused;
+            this.channel.config().setAutoRead(!paused);
+        }
+
         void shutdown(@Nullable String message) {
             this.shutdown(message, false);
         }
 
         void startSending() {
-            this.schedule(true);
+            synchronized (this.scheduledSendingLock) {
+                this.rateLimiter = this.client.getRateLimiter();
+                if (this.scheduledPing != null) {
+                    this.scheduledPing.cancel(false);
+                }
+                this.scheduledPing = this.channel.eventLoop().scheduleWithFixedDelay(this.client::ping, 60, 60, TimeUnit.SECONDS);
+            }
+            this.scheduleDrain();
         }
 
         void updateScheduling() {
-            this.schedule(false);
+            synchronized (this.scheduledSendingLock) {
+                if (this.rateLimiter == null) {
+                    return;
+                }
+                this.rateLimiter = this.client.getRateLimiter();
+            }
+            // Run now rather than waiting out a delay set by the old limiter
+            this.channel.eventLoop().execute(this::drain);
         }
 
         private void handleException(Exception thrown) {
@@ -249,26 +396,32 @@ final class NettyManager {
             }
         }
 
-        private void schedule(boolean force) {
-            synchronized (this.scheduledSendingLock) {
-                if (!force && (this.scheduledSending == null)) {
-                    return;
-                }
-                long delay = 0;
-                if (this.scheduledSending != null) {
-                    delay = this.scheduledSending.getDelay(TimeUnit.MILLISECONDS); // Negligible added delay processing this
-                    this.scheduledSending.cancel(false);
-                }
-                if (this.scheduledPing != null) {
-                    this.scheduledPing.cancel(false);
-                }
-                this.scheduledSending = this.channel.eventLoop().scheduleAtFixedRate(() -> {
-                    String message = ClientConnection.this.queue.poll();
-                    if (message != null) {
-                        ClientConnection.this.channel.writeAndFlush(message);
-                    }
-                }, delay, this.client.getMessageDelay(), TimeUnit.MILLISECONDS);
-                this.scheduledPing = this.channel.eventLoop().scheduleWithFixedDelay(this.client::ping, 60, 60, TimeUnit.SECONDS);
+        private void scheduleDrain() {
+            if ((this.rateLimiter != null) && this.drainScheduled.compareAndSet(false, true)) {
+                this.channel.eventLoop().execute(this::drain);
+            }
+        }
+
+        /**
+         * Sends queued messages for as long as the rate limiter and the
+         * channel's writability allow, then waits for whichever is needed.
+         * Runs on the event loop.
+         */
+        private void drain() {
+            this.drainScheduled.set(false);
+            RateLimiter rateLimiter = this.rateLimiter;
+            if (rateLimiter == null) {
+                return;
+            }
+            String message;
+            while (this.channel.isWritable() && ((message = this.queue.poll(rateLimiter, this.lineCombiner, this::scheduleDrain)) != null)) {
+                this.write(message);
+            }
+        }
+
+        private void scheduleDrain(long wait) {
+            if (this.drainScheduled.compareAndSet(false, true)) {
+                this.channel.eventLoop().schedule(this::drain, wait, TimeUnit.MILLISECONDS);
             }
         }
 
@@ -276,7 +429,8 @@ final class NettyManager {
             this.reconnect = reconnect;
 
             this.sendMessage("QUIT" + ((message != null) ? (" :" + message) : ""), true);
-            this.channel.close();
+            // Close behind the pending flush, so the QUIT goes out first
+            this.channel.eventLoop().execute(this.channel::close);
         }
 
         @Nonnull
@@ -286,10 +440,11 @@ final class NettyManager {
         }
     }
 
-    @Nullable
-    private static Bootstrap bootstrap;
-    @Nullable
-    private static EventLoopGroup eventLoopGroup;
+    private static final int EVENT_LOOP_GROUP_LINGER_SECONDS = 10;
+    private static final ThreadFactory DEFAULT_THREAD_FACTORY = new DefaultThreadFactory("Kitteh IRC Client Event Loop", true);
+
+    // Library-managed groups, by the thread factory they were created with
+    private static final Map<ThreadFactory, EventLoopGroup> eventLoopGroups = new HashMap<>();
     private static final Set<ClientConnection> connections = new HashSet<>();
 
     private NettyManager() {
@@ -298,41 +453,71 @@ final class NettyManager {
 
     private static synchronized void removeClientConnection(@Nonnull ClientConnection connection, boolean reconnecting) {
         connections.remove(connection);
-        if (!reconnecting && connections.isEmpty()) {
-            if (eventLoopGroup != null) {
-                eventLoopGroup.shutdownGracefully();
+        if (!reconnecting && isUnused(connection.eventLoopGroup)) {
+            // Linger a bit, so clients built shortly after don't need a fresh group
+            connection.eventLoopGroup.schedule(() -> shutdownIfUnused(connection.eventLoopGroup), EVENT_LOOP_GROUP_LINGER_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    private static synchronized void shutdownIfUnused(@Nonnull EventLoopGroup eventLoopGroup) {
+        if (!isUnused(eventLoopGroup) || !eventLoopGroups.values().remove(eventLoopGroup)) {
+            return;
+        }
+        eventLoopGroup.shutdownGracefully();
+    }
+
+    private static boolean isUnused(@Nonnull EventLoopGroup eventLoopGroup) {
+        for (ClientConnection connection : connections) {
+            if (connection.eventLoopGroup == eventLoopGroup) {
+                return false;
             }
-            eventLoopGroup = null;
-            bootstrap = null;
         }
+        return true;
+    }
+
+    @Nonnull
+    private static EventLoopGroup getEventLoopGroup(@Nullable ThreadFactory threadFactory, int threads) {
+        return eventLoopGroups.computeIfAbsent((threadFactory == null) ? DEFAULT_THREAD_FACTORY : threadFactory, factory -> new NioEventLoopGroup(threads, factory));
     }
 
     static synchronized ClientConnection connect(@Nonnull InternalClient client) {
-        if (bootstrap == null) {
-            bootstrap = new Bootstrap();
-            bootstrap.channel(NioSocketChannel.class);
-            bootstrap.handler(new ChannelInitializer<SocketChannel>() {
-                @Override
-                public void initChannel(SocketChannel channel) throws Exception {
-                    // NOOP
-                }
-            });
-            bootstrap.option(ChannelOption.TCP_NODELAY, true);
-            eventLoopGroup = new NioEventLoopGroup();
-            bootstrap.group(eventLoopGroup);
-        }
+        EventLoopGroup eventLoopGroup = getEventLoopGroup(client.getConfig().get(Config.EVENT_LOOP_THREAD_FACTORY), client.getConfig().getNotNull(Config.EVENT_LOOP_THREADS));
+        Bootstrap bootstrap = new Bootstrap();
+        bootstrap.group(eventLoopGroup);
+        bootstrap.channel(NioSocketChannel.class);
+        bootstrap.handler(new ChannelInitializer<SocketChannel>() {
+            @Override
+            public void initChannel(SocketChannel channel) throws Exception {
+                // NOOP
+            }
+        });
+        bootstrap.option(ChannelOption.TCP_NODELAY, true);
+        bootstrap.option(ChannelOption.WRITE_BUFFER_WATER_MARK, ClientConnection.WRITE_BUFFER_WATER_MARK);
         SocketAddress bind = client.getConfig().get(Config.BIND_ADDRESS);
         SocketAddress server = client.getConfig().getNotNull(Config.SERVER_ADDRESS);
         ClientConnection clientConnection;
         if (bind == null) {
-            clientConnection = new ClientConnection(client, bootstrap.connect(server));
+            clientConnection = new ClientConnection(client, eventLoopGroup, bootstrap.connect(server));
         } else {
-            clientConnection = new ClientConnection(client, bootstrap.connect(server, bind));
+            clientConnection = new ClientConnection(client, eventLoopGroup, bootstrap.connect(server, bind));
         }
         connections.add(clientConnection);
         return clientConnection;
     }
 
+    /**
+     * Connects over a channel which is already open, such as an embedded
+     * channel in tests, rather than to the configured server.
+     *
+     * @param client client to connect
+     * @param channel open channel
+     * @return the connection
+     */
+    @Nonnull
+    static ClientConnection connect(@Nonnull InternalClient client, @Nonnull Channel channel) {
+        return new ClientConnection(client, channel.eventLoop(), channel.newSucceededFuture());
+    }
+
     @Nonnull
     @Override
     public String toString() {
@@ -0,0 +1,480 @@
+/*
+ * * Copyright (C) 2013-2016 Matt Baxter http://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.implementation;
+
+import org.kitteh.irc.client.library.util.QueuedMessage;
+import org.kitteh.irc.client.library.util.RateLimiter;
+import org.kitteh.irc.client.library.util.Sanity;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BinaryOperator;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Queue of rate-limited outbound lines. Lines are sorted into lanes by
+ * command, and a lane is only served once every lane before it is empty.
+ * Within a lane, targets take turns, so one long send to a single target
+ * does not hold up everyone else. Lines to the same target keep their
+ * order.
+ * <p>
+ * The queue may be bounded, either rejecting new lines or dropping the
+ * oldest when full, and lines may expire after a time to live. Lines
+ * leave the queue by being sent, cancelled, expired or dropped.
+ */
+final class OutboundQueue {
+    /**
+     * Priority classes, served in declaration order.
+     */
+    enum Lane {
+        PROTOCOL,
+        AUTH,
+        MODERATION,
+        NORMAL,
+        BULK;
+
+        private static final Map<String, Lane> COMMANDS = new HashMap<>();
+
+        static {
+            // JOIN, PART and QUIT stay NORMAL, in order with the messages around them
+            for (String command : new String[]{"CAP", "NICK", "PING", "PONG", "USER"}) {
+                COMMANDS.put(command, PROTOCOL);
+            }
+            for (String command : new String[]{"AUTHENTICATE", "NICKSERV", "NS", "OPER", "PASS"}) {
+                COMMANDS.put(command, AUTH);
+            }
+            for (String command : new String[]{"INVITE", "KICK", "KILL", "MODE", "REMOVE", "TOPIC"}) {
+                COMMANDS.put(command, MODERATION);
+            }
+            for (String command : new String[]{"ISON", "LIST", "NAMES", "USERHOST", "WHO", "WHOIS", "WHOWAS"}) {
+                COMMANDS.put(command, BULK);
+            }
+        }
+
+        @Nonnull
+        static Lane of(@Nonnull String command, @Nonnull String target) {
+            Lane lane = COMMANDS.get(command);
+            if (lane != null) {
+                return lane;
+            }
+            return target.equals("nickserv") ? AUTH : NORMAL;
+        }
+    }
+
+    private final class Entry implements QueuedMessage {
+        private final String message;
+        private final TargetQueue targetQueue;
+        private final long expiry;
+        private volatile State state = State.QUEUED;
+
+        private Entry(@Nonnull String message, @Nonnull TargetQueue targetQueue, long expiry) {
+            this.message = message;
+            this.targetQueue = targetQueue;
+            this.expiry = expiry;
+        }
+
+        @Override
+        public boolean cancel() {
+            synchronized (OutboundQueue.this) {
+                if (this.state != State.QUEUED) {
+                    return false;
+                }
+                OutboundQueue.this.unlink(this, State.CANCELLED);
+                return true;
+            }
+        }
+
+        @Nonnull
+        @Override
+        public String getMessage() {
+            return this.message;
+        }
+
+        @Nonnull
+        @Override
+        public State getState() {
+            return this.state;
+        }
+
+        @Nonnull
+        @Override
+        public String toString() {
+            return new ToStringer(this).add("message", this.message).add("state", this.state).toString();
+        }
+    }
+
+    private static final class Rejected implements QueuedMessage {
+        private final String message;
+
+        private Rejected(@Nonnull String message) {
+            this.message = message;
+        }
+
+        @Override
+        public boolean cancel() {
+            return false;
+        }
+
+        @Nonnull
+        @Override
+        public String getMessage() {
+            return this.message;
+        }
+
+        @Nonnull
+        @Override
+        public State getState() {
+            return State.REJECTED;
+        }
+
+        @Nonnull
+        @Override
+        public String toString() {
+            return new ToStringer(this).add("message", this.message).add("state", State.REJECTED).toString();
+        }
+    }
+
+    private static final class TargetQueue {
+        private final LaneQueue laneQueue;
+        private final String target;
+        private final ArrayDeque<Entry> entries = new ArrayDeque<>();
+
+        private TargetQueue(@Nonnull LaneQueue laneQueue, @Nonnull String target) {
+            this.laneQueue = laneQueue;
+            this.target = target;
+        }
+    }
+
+    private static final class LaneQueue {
+        private final Map<String, TargetQueue> targets = new HashMap<>();
+        private final ArrayDeque<TargetQueue> turns = new ArrayDeque<>();
+    }
+
+    private final int capacity;
+    private final QueuedMessage.Overflow overflow;
+    private final long timeToLiveNanos;
+    private final LongSupplier clock;
+    private final LaneQueue[] lanes = new LaneQueue[Lane.values().length];
+    // Every entry in the order added, for expiry and dropping the oldest. Entries leaving other ways are cleared out lazily.
+    private final ArrayDeque<Entry> arrivals = new ArrayDeque<>();
+    // Copies of each queued line, for constant time duplicate checks
+    private final Map<String, Integer> pending = new HashMap<>();
+    private int size;
+
+    /**
+     * Creates an unbounded queue without expiry.
+     */
+    OutboundQueue() {
+        this(Integer.MAX_VALUE, QueuedMessage.Overflow.REJECT, 0);
+    }
+
+    /**
+     * Creates a queue.
+     *
+     * @param capacity most lines waiting at once
+     * @param overflow what to do with new lines when full
+     * @param timeToLiveMillis milliseconds a line may wait before being
+     * dropped, or 0 to wait indefinitely
+     */
+    OutboundQueue(int capacity, @Nonnull QueuedMessage.Overflow overflow, long timeToLiveMillis) {
+        this(capacity, overflow, timeToLiveMillis, System::nanoTime);
+    }
+
+    OutboundQueue(int capacity, @Nonnull QueuedMessage.Overflow overflow, long timeToLiveMillis, @Nonnull LongSupplier clock) {
+        Sanity.truthiness(capacity > 0, "Capacity must be positive");
+        Sanity.truthiness(timeToLiveMillis >= 0, "Time to live cannot be negative");
+        this.capacity = capacity;
+        this.overflow = Sanity.nullCheck(overflow, "Overflow cannot be null");
+        this.timeToLiveNanos = TimeUnit.MILLISECONDS.toNanos(timeToLiveMillis);
+        this.clock = clock;
+        for (int i = 0; i < this.lanes.length; i++) {
+            this.lanes[i] = new LaneQueue();
+        }
+    }
+
+    /**
+     * Adds a line to the back of its target's queue.
+     *
+     * @param line line to send
+     * @return the queued line, rejected if the queue is full and rejects
+     * new lines
+     */
+    @Nonnull
+    synchronized QueuedMessage add(@Nonnull String line) {
+        long now = this.clock.getAsLong();
+        this.expire(now);
+        if (this.size >= this.capacity) {
+            if (this.overflow == QueuedMessage.Overflow.REJECT) {
+                return new Rejected(line);
+            }
+            Entry oldest;
+            while ((oldest = this.arrivals.pollFirst()) != null) {
+                if (oldest.state == QueuedMessage.State.QUEUED) {
+                    this.unlink(oldest, QueuedMessage.State.DROPPED);
+                    break;
+                }
+            }
+        }
+        int start = skipTagsAndPrefix(line, 0);
+        int commandEnd = indexOfSpace(line, start);
+        String command = line.substring(start, commandEnd).toUpperCase(Locale.ENGLISH);
+        int targetStart = Math.min(line.length(), commandEnd + 1);
+        String target = (targetStart < line.length()) && (line.charAt(targetStart) != ':') ? line.substring(targetStart, indexOfSpace(line, targetStart)).toLowerCase(Locale.ENGLISH) : "";
+        Lane lane = Lane.of(command, target);
+        LaneQueue laneQueue = this.lanes[lane.ordinal()];
+        TargetQueue targetQueue = laneQueue.targets.get(target);
+        if (targetQueue == null) {
+            targetQueue = new TargetQueue(laneQueue, target);
+            laneQueue.targets.put(target, targetQueue);
+            laneQueue.turns.addLast(targetQueue);
+        }
+        Entry entry = new Entry(line, targetQueue, (this.timeToLiveNanos == 0) ? 0 : (now + this.timeToLiveNanos));
+        targetQueue.entries.addLast(entry);
+        this.arrivals.addLast(entry);
+        this.pending.merge(line, 1, Integer::sum);
+        this.size++;
+        this.compactArrivals();
+        return entry;
+    }
+
+    /**
+     * Adds a line unless an identical line is already waiting.
+     *
+     * @param line line to send
+     * @return true if added
+     */
+    synchronized boolean addIfAbsent(@Nonnull String line) {
+        this.expire(this.clock.getAsLong());
+        return !this.pending.containsKey(line) && (this.add(line).getState() == QueuedMessage.State.QUEUED);
+    }
+
+    /**
+     * Drops every waiting line.
+     */
+    synchronized void clear() {
+        Entry entry;
+        while ((entry = this.arrivals.pollFirst()) != null) {
+            if (entry.state == QueuedMessage.State.QUEUED) {
+                this.unlink(entry, QueuedMessage.State.DROPPED);
+            }
+        }
+    }
+
+    /**
+     * Gets whether a line is waiting to be sent.
+     *
+     * @param line line to look for
+     * @return true if queued
+     */
+    synchronized boolean contains(@Nonnull String line) {
+        return this.pending.containsKey(line);
+    }
+
+    /**
+     * Gets the line to be sent next, without removing it.
+     *
+     * @return next line, or null if empty
+     */
+    @Nullable
+    synchronized String peek() {
+        this.expire(this.clock.getAsLong());
+        LaneQueue laneQueue = this.nextLane();
+        return (laneQueue == null) ? null : laneQueue.turns.peekFirst().entries.peekFirst().message;
+    }
+
+    /**
+     * Removes the line to be sent next, marking it sent and passing the
+     * turn to the next target in its lane.
+     *
+     * @return next line, or null if empty
+     */
+    @Nullable
+    synchronized String poll() {
+        this.expire(this.clock.getAsLong());
+        LaneQueue laneQueue = this.nextLane();
+        return (laneQueue == null) ? null : this.poll(laneQueue).message;
+    }
+
+    /**
+     * Removes the line to be sent next, along with the lines next up for
+     * each following target in its lane which the combiner merges into
+     * it, stopping at the first which can't be merged.
+     *
+     * @param combiner produces the merger of two lines, or null if they
+     * cannot be merged
+     * @return next line, possibly combined, or null if empty
+     */
+    @Nullable
+    synchronized String poll(@Nonnull BinaryOperator<String> combiner) {
+        return this.poll(message -> 0, combiner, wait -> {
+        });
+    }
+
+    /**
+     * Removes the line to be sent next, combined as by
+     * {@link #poll(BinaryOperator)}, if the rate limiter allows sending
+     * it now. The rate limiter is charged for exactly the line returned.
+     *
+     * @param rateLimiter rate limiter to charge
+     * @param combiner produces the merger of two lines, or null if they
+     * cannot be merged
+     * @param held receives the milliseconds to wait when the rate limiter
+     * holds the line back
+     * @return next line, possibly combined, or null if empty or held back
+     */
+    @Nullable
+    synchronized String poll(@Nonnull RateLimiter rateLimiter, @Nonnull BinaryOperator<String> combiner, @Nonnull LongConsumer held) {
+        this.expire(this.clock.getAsLong());
+        LaneQueue laneQueue = this.nextLane();
+        if (laneQueue == null) {
+            return null;
+        }
+        // Combine before removing anything, so a held back line stays queued as it was
+        Iterator<TargetQueue> turns = laneQueue.turns.iterator();
+        String line = turns.next().entries.peekFirst().message;
+        int count = 1;
+        String combined;
+        while (turns.hasNext() && ((combined = combiner.apply(line, turns.next().entries.peekFirst().message)) != null)) {
+            line = combined;
+            count++;
+        }
+        long wait = rateLimiter.acquire(line);
+        if (wait > 0) {
+            held.accept(wait);
+            return null;
+        }
+        for (int i = 0; i < count; i++) {
+            this.poll(laneQueue);
+        }
+        return line;
+    }
+
+    @Nonnull
+    private Entry poll(@Nonnull LaneQueue laneQueue) {
+        TargetQueue targetQueue = laneQueue.turns.pollFirst();
+        Entry entry = targetQueue.entries.pollFirst();
+        if (targetQueue.entries.isEmpty()) {
+            laneQueue.targets.remove(targetQueue.target);
+        } else {
+            laneQueue.turns.addLast(targetQueue);
+        }
+        this.forget(entry, QueuedMessage.State.SENT);
+        return entry;
+    }
+
+    synchronized int size() {
+        return this.size;
+    }
+
+    /**
+     * Drops lines past their time to live. With a single time to live,
+     * they are always the oldest.
+     *
+     * @param now current time
+     */
+    private void expire(long now) {
+        if (this.timeToLiveNanos == 0) {
+            return;
+        }
+        Entry entry;
+        while ((entry = this.arrivals.peekFirst()) != null) {
+            if (entry.state == QueuedMessage.State.QUEUED) {
+                if ((now - entry.expiry) < 0) {
+                    return;
+                }
+                this.unlink(entry, QueuedMessage.State.EXPIRED);
+            }
+            this.arrivals.pollFirst();
+        }
+    }
+
+    /**
+     * Removes a waiting entry from its target's queue, which is usually
+     * at or near the front.
+     *
+     * @param entry entry to remove
+     * @param state state it leaves in
+     */
+    private void unlink(@Nonnull Entry entry, @Nonnull QueuedMessage.State state) {
+        TargetQueue targetQueue = entry.targetQueue;
+        targetQueue.entries.removeFirstOccurrence(entry);
+        if (targetQueue.entries.isEmpty()) {
+            targetQueue.laneQueue.targets.remove(targetQueue.target);
+            targetQueue.laneQueue.turns.remove(targetQueue);
+        }
+        this.forget(entry, state);
+    }
+
+    private void forget(@Nonnull Entry entry, @Nonnull QueuedMessage.State state) {
+        entry.state = state;
+        this.pending.computeIfPresent(entry.message, (key, count) -> (count == 1) ? null : (count - 1));
+        this.size--;
+    }
+
+    /**
+     * Clears out entries which left without reaching the front of the
+     * arrivals, once they outnumber the ones still waiting.
+     */
+    private void compactArrivals() {
+        if (this.arrivals.size() > ((this.size * 2) + 16)) {
+            this.arrivals.removeIf(entry -> entry.state != QueuedMessage.State.QUEUED);
+        }
+    }
+
+    @Nullable
+    private LaneQueue nextLane() {
+        for (LaneQueue laneQueue : this.lanes) {
+            if (!laneQueue.turns.isEmpty()) {
+                return laneQueue;
+            }
+        }
+        return null;
+    }
+
+    private static int skipTagsAndPrefix(@Nonnull String line, int index) {
+        while ((index < line.length()) && ((line.charAt(index) == '@') || (line.charAt(index) == ':'))) {
+            index = Math.min(line.length(), indexOfSpace(line, index) + 1);
+        }
+        return index;
+    }
+
+    private static int indexOfSpace(@Nonnull String line, int from) {
+        int index = line.indexOf(' ', from);
+        return (index == -1) ? line.length() : index;
+    }
+
+    @Nonnull
+    @Override
+    public synchronized String toString() {
+        return new ToStringer(this).add("size", this.size).add("capacity", this.capacity).add("overflow", this.overflow).toString();
+    }
+}
@@ -0,0 +1,281 @@
+/*
+ * * Copyright (C) 2013-2016 Matt Baxter http://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.implementation;
+
+import org.kitteh.irc.client.library.util.Sanity;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable sorted map backed by a balanced (AVL) tree. Modifications
+ * return a new map sharing all but the O(log n) changed path with the
+ * original, so each version can be handed out freely as a snapshot.
+ *
+ * @param <K> key type
+ * @param <V> value type, never null
+ */
+final class PersistentMap<K, V> {
+    private static final class Node<K, V> {
+        private final K key;
+        private final V value;
+        @Nullable
+        private final Node<K, V> left;
+        @Nullable
+        private final Node<K, V> right;
+        private final int height;
+
+        private Node(@Nonnull K key, @Nonnull V value, @Nullable Node<K, V> left, @Nullable Node<K, V> right) {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+        }
+    }
+
+    /**
+     * Creates an empty map.
+     *
+     * @param comparator key ordering, also defining key equality
+     * @param <K> key type
+     * @param <V> value type
+     * @return empty map
+     */
+    @Nonnull
+    static <K, V> PersistentMap<K, V> empty(@Nonnull Comparator<? super K> comparator) {
+        return new PersistentMap<>(Sanity.nullCheck(comparator, "Comparator cannot be null"), null, 0);
+    }
+
+    private final Comparator<? super K> comparator;
+    @Nullable
+    private final Node<K, V> root;
+    private final int size;
+
+    private PersistentMap(@Nonnull Comparator<? super K> comparator, @Nullable Node<K, V> root, int size) {
+        this.comparator = comparator;
+        this.root = root;
+        this.size = size;
+    }
+
+    @Nonnull
+    Comparator<? super K> getComparator() {
+        return this.comparator;
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    boolean containsKey(@Nonnull K key) {
+        return this.getNode(key) != null;
+    }
+
+    @Nullable
+    V get(@Nonnull K key) {
+        Node<K, V> node = this.getNode(key);
+        return (node == null) ? null : node.value;
+    }
+
+    /**
+     * Gets a map with the given mapping added, replacing both the key and
+     * value of any existing mapping comparing equal to the key.
+     *
+     * @param key key
+     * @param value value
+     * @return new map
+     */
+    @Nonnull
+    PersistentMap<K, V> put(@Nonnull K key, @Nonnull V value) {
+        Sanity.nullCheck(key, "Key cannot be null");
+        Sanity.nullCheck(value, "Value cannot be null");
+        return new PersistentMap<>(this.comparator, this.put(this.root, key, value), this.containsKey(key) ? this.size : (this.size + 1));
+    }
+
+    /**
+     * Gets a map without the given key.
+     *
+     * @param key key
+     * @return new map, or this map if the key was not present
+     */
+    @Nonnull
+    PersistentMap<K, V> remove(@Nonnull K key) {
+        if (!this.containsKey(key)) {
+            return this;
+        }
+        return new PersistentMap<>(this.comparator, this.remove(this.root, key), this.size - 1);
+    }
+
+    /**
+     * Gets a map with the same mappings ordered by another comparator.
+     * Mappings which become equal are collapsed, the last in the original
+     * order winning.
+     *
+     * @param comparator new key ordering
+     * @return new map
+     */
+    @Nonnull
+    PersistentMap<K, V> withComparator(@Nonnull Comparator<? super K> comparator) {
+        PersistentMap<K, V> map = empty(comparator);
+        List<K> keys = this.keys();
+        List<V> values = this.values();
+        for (int i = 0; i < keys.size(); i++) {
+            map = map.put(keys.get(i), values.get(i));
+        }
+        return map;
+    }
+
+    /**
+     * Processes each mapping in key order.
+     *
+     * @param consumer consumer
+     */
+    void forEach(@Nonnull BiConsumer<? super K, ? super V> consumer) {
+        forEach(this.root, consumer);
+    }
+
+    @Nonnull
+    List<K> keys() {
+        List<K> keys = new ArrayList<>(this.size);
+        this.forEach((key, value) -> keys.add(key));
+        return keys;
+    }
+
+    @Nonnull
+    List<V> values() {
+        List<V> values = new ArrayList<>(this.size);
+        this.forEach((key, value) -> values.add(value));
+        return values;
+    }
+
+    int height() {
+        return height(this.root);
+    }
+
+    @Nullable
+    private Node<K, V> getNode(@Nonnull K key) {
+        Node<K, V> node = this.root;
+        while (node != null) {
+            int compare = this.comparator.compare(key, node.key);
+            if (compare == 0) {
+                return node;
+            }
+            node = (compare < 0) ? node.left : node.right;
+        }
+        return null;
+    }
+
+    @Nonnull
+    private Node<K, V> put(@Nullable Node<K, V> node, @Nonnull K key, @Nonnull V value) {
+        if (node == null) {
+            return new Node<>(key, value, null, null);
+        }
+        int compare = this.comparator.compare(key, node.key);
+        if (compare == 0) {
+            return new Node<>(key, value, node.left, node.right);
+        }
+        if (compare < 0) {
+            return balance(node.key, node.value, this.put(node.left, key, value), node.right);
+        }
+        return balance(node.key, node.value, node.left, this.put(node.right, key, value));
+    }
+
+    @Nullable
+    private Node<K, V> remove(@Nonnull Node<K, V> node, @Nonnull K key) {
+        int compare = this.comparator.compare(key, node.key);
+        if (compare < 0) {
+            return balance(node.key, node.value, this.remove(node.left, key), node.right);
+        }
+        if (compare > 0) {
+            return balance(node.key, node.value, node.left, this.remove(node.right, key));
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        Node<K, V> successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(successor.key, successor.value, node.left, removeFirst(node.right));
+    }
+
+    @Nullable
+    private static <K, V> Node<K, V> removeFirst(@Nonnull Node<K, V> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(node.key, node.value, removeFirst(node.left), node.right);
+    }
+
+    @Nonnull
+    private static <K, V> Node<K, V> balance(@Nonnull K key, @Nonnull V value, @Nullable Node<K, V> left, @Nullable Node<K, V> right) {
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        if (leftHeight > (rightHeight + 1)) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node<>(left.key, left.value, left.left, new Node<>(key, value, left.right, right));
+            }
+            Node<K, V> pivot = left.right;
+            return new Node<>(pivot.key, pivot.value, new Node<>(left.key, left.value, left.left, pivot.left), new Node<>(key, value, pivot.right, right));
+        }
+        if (rightHeight > (leftHeight + 1)) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node<>(right.key, right.value, new Node<>(key, value, left, right.left), right.right);
+            }
+            Node<K, V> pivot = right.left;
+            return new Node<>(pivot.key, pivot.value, new Node<>(key, value, left, pivot.left), new Node<>(right.key, right.value, pivot.right, right.right));
+        }
+        return new Node<>(key, value, left, right);
+    }
+
+    private static int height(@Nullable Node<?, ?> node) {
+        return (node == null) ? 0 : node.height;
+    }
+
+    private static <K, V> void forEach(@Nullable Node<K, V> node, @Nonnull BiConsumer<? super K, ? super V> consumer) {
+        while (node != null) {
+            forEach(node.left, consumer);
+            consumer.accept(node.key, node.value);
+            node = node.right;
+        }
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return new ToStringer(this).add("size", this.size).toString();
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * * Copyright (C) 2013-2016 Matt Baxter http://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.implementation;
+
+import org.kitteh.irc.client.library.util.QueueProcessingThread;
+import org.kitteh.irc.client.library.util.ToStringer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Processes queued items in order, one at a time, either on a dedicated
+ * thread or as tasks on a shared executor. On an executor, at most one
+ * task per processor is queued or running at any time.
+ *
+ * @param <Type> type of items queued
+ */
+abstract class QueueProcessor<Type> {
+    private final class ProcessingThread extends QueueProcessingThread<Type> {
+        private ProcessingThread(@Nonnull String name) {
+            super(name);
+        }
+
+        @Override
+        protected void processElement(Type element) {
+            QueueProcessor.this.processElement(element);
+        }
+
+        @Override
+        protected void cleanup(Queue<Type> remainingQueue) {
+            QueueProcessor.this.cleanup(remainingQueue);
+        }
+    }
+
+    /**
+     * Most items processed per executor task, so one busy client cannot
+     * hold a shared thread indefinitely.
+     */
+    private static final int BATCH_SIZE = 64;
+
+    @Nullable
+    private final Executor executor;
+    @Nullable
+    private final ProcessingThread thread;
+    private final Queue<Type> queue;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private volatile boolean shutdown;
+    private boolean cleanedUp; // Only touched while scheduled
+
+    /**
+     * Creates a processor.
+     *
+     * @param name name of the thread, if one is used
+     * @param executor executor to process on, or null for a dedicated thread
+     */
+    QueueProcessor(@Nonnull String name, @Nullable Executor executor) {
+        this.executor = executor;
+        this.queue = (executor == null) ? null : new ConcurrentLinkedQueue<>();
+        this.thread = (executor == null) ? new ProcessingThread(name) : null;
+    }
+
+    /**
+     * Processes an element from the queue.
+     *
+     * @param element next element from the queue
+     */
+    protected abstract void processElement(@Nonnull Type element);
+
+    /**
+     * Reports a failure to process on the executor, either an exception
+     * escaping {@link #processElement(Object)} or {@link #cleanup(Queue)}
+     * or the executor rejecting the task. Must not queue to this processor.
+     *
+     * @param exception failure
+     */
+    protected abstract void reportException(@Nonnull Exception exception);
+
+    /**
+     * Called after shutdown with any unprocessed elements. On an executor,
+     * it is called again for elements queued while shutting down.
+     *
+     * @param remainingQueue the queue
+     */
+    protected void cleanup(@Nonnull Queue<Type> remainingQueue) {
+        // NOOP
+    }
+
+    /**
+     * Queues an item.
+     *
+     * @param item item to queue
+     */
+    void queue(@Nonnull Type item) {
+        if (this.thread != null) {
+            this.thread.queue(item);
+        } else if (!this.shutdown) {
+            this.queue.add(item);
+            // Also runs if shutdown began meanwhile, handing the item to cleanup
+            this.schedule();
+        }
+    }
+
+    /**
+     * Stops processing after the current element, passing the remainder
+     * to {@link #cleanup(Queue)}.
+     */
+    void shutdown() {
+        if (this.thread != null) {
+            this.thread.interrupt();
+        } else {
+            this.shutdown = true;
+            this.schedule();
+        }
+    }
+
+    private void schedule() {
+        if (this.scheduled.compareAndSet(false, true)) {
+            try {
+                this.executor.execute(this::drain);
+            } catch (final RejectedExecutionException rejected) {
+                this.reportException(rejected);
+                if (this.shutdown) {
+                    // Nothing will run later, so clean up here instead
+                    this.drain();
+                } else {
+                    // Let the next queued item try again
+                    this.scheduled.set(false);
+                }
+            }
+        }
+    }
+
+    private void drain() {
+        if (this.shutdown) {
+            Queue<Type> remaining = new ArrayDeque<>();
+            Type element;
+            while ((element = this.queue.poll()) != null) {
+                remaining.add(element);
+            }
+            if (!this.cleanedUp || !remaining.isEmpty()) {
+                this.cleanedUp = true;
+                try {
+                    this.cleanup(remaining);
+                } catch (final Exception exception) {
+                    this.reportException(exception);
+                }
+            }
+            this.scheduled.set(false);
+            if (!this.queue.isEmpty()) {
+                this.schedule();
+            }
+            return;
+        }
+        try {
+            Type element;
+            for (int processed = 0; (processed < BATCH_SIZE) && !this.shutdown && ((element = this.queue.poll()) != null); processed++) {
+                this.processElement(element);
+            }
+        } catch (final Exception exception) {
+            // Keep the queue moving regardless
+            this.reportException(exception);
+        }
+        this.scheduled.set(false);
+        if (!this.queue.isEmpty() || this.shutdown) {
+            this.schedule();
+        }
+    }
+
+    @Nonnull
+    @Override
+    public String toString() {
+        return new ToStringer(this).add("executor", this.executor).toString();
+    }
+}
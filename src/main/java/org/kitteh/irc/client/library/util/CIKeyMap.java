@@ -33,6 +33,8 @@ import java.util.Collection;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -40,9 +42,45 @@ import java.util.stream.Collectors;
  * {@link CaseMapping}. Note that some methods do not behave like all maps.
  */
 public class CIKeyMap<Value> implements Map<String, Value> {
+    /**
+     * A key hashed and compared per a case mapping, without lowercasing.
+     */
+    static final class Key {
+        private final CaseMapping caseMapping;
+        private final String value;
+        private final int hash;
+
+        Key(@Nonnull CaseMapping caseMapping, @Nonnull String value) {
+            this.caseMapping = caseMapping;
+            this.value = value;
+            this.hash = caseMapping.hash(value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return (o instanceof Key) && (((Key) o).hash == this.hash) && this.caseMapping.equals(this.value, ((Key) o).value);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+
+    private static final class State<Value> {
+        @Nullable
+        private final CaseMapping caseMapping;
+        private final Map<Key, Pair<String, Value>> map = new ConcurrentHashMap<>();
+
+        private State(@Nullable CaseMapping caseMapping) {
+            this.caseMapping = caseMapping;
+        }
+    }
+
     private final Client client;
-    private CaseMapping lastCaseMapping;
-    private final Map<String, Pair<String, Value>> map = new ConcurrentHashMap<>();
+    // Writers share it, a rebuild takes it exclusively so no write is lost
+    private final StampedLock lock = new StampedLock();
+    private volatile State<Value> state = new State<>(null);
 
     /**
      * Constructs a map tied to a client.
@@ -61,35 +99,84 @@ public class CIKeyMap<Value> implements Map<String, Value> {
      * @return lower cased input
      */
     @Nonnull
-    protected final synchronized String toLowerCase(@Nonnull String input) {
+    protected final String toLowerCase(@Nonnull String input) {
+        return this.client.getServerInfo().getCaseMapping().toLowerCase(input);
+    }
+
+    /**
+     * Gets the current state, rebuilding it once if the case mapping has
+     * changed since last access.
+     *
+     * @return current state
+     */
+    @Nonnull
+    private State<Value> getState() {
+        State<Value> state = this.state;
         CaseMapping caseMapping = this.client.getServerInfo().getCaseMapping();
-        if (caseMapping != this.lastCaseMapping) {
-            Set<Entry<String, Value>> entrySet = this.entrySet();
-            this.lastCaseMapping = caseMapping;
-            this.map.clear();
-            entrySet.forEach(entry -> this.put(entry.getKey(), entry.getValue()));
+        return (state.caseMapping == caseMapping) ? state : this.rebuild(caseMapping);
+    }
+
+    @Nonnull
+    private State<Value> rebuild(@Nonnull CaseMapping caseMapping) {
+        long stamp = this.lock.writeLock();
+        try {
+            State<Value> old = this.state;
+            if (old.caseMapping == caseMapping) {
+                return old;
+            }
+            State<Value> state = new State<>(caseMapping);
+            old.map.values().forEach(pair -> state.map.put(new Key(caseMapping, pair.getLeft()), pair));
+            this.state = state;
+            return state;
+        } finally {
+            this.lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Applies a change to the current state, which can't be rebuilt until
+     * the change is done.
+     *
+     * @param writer change to apply
+     * @param <T> type of result
+     * @return result of the change
+     */
+    private <T> T write(@Nonnull Function<State<Value>, T> writer) {
+        while (true) {
+            State<Value> state = this.getState();
+            long stamp = this.lock.readLock();
+            try {
+                if (this.state == state) {
+                    return writer.apply(state);
+                }
+            } finally {
+                this.lock.unlockRead(stamp);
+            }
         }
-        return caseMapping.toLowerCase(input);
     }
 
     @Override
     public int size() {
-        return this.map.size();
+        return this.state.map.size();
     }
 
     @Override
     public boolean isEmpty() {
-        return this.map.isEmpty();
+        return this.state.map.isEmpty();
     }
 
     @Override
     public boolean containsKey(@Nullable Object key) {
-        return (key instanceof String) && this.map.containsKey(this.toLowerCase((String) key));
+        if (key instanceof String) {
+            State<Value> state = this.getState();
+            return state.map.containsKey(new Key(state.caseMapping, (String) key));
+        }
+        return false;
     }
 
     @Override
     public boolean containsValue(@Nullable Object value) {
-        for (Pair<String, Value> pair : this.map.values()) {
+        for (Pair<String, Value> pair : this.state.map.values()) {
             if ((value == null) ? (pair.getRight() == null) : value.equals(pair.getRight())) {
                 return true;
             }
@@ -101,7 +188,8 @@ public class CIKeyMap<Value> implements Map<String, Value> {
     @Override
     public Value get(@Nullable Object key) {
         if (key instanceof String) {
-            Pair<String, Value> pair = this.map.get(this.toLowerCase((String) key));
+            State<Value> state = this.getState();
+            Pair<String, Value> pair = state.map.get(new Key(state.caseMapping, (String) key));
             return (pair == null) ? null : pair.getRight();
         }
         return null;
@@ -111,7 +199,8 @@ public class CIKeyMap<Value> implements Map<String, Value> {
     @Override
     public Value put(@Nonnull String key, @Nullable Value value) {
         Sanity.nullCheck(key, "Key cannot be null");
-        Pair<String, Value> pair = this.map.put(this.toLowerCase(key), new Pair<>(key, value));
+        Pair<String, Value> newPair = new Pair<>(key, value);
+        Pair<String, Value> pair = this.write(state -> state.map.put(new Key(state.caseMapping, key), newPair));
         return (pair == null) ? null : pair.getRight();
     }
 
@@ -119,7 +208,7 @@ public class CIKeyMap<Value> implements Map<String, Value> {
     @Override
     public Value remove(@Nullable Object key) {
         if (key instanceof String) {
-            Pair<String, Value> pair = this.map.remove(this.toLowerCase((String) key));
+            Pair<String, Value> pair = this.write(state -> state.map.remove(new Key(state.caseMapping, (String) key)));
             return (pair == null) ? null : pair.getRight();
         }
         return null;
@@ -133,7 +222,10 @@ public class CIKeyMap<Value> implements Map<String, Value> {
 
     @Override
     public void clear() {
-        this.map.clear();
+        this.write(state -> {
+            state.map.clear();
+            return null;
+        });
     }
 
     /**
@@ -144,7 +236,7 @@ public class CIKeyMap<Value> implements Map<String, Value> {
     @Nonnull
     @Override
     public Set<String> keySet() {
-        return this.map.values().stream().map(Pair::getLeft).collect(Collectors.toSet());
+        return this.state.map.values().stream().map(Pair::getLeft).collect(Collectors.toSet());
     }
 
     /**
@@ -155,7 +247,7 @@ public class CIKeyMap<Value> implements Map<String, Value> {
     @Nonnull
     @Override
     public Collection<Value> values() {
-        return this.map.values().stream().map(Pair::getRight).collect(Collectors.toList());
+        return this.state.map.values().stream().map(Pair::getRight).collect(Collectors.toList());
     }
 
     /**
@@ -166,12 +258,12 @@ public class CIKeyMap<Value> implements Map<String, Value> {
     @Nonnull
     @Override
     public Set<Entry<String, Value>> entrySet() {
-        return this.map.values().stream().map(pair -> new AbstractMap.SimpleImmutableEntry<>(pair.getLeft(), pair.getRight())).collect(Collectors.toSet());
+        return this.state.map.values().stream().map(pair -> new AbstractMap.SimpleImmutableEntry<>(pair.getLeft(), pair.getRight())).collect(Collectors.toSet());
     }
 
     @Nonnull
     @Override
     public String toString() {
-        return new ToStringer(this).add("client", this.client).add("map", this.map.values().stream().collect(Collectors.toMap(Pair::getLeft, Pair::getRight))).toString();
+        return new ToStringer(this).add("client", this.client).add("map", this.state.map.values().stream().collect(Collectors.toMap(Pair::getLeft, Pair::getRight))).toString();
     }
 }
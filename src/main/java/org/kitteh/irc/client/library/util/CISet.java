@@ -29,11 +29,12 @@ import org.kitteh.irc.client.library.feature.CaseMapping;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
@@ -41,9 +42,20 @@ import java.util.stream.Collectors;
  * CaseMapping}.
  */
 public class CISet implements Set<String> {
+    private static final class State {
+        @Nullable
+        private final CaseMapping caseMapping;
+        private final Map<CIKeyMap.Key, String> map = new ConcurrentHashMap<>();
+
+        private State(@Nullable CaseMapping caseMapping) {
+            this.caseMapping = caseMapping;
+        }
+    }
+
     private final Client client;
-    private CaseMapping lastCaseMapping;
-    private final Map<String, String> map = new ConcurrentHashMap<>();
+    // Shared by adds and removes, exclusive to a rebuild
+    private final StampedLock lock = new StampedLock();
+    private volatile State state = new State(null);
 
     /**
      * Constructs a set tied to a client.
@@ -61,60 +73,117 @@ public class CISet implements Set<String> {
      * @param input input to convert
      * @return lower cased input
      */
-    protected final synchronized String toLowerCase(@Nonnull String input) {
+    protected final String toLowerCase(@Nonnull String input) {
+        return this.client.getServerInfo().getCaseMapping().toLowerCase(input);
+    }
+
+    /**
+     * Gets the current state, rebuilding it once if the case mapping has
+     * changed since last access.
+     *
+     * @return current state
+     */
+    @Nonnull
+    private State getState() {
+        State state = this.state;
         CaseMapping caseMapping = this.client.getServerInfo().getCaseMapping();
-        if (caseMapping != this.lastCaseMapping) {
-            Set<String> set = new HashSet<>(this.map.values());
-            this.lastCaseMapping = caseMapping;
-            this.map.clear();
-            set.forEach(this::add);
+        return (state.caseMapping == caseMapping) ? state : this.rebuild(caseMapping);
+    }
+
+    @Nonnull
+    private State rebuild(@Nonnull CaseMapping caseMapping) {
+        long stamp = this.lock.writeLock();
+        try {
+            State old = this.state;
+            if (old.caseMapping == caseMapping) {
+                return old;
+            }
+            State state = new State(caseMapping);
+            old.map.values().forEach(value -> state.map.put(new CIKeyMap.Key(caseMapping, value), value));
+            this.state = state;
+            return state;
+        } finally {
+            this.lock.unlockWrite(stamp);
         }
-        return caseMapping.toLowerCase(input);
+    }
+
+    /**
+     * Applies a change to the current state, which can't be rebuilt until
+     * the change is done.
+     *
+     * @param writer change to apply
+     * @param <T> type of result
+     * @return result of the change
+     */
+    private <T> T write(@Nonnull Function<State, T> writer) {
+        while (true) {
+            State state = this.getState();
+            long stamp = this.lock.readLock();
+            try {
+                if (this.state == state) {
+                    return writer.apply(state);
+                }
+            } finally {
+                this.lock.unlockRead(stamp);
+            }
+        }
+    }
+
+    @Nonnull
+    private Set<CIKeyMap.Key> toKeys(@Nonnull State state, @Nonnull Collection<?> c) {
+        return c.stream().filter(i -> i instanceof String).map(i -> new CIKeyMap.Key(state.caseMapping, (String) i)).collect(Collectors.toSet());
     }
 
     @Override
     public int size() {
-        return this.map.size();
+        return this.state.map.size();
     }
 
     @Override
     public boolean isEmpty() {
-        return this.map.isEmpty();
+        return this.state.map.isEmpty();
     }
 
     @Override
     public boolean contains(@Nullable Object o) {
-        return (o instanceof String) && this.map.containsKey(this.toLowerCase((String) o));
+        if (o instanceof String) {
+            State state = this.getState();
+            return state.map.containsKey(new CIKeyMap.Key(state.caseMapping, (String) o));
+        }
+        return false;
     }
 
     @Nonnull
     @Override
     public Iterator<String> iterator() {
-        return this.map.values().iterator();
+        return this.state.map.values().iterator();
     }
 
     @Nonnull
     @Override
     public Object[] toArray() {
-        return this.map.values().toArray();
+        return this.state.map.values().toArray();
     }
 
     @Nonnull
     @Override
     public <T> T[] toArray(@Nonnull T[] a) {
-        return this.map.values().toArray(a);
+        return this.state.map.values().toArray(a);
     }
 
     @Override
     public boolean add(@Nonnull String s) {
         Sanity.nullCheck(s, "String cannot be null");
-        this.map.put(this.toLowerCase(s), s);
+        this.write(state -> state.map.put(new CIKeyMap.Key(state.caseMapping, s), s));
         return true;
     }
 
     @Override
     public boolean remove(@Nullable Object o) {
-        return (o instanceof String) && (this.map.remove(this.toLowerCase((String) o)) != null);
+        if (o instanceof String) {
+            return this.write(state -> state.map.remove(new CIKeyMap.Key(state.caseMapping, (String) o)) != null);
+        }
+        return false;
     }
 
     @Override
@@ -138,23 +207,26 @@ public class CISet implements Set<String> {
     @Override
     public boolean retainAll(@Nonnull Collection<?> c) {
         Sanity.nullCheck(c, "Collection cannot be null");
-        return this.map.keySet().retainAll(c.stream().filter(i -> i instanceof String).map(i -> (String) i).map(this::toLowerCase).collect(Collectors.toSet()));
+        return this.write(state -> state.map.keySet().retainAll(this.toKeys(state, c)));
     }
 
     @Override
     public boolean removeAll(@Nonnull Collection<?> c) {
         Sanity.nullCheck(c, "Collection cannot be null");
-        return this.map.keySet().removeAll(c.stream().filter(i -> i instanceof String).map(i -> (String) i).map(this::toLowerCase).collect(Collectors.toSet()));
+        return this.write(state -> state.map.keySet().removeAll(this.toKeys(state, c)));
     }
 
     @Override
     public void clear() {
-        this.map.clear();
+        this.write(state -> {
+            state.map.clear();
+            return null;
+        });
     }
 
     @Nonnull
     @Override
     public String toString() {
-        return new ToStringer(this).add("client", this.client).add("set", this.map.values()).toString();
+        return new ToStringer(this).add("client", this.client).add("set", this.state.map.values()).toString();
     }
 }
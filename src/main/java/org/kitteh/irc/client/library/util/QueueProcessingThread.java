@@ -25,14 +25,28 @@ package org.kitteh.irc.client.library.util;
 
 import java.util.Queue;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * Self starting processor of queued items on its own thread.
+ * <p>
+ * Any number of threads may queue items. The processing thread drains
+ * everything available before spinning briefly and then parking, and
+ * producers only signal it when it is parked.
  *
  * @param <Type> type of items queued
  */
 public abstract class QueueProcessingThread<Type> extends Thread {
+    /**
+     * Times to yield waiting for more items before parking.
+     */
+    private static final int SPIN_LIMIT = 16;
+
     private final Queue<Type> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final int capacity;
+    private volatile boolean parked;
 
     /**
      * Creates a thread and starts itself.
@@ -40,24 +54,43 @@ public abstract class QueueProcessingThread<Type> extends Thread {
      * @param name name of the thread
      */
     protected QueueProcessingThread(String name) {
+        this(name, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Creates a thread holding at most the given number of unprocessed
+     * items, and starts itself.
+     *
+     * @param name name of the thread
+     * @param capacity maximum number of queued items
+     * @throws IllegalArgumentException if capacity is less than one
+     */
+    protected QueueProcessingThread(String name, int capacity) {
+        Sanity.truthiness(capacity > 0, "Capacity must be positive");
+        this.capacity = capacity;
         this.setName(name);
         this.start();
     }
 
     @Override
     public void run() {
-        dance:
         while (!this.isInterrupted()) {
-            synchronized (this.queue) {
-                while (this.queue.isEmpty()) {
-                    try {
-                        this.queue.wait();
-                    } catch (InterruptedException e) {
-                        break dance;
-                    }
+            Type element;
+            while (!this.isInterrupted() && ((element = this.queue.poll()) != null)) {
+                this.size.decrementAndGet();
+                this.processElement(element);
+            }
+            for (int spin = 0; (spin < SPIN_LIMIT) && this.queue.isEmpty() && !this.isInterrupted(); spin++) {
+                Thread.yield();
+            }
+            if (this.queue.isEmpty()) {
+                this.parked = true;
+                // Producers check parked after adding, so recheck after setting it
+                if (this.queue.isEmpty() && !this.isInterrupted()) {
+                    LockSupport.park(this);
                 }
+                this.parked = false;
             }
-            this.processElement(this.queue.poll());
         }
         this.interrupt();
         this.cleanup(this.queue);
@@ -79,15 +112,54 @@ public abstract class QueueProcessingThread<Type> extends Thread {
      */
     protected abstract void processElement(Type element);
 
+    /**
+     * Gets the number of items waiting to be processed.
+     *
+     * @return number of queued items
+     */
+    public int getQueueSize() {
+        return this.size.get();
+    }
+
+    /**
+     * Gets the maximum number of items which can wait to be processed.
+     *
+     * @return capacity, {@link Integer#MAX_VALUE} if unbounded
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Queues an item if there is room.
+     *
+     * @param item item to queue
+     * @return true if queued, false if at capacity
+     */
+    public boolean offer(Type item) {
+        int current;
+        do {
+            current = this.size.get();
+            if (current >= this.capacity) {
+                return false;
+            }
+        } while (!this.size.compareAndSet(current, current + 1));
+        this.queue.add(item);
+        if (this.parked) {
+            LockSupport.unpark(this);
+        }
+        return true;
+    }
+
     /**
      * Queues an item.
      *
      * @param item item to queue
+     * @throws IllegalStateException if at capacity
      */
     public void queue(Type item) {
-        synchronized (this.queue) {
-            this.queue.add(item);
-            this.queue.notify();
+        if (!this.offer(item)) {
+            throw new IllegalStateException("Queue at capacity of " + this.capacity);
         }
     }
 }
@@ -0,0 +1,100 @@
+/*
+ * * Copyright (C) 2013-2016 Matt Baxter http://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.util;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A message waiting in the client's rate-limited queue, which can be
+ * checked on or withdrawn before it is sent.
+ */
+public interface QueuedMessage {
+    /**
+     * What happens to a new message when the queue is full.
+     */
+    enum Overflow {
+        /**
+         * The oldest waiting message is dropped to make room.
+         */
+        DROP_OLDEST,
+        /**
+         * The new message is rejected.
+         */
+        REJECT
+    }
+
+    /**
+     * Where a message is in its life.
+     */
+    enum State {
+        /**
+         * Waiting to be sent.
+         */
+        QUEUED,
+        /**
+         * Handed to the connection for sending.
+         */
+        SENT,
+        /**
+         * Cancelled before it was sent.
+         */
+        CANCELLED,
+        /**
+         * Dropped after waiting longer than the time to live.
+         */
+        EXPIRED,
+        /**
+         * Dropped to make room for newer messages, or because the
+         * connection closed.
+         */
+        DROPPED,
+        /**
+         * Never queued, as the queue was full.
+         */
+        REJECTED
+    }
+
+    /**
+     * Attempts to withdraw the message before it is sent.
+     *
+     * @return true if the message was waiting and is now cancelled
+     */
+    boolean cancel();
+
+    /**
+     * Gets the message.
+     *
+     * @return message to be sent
+     */
+    @Nonnull
+    String getMessage();
+
+    /**
+     * Gets the current state of the message.
+     *
+     * @return state
+     */
+    @Nonnull
+    State getState();
+}
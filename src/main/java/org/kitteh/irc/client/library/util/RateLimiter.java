@@ -0,0 +1,250 @@
+/*
+ * * Copyright (C) 2013-2016 Matt Baxter http://kitteh.org
+ *
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use, copy,
+ * modify, merge, publish, distribute, sublicense, and/or sell copies
+ * of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF
+ * MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS
+ * BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN
+ * ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.kitteh.irc.client.library.util;
+
+import javax.annotation.Nonnull;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides when queued messages may be sent to the server, keeping the
+ * client within the server's flood limits.
+ */
+@FunctionalInterface
+public interface RateLimiter {
+    /**
+     * A token bucket which tunes its refill interval from server feedback,
+     * within configured bounds. Throttling by the server, or lag of at
+     * least {@link #LAG_HIGH} milliseconds, slows sending down. Lag below
+     * {@link #LAG_LOW} milliseconds gradually speeds it back up.
+     */
+    class Adaptive extends TokenBucket {
+        /**
+         * Ping lag, in milliseconds, at or above which sending slows.
+         */
+        public static final long LAG_HIGH = 2000;
+        /**
+         * Ping lag, in milliseconds, below which sending speeds up.
+         */
+        public static final long LAG_LOW = 500;
+
+        private final long minRefillNanos;
+        private final long maxRefillNanos;
+
+        /**
+         * Creates an adaptive bucket charging one token per line.
+         *
+         * @param burst number of lines that may be sent back to back
+         * @param refillMillis initial milliseconds to regain one token
+         * @param minRefillMillis fastest refill interval to tune down to
+         * @param maxRefillMillis slowest refill interval to tune up to
+         * @throws IllegalArgumentException if burst or minRefillMillis is
+         * less than 1, or refillMillis is outside the bounds
+         */
+        public Adaptive(int burst, long refillMillis, long minRefillMillis, long maxRefillMillis) {
+            this(burst, refillMillis, minRefillMillis, maxRefillMillis, System::nanoTime);
+        }
+
+        Adaptive(int burst, long refillMillis, long minRefillMillis, long maxRefillMillis, @Nonnull LongSupplier clock) {
+            super(burst, refillMillis, 0, clock);
+            Sanity.truthiness(minRefillMillis > 0, "Minimum refill must be at least 1");
+            Sanity.truthiness((minRefillMillis <= refillMillis) && (refillMillis <= maxRefillMillis), "Refill must be within bounds");
+            this.minRefillNanos = TimeUnit.MILLISECONDS.toNanos(minRefillMillis);
+            this.maxRefillNanos = TimeUnit.MILLISECONDS.toNanos(maxRefillMillis);
+        }
+
+        /**
+         * Sets the time taken to regain one token, kept within the bounds.
+         *
+         * @param refillMillis milliseconds to regain one token
+         * @throws IllegalArgumentException if refillMillis is less than 1
+         */
+        @Override
+        public synchronized void setRefillMillis(long refillMillis) {
+            Sanity.truthiness(refillMillis > 0, "Refill must be at least 1");
+            this.tune(TimeUnit.MILLISECONDS.toNanos(refillMillis));
+        }
+
+        @Override
+        public synchronized void reportLag(long millis) {
+            if (millis >= LAG_HIGH) {
+                this.tune((this.getRefillNanos() * 3) / 2);
+            } else if (millis < LAG_LOW) {
+                this.tune((this.getRefillNanos() * 9) / 10);
+            }
+        }
+
+        @Override
+        public synchronized void reportThrottle() {
+            this.tune(this.getRefillNanos() * 2);
+        }
+
+        private void tune(long refillNanos) {
+            this.setRefillNanos(Math.max(this.minRefillNanos, Math.min(this.maxRefillNanos, refillNanos)));
+        }
+    }
+
+    /**
+     * A token bucket, as used by most server penalty models. The bucket
+     * holds up to a burst of tokens and regains one token per refill
+     * interval. Each line costs one token, or, if weighted by bytes, one
+     * token plus one more per the given number of bytes.
+     */
+    class TokenBucket implements RateLimiter {
+        private final int burst;
+        private long refillNanos;
+        private final int bytesPerToken;
+        private final LongSupplier clock;
+        private long theoreticalArrival;
+
+        /**
+         * Creates a bucket charging one token per line.
+         *
+         * @param burst number of lines that may be sent back to back
+         * @param refillMillis milliseconds to regain one token
+         * @throws IllegalArgumentException if burst or refillMillis is
+         * less than 1
+         */
+        public TokenBucket(int burst, long refillMillis) {
+            this(burst, refillMillis, 0);
+        }
+
+        /**
+         * Creates a bucket charging lines by their length.
+         *
+         * @param burst number of tokens that may be spent back to back
+         * @param refillMillis milliseconds to regain one token
+         * @param bytesPerToken bytes costing one additional token, or 0
+         * to charge one token per line regardless of length
+         * @throws IllegalArgumentException if burst or refillMillis is
+         * less than 1, or bytesPerToken is negative
+         */
+        public TokenBucket(int burst, long refillMillis, int bytesPerToken) {
+            this(burst, refillMillis, bytesPerToken, System::nanoTime);
+        }
+
+        TokenBucket(int burst, long refillMillis, int bytesPerToken, @Nonnull LongSupplier clock) {
+            Sanity.truthiness(burst > 0, "Burst must be at least 1");
+            Sanity.truthiness(refillMillis > 0, "Refill must be at least 1");
+            Sanity.truthiness(bytesPerToken >= 0, "Bytes per token cannot be negative");
+            this.burst = burst;
+            this.refillNanos = TimeUnit.MILLISECONDS.toNanos(refillMillis);
+            this.bytesPerToken = bytesPerToken;
+            this.clock = clock;
+            this.theoreticalArrival = clock.getAsLong();
+        }
+
+        /**
+         * Gets the number of tokens that may be spent back to back.
+         *
+         * @return burst size
+         */
+        public int getBurst() {
+            return this.burst;
+        }
+
+        /**
+         * Gets the time taken to regain one token.
+         *
+         * @return refill interval in milliseconds
+         */
+        public synchronized long getRefillMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(this.refillNanos);
+        }
+
+        /**
+         * Sets the time taken to regain one token. Lines already sent stay
+         * charged at the previous interval.
+         *
+         * @param refillMillis milliseconds to regain one token
+         * @throws IllegalArgumentException if refillMillis is less than 1
+         */
+        public synchronized void setRefillMillis(long refillMillis) {
+            Sanity.truthiness(refillMillis > 0, "Refill must be at least 1");
+            this.setRefillNanos(TimeUnit.MILLISECONDS.toNanos(refillMillis));
+        }
+
+        synchronized long getRefillNanos() {
+            return this.refillNanos;
+        }
+
+        synchronized void setRefillNanos(long refillNanos) {
+            this.refillNanos = refillNanos;
+        }
+
+        @Override
+        public synchronized long acquire(@Nonnull String message) {
+            long now = this.clock.getAsLong();
+            // Tracks when the bucket would next be full, rather than counting tokens
+            long arrival = Math.max(this.theoreticalArrival, now) + (this.cost(message) * this.refillNanos);
+            long wait = arrival - now - (this.burst * this.refillNanos);
+            if (wait > 0) {
+                return Math.max(1, TimeUnit.NANOSECONDS.toMillis(wait));
+            }
+            this.theoreticalArrival = arrival;
+            return 0;
+        }
+
+        private int cost(@Nonnull String message) {
+            if (this.bytesPerToken == 0) {
+                return 1;
+            }
+            // A line that can never fit still goes out once the bucket is full
+            return Math.min(this.burst, 1 + (message.getBytes(StandardCharsets.UTF_8).length / this.bytesPerToken));
+        }
+
+        @Nonnull
+        @Override
+        public String toString() {
+            return new ToStringer(this).add("burst", this.burst).add("refillMillis", this.getRefillMillis()).add("bytesPerToken", this.bytesPerToken).toString();
+        }
+    }
+
+    /**
+     * Attempts to take the cost of sending a message. Called only from the
+     * connection's sending loop, in queue order, until the message is
+     * allowed.
+     *
+     * @param message message about to be sent, without line ending
+     * @return 0 if the message may be sent now, having been charged for,
+     * otherwise the milliseconds to wait before asking again
+     */
+    long acquire(@Nonnull String message);
+
+    /**
+     * Informs of the round trip time of the latest ping to the server,
+     * which grows as the server holds back our lines.
+     *
+     * @param millis ping round trip time in milliseconds
+     */
+    default void reportLag(long millis) {
+    }
+
+    /**
+     * Informs that the server has complained about the rate of sending.
+     */
+    default void reportThrottle() {
+    }
+}
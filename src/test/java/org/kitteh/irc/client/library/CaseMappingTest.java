@@ -44,4 +44,35 @@ public class CaseMappingTest {
             Assert.assertTrue("Incorrect equalsIgnoreCase", entry.getKey().areEqualIgnoringCase(entry.getValue().getLeft(), entry.getValue().getRight()));
         }
     }
+
+    /**
+     * Tests allocation-free hashing and equality match lowercasing.
+     */
+    @Test
+    public void hashAndEquals() {
+        String input = "abcdwxyzABCDWXYZ!@#$%^&*(){}[];':,.<>";
+        for (CaseMapping caseMapping : CaseMapping.values()) {
+            String lower = caseMapping.toLowerCase(input);
+            Assert.assertEquals("Incorrect hash", lower.hashCode(), caseMapping.hash(input));
+            Assert.assertTrue("Incorrect equals", caseMapping.equals(input, lower));
+            Assert.assertFalse("Incorrect equals", caseMapping.equals(input, lower + 'a'));
+        }
+        Assert.assertTrue(CaseMapping.RFC1459.equals("[Cat]^", "{cat}~"));
+        Assert.assertFalse(CaseMapping.STRICT_RFC1459.equals("[Cat]^", "{cat}~"));
+        Assert.assertFalse(CaseMapping.ASCII.equals("[Cat]", "{cat}"));
+    }
+
+    /**
+     * Tests case insensitive comparison and lowercasing without copying.
+     */
+    @Test
+    public void compareAndIdentity() {
+        Assert.assertEquals(0, CaseMapping.RFC1459.compare("[Cat]^", "{cat}~"));
+        Assert.assertTrue(CaseMapping.ASCII.compare("Apple", "banana") < 0);
+        Assert.assertTrue(CaseMapping.ASCII.compare("cat", "CA") > 0);
+        Assert.assertTrue(CaseMapping.STRICT_RFC1459.compare("[cat]^", "{cat}~") < 0);
+        String lower = "{kitteh}~";
+        Assert.assertSame(lower, CaseMapping.RFC1459.toLowerCase(lower));
+        Assert.assertEquals("{kitteh}~", CaseMapping.RFC1459.toLowerCase("{KITTEH]^"));
+    }
 }
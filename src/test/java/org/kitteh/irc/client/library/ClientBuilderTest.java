@@ -17,4 +17,20 @@ public final class ClientBuilderTest {
             throw new AssertionError("Cannot into reflection", e);
         }
     }
+
+    /**
+     * Rejects an inbound capacity with no room.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void inboundCapacityZero() {
+        Client.builder().inboundCapacity(0);
+    }
+
+    /**
+     * Rejects a negative number of event loop threads.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void eventLoopNegativeThreads() {
+        Client.builder().eventLoop(null, -1);
+    }
 }
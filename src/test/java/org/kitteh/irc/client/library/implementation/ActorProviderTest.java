@@ -0,0 +1,251 @@
+package org.kitteh.irc.client.library.implementation;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitteh.irc.client.library.element.Channel;
+import org.kitteh.irc.client.library.element.ISupportParameter;
+import org.kitteh.irc.client.library.element.mode.ChannelUserMode;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Tests telling actors apart by prefix.
+ */
+public class ActorProviderTest {
+    /**
+     * Tests splitting user prefixes.
+     */
+    @Test
+    public void testUser() {
+        ActorProvider provider = new ActorProvider(new FakeClient());
+        ActorProvider.IRCActor actor = provider.getActor("Kitteh!~meow@cat.kitteh.org");
+        Assert.assertTrue(actor instanceof ActorProvider.IRCUser);
+        ActorProvider.IRCUser user = (ActorProvider.IRCUser) actor;
+        Assert.assertEquals("Kitteh", user.getNick());
+        Assert.assertEquals("~meow", user.snapshot().getUserString());
+        Assert.assertEquals("cat.kitteh.org", user.snapshot().getHost());
+        Assert.assertSame(actor, provider.getActor("Kitteh!~meow@cat.kitteh.org"));
+    }
+
+    /**
+     * Tests prefixes which are not quite users.
+     */
+    @Test
+    public void testNotUser() {
+        ActorProvider provider = new ActorProvider(new FakeClient());
+        String[] names = {"!user@host", "nick!@host", "nick!user@", "nick@host!user", "nick!user@host@host", "nick!!user@host", "nick!user"};
+        for (String name : names) {
+            Assert.assertFalse(name, provider.getActor(name) instanceof ActorProvider.IRCUser);
+        }
+    }
+
+    /**
+     * Tests server names.
+     */
+    @Test
+    public void testServerName() {
+        Assert.assertTrue(ActorProvider.isServerName("irc.kitteh.org"));
+        Assert.assertTrue(ActorProvider.isServerName("a-1.b2.c3"));
+        Assert.assertTrue(ActorProvider.isServerName("1.x"));
+        Assert.assertFalse(ActorProvider.isServerName("kitteh"));
+        Assert.assertFalse(ActorProvider.isServerName("-irc.kitteh.org"));
+        Assert.assertFalse(ActorProvider.isServerName("irc-.kitteh.org"));
+        Assert.assertFalse(ActorProvider.isServerName("irc..org"));
+        Assert.assertFalse(ActorProvider.isServerName("irc.kitteh."));
+        Assert.assertFalse(ActorProvider.isServerName("127.0.0.1"));
+        Assert.assertFalse(ActorProvider.isServerName("irc.kitteh.o-rg"));
+        Assert.assertFalse(ActorProvider.isServerName("irc_1.kitteh.org"));
+    }
+
+    /**
+     * Tests which actors are servers and that repeats are reused.
+     */
+    @Test
+    public void testServer() {
+        ActorProvider provider = new ActorProvider(new FakeClient());
+        ActorProvider.IRCActor server = provider.getActor("irc.kitteh.org");
+        Assert.assertTrue(server instanceof ActorProvider.IRCServer);
+        Assert.assertSame(server, provider.getActor("irc.kitteh.org"));
+        Assert.assertTrue(provider.getActor("") instanceof ActorProvider.IRCServer);
+        Assert.assertFalse(provider.getActor("kitteh") instanceof ActorProvider.IRCServer);
+    }
+
+    /**
+     * Tests a user leaves the cache once tracked, so it isn't handed out
+     * again after tracking ends.
+     */
+    @Test
+    public void testCacheTrackUser() {
+        ActorProvider provider = new ActorProvider(new FakeClient());
+        ActorProvider.IRCUser user = (ActorProvider.IRCUser) provider.getActor("meow!cat@kitteh.org");
+        provider.trackUser(user);
+        Assert.assertSame(user, provider.getActor("meow!cat@kitteh.org"));
+        provider.trackUserQuit("meow");
+        Assert.assertNotSame(user, provider.getActor("meow!cat@kitteh.org"));
+    }
+
+    /**
+     * Tests resetting empties the cache.
+     */
+    @Test
+    public void testCacheReset() {
+        ActorProvider provider = new ActorProvider(new FakeClient());
+        ActorProvider.IRCActor user = provider.getActor("meow!cat@kitteh.org");
+        ActorProvider.IRCActor server = provider.getActor("irc.kitteh.org");
+        provider.reset();
+        Assert.assertNotSame(user, provider.getActor("meow!cat@kitteh.org"));
+        Assert.assertNotSame(server, provider.getActor("irc.kitteh.org"));
+    }
+
+    private static ActorProvider.IRCUser join(ActorProvider provider, ActorProvider.IRCChannel channel, String prefix) {
+        ActorProvider.IRCUser user = (ActorProvider.IRCUser) provider.getActor(prefix);
+        channel.trackUser(user, Collections.emptySet());
+        return user;
+    }
+
+    private static ActorProvider.IRCChannel channel(ActorProvider provider, String name) {
+        ActorProvider.IRCChannel channel = provider.getChannel(name);
+        provider.trackChannel(channel);
+        return channel;
+    }
+
+    private static Set<String> channels(ActorProvider provider, String nick) {
+        ActorProvider.IRCUser user = provider.getUser(nick);
+        return (user == null) ? Collections.emptySet() : user.snapshot().getChannels();
+    }
+
+    /**
+     * Tests joining adds to the channels of a nick.
+     */
+    @Test
+    public void testMembershipJoin() {
+        ActorProvider provider = new ActorProvider(new FakeClient());
+        ActorProvider.IRCChannel cats = channel(provider, "#cats");
+        ActorProvider.IRCChannel dogs = channel(provider, "#dogs");
+        join(provider, cats, "meow!cat@kitteh.org");
+        Assert.assertEquals(Collections.singleton("#cats"), channels(provider, "meow"));
+        join(provider, dogs, "meow!cat@kitteh.org");
+        Assert.assertEquals(new HashSet<>(Arrays.asList("#cats", "#dogs")), channels(provider, "MEOW"));
+    }
+
+    /**
+     * Tests parting removes only the parted channel.
+     */
+    @Test
+    public void testMembershipPart() {
+        ActorProvider provider = new ActorProvider(new FakeClient());
+        ActorProvider.IRCChannel cats = channel(provider, "#cats");
+        ActorProvider.IRCChannel dogs = channel(provider, "#dogs");
+        join(provider, cats, "meow!cat@kitteh.org");
+        join(provider, dogs, "meow!cat@kitteh.org");
+        cats.trackUserPart("meow");
+        Assert.assertEquals(Collections.singleton("#dogs"), channels(provider, "meow"));
+        dogs.trackUserPart("meow");
+        Assert.assertNull(provider.getUser("meow"));
+    }
+
+    /**
+     * Tests being kicked, which parts the kicked nick and, for the client
+     * itself, stops tracking the channel.
+     */
+    @Test
+    public void testMembershipKick() {
+        ActorProvider provider = new ActorProvider(new FakeClient());
+        ActorProvider.IRCChannel cats = channel(provider, "#cats");
+        ActorProvider.IRCChannel dogs = channel(provider, "#dogs");
+        join(provider, cats, "Kitteh!kitteh@kitteh.org");
+        join(provider, cats, "meow!cat@kitteh.org");
+        join(provider, cats, "purr!cat@kitteh.org");
+        join(provider, dogs, "purr!cat@kitteh.org");
+        cats.trackUserPart("meow");
+        Assert.assertNull(provider.getUser("meow"));
+        cats.trackUserPart("Kitteh");
+        provider.unTrackChannel(cats);
+        Assert.assertEquals(Collections.singleton("#dogs"), channels(provider, "purr"));
+    }
+
+    /**
+     * Tests quitting removes every channel.
+     */
+    @Test
+    public void testMembershipQuit() {
+        ActorProvider provider = new ActorProvider(new FakeClient());
+        ActorProvider.IRCChannel cats = channel(provider, "#cats");
+        ActorProvider.IRCChannel dogs = channel(provider, "#dogs");
+        join(provider, cats, "meow!cat@kitteh.org");
+        join(provider, dogs, "meow!cat@kitteh.org");
+        provider.trackUserQuit("meow");
+        Assert.assertNull(provider.getUser("meow"));
+        ActorProvider.IRCUser rejoined = join(provider, dogs, "meow!cat@kitteh.org");
+        Assert.assertEquals(Collections.singleton("#dogs"), rejoined.snapshot().getChannels());
+    }
+
+    /**
+     * Tests a nick change moves the channels to the new nick.
+     */
+    @Test
+    public void testMembershipNickChange() {
+        ActorProvider provider = new ActorProvider(new FakeClient());
+        ActorProvider.IRCChannel cats = channel(provider, "#cats");
+        ActorProvider.IRCChannel dogs = channel(provider, "#dogs");
+        join(provider, cats, "meow!cat@kitteh.org");
+        join(provider, dogs, "meow!cat@kitteh.org");
+        provider.trackUserNickChange("meow", "purr");
+        Assert.assertNull(provider.getUser("meow"));
+        Assert.assertEquals(new HashSet<>(Arrays.asList("#cats", "#dogs")), channels(provider, "purr"));
+        cats.trackUserPart("purr");
+        Assert.assertEquals(Collections.singleton("#dogs"), channels(provider, "purr"));
+    }
+
+    /**
+     * Tests snapshot hashes follow a change of case mapping.
+     */
+    @Test
+    public void testNameHashCaseMappingChange() {
+        FakeClient client = new FakeClient();
+        ManagerISupport manager = new ManagerISupport(client);
+        ActorProvider provider = new ActorProvider(client);
+        client.getServerInfo().addISupportParameter(manager.getParameter(ISupportParameter.CaseMapping.NAME + "=ascii"));
+        ActorProvider.IRCUserSnapshot square = ((ActorProvider.IRCUser) provider.getActor("[meow]!cat@kitteh.org")).snapshot();
+        ActorProvider.IRCUserSnapshot curly = ((ActorProvider.IRCUser) provider.getActor("{meow}!cat@kitteh.org")).snapshot();
+        Assert.assertNotEquals(square, curly);
+        square.hashCode();
+        curly.hashCode();
+        client.getServerInfo().addISupportParameter(manager.getParameter(ISupportParameter.CaseMapping.NAME + "=rfc1459"));
+        Assert.assertEquals(square, curly);
+        Assert.assertEquals(square.hashCode(), curly.hashCode());
+    }
+
+    /**
+     * Tests channel snapshots are reused while unchanged, and that a new
+     * snapshot after a change shares unchanged members with the last.
+     */
+    @Test
+    public void testChannelSnapshots() {
+        FakeClient client = new FakeClient();
+        ActorProvider provider = new ActorProvider(client);
+        ActorProvider.IRCChannel cats = channel(provider, "#cats");
+        join(provider, cats, "meow!cat@kitteh.org");
+        join(provider, cats, "purr!cat@kitteh.org");
+        Channel first = cats.snapshot();
+        Assert.assertSame(first, cats.snapshot());
+
+        ChannelUserMode op = client.getServerInfo().getChannelUserMode('o').get();
+        cats.trackUserModeAdd("meow", op);
+        Channel second = cats.snapshot();
+        Assert.assertNotSame(first, second);
+        Assert.assertTrue(second.getUserModes("meow").get().contains(op));
+        Assert.assertFalse(first.getUserModes("meow").get().contains(op));
+        Assert.assertSame(first.getUser("purr").get(), second.getUser("purr").get());
+        Assert.assertSame(second, cats.snapshot());
+
+        cats.trackUserPart("purr");
+        Channel third = cats.snapshot();
+        Assert.assertEquals(Collections.singletonList("meow"), third.getNicknames());
+        Assert.assertEquals(Arrays.asList("meow", "purr"), second.getNicknames());
+        Assert.assertFalse(third.getUser("purr").isPresent());
+    }
+}
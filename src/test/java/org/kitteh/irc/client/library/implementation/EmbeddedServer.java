@@ -0,0 +1,62 @@
+package org.kitteh.irc.client.library.implementation;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.CharsetUtil;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * An embedded channel standing in for the server a client is connected to.
+ */
+class EmbeddedServer {
+    private final EmbeddedChannel channel = new EmbeddedChannel();
+    private final NettyManager.ClientConnection connection;
+
+    /**
+     * Connects a client. The client's config should have SSL disabled.
+     *
+     * @param client client to connect
+     */
+    EmbeddedServer(@Nonnull IRCClient client) {
+        this.connection = client.connect(this.channel);
+    }
+
+    @Nonnull
+    EmbeddedChannel getChannel() {
+        return this.channel;
+    }
+
+    @Nonnull
+    NettyManager.ClientConnection getConnection() {
+        return this.connection;
+    }
+
+    /**
+     * Sends a line to the client.
+     *
+     * @param line line, without line ending
+     */
+    void send(@Nonnull String line) {
+        this.channel.writeInbound(Unpooled.copiedBuffer(line + "\r\n", CharsetUtil.UTF_8));
+    }
+
+    /**
+     * Receives the next line written by the client.
+     *
+     * @return line, without line ending, or null if none
+     */
+    @Nullable
+    String receive() {
+        this.channel.runPendingTasks();
+        ByteBuf buf = this.channel.readOutbound();
+        if (buf == null) {
+            return null;
+        }
+        String line = buf.toString(CharsetUtil.UTF_8);
+        buf.release();
+        return line.endsWith("\r\n") ? line.substring(0, line.length() - 2) : line;
+    }
+}
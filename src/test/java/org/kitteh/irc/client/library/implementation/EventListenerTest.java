@@ -1,5 +1,7 @@
 package org.kitteh.irc.client.library.implementation;
 
+import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
 import org.junit.Before;
 import org.junit.Test;
 import org.kitteh.irc.client.library.element.ISupportParameter;
@@ -9,7 +11,6 @@ import org.kitteh.irc.client.library.event.client.ClientReceiveNumericEvent;
 import org.kitteh.irc.client.library.event.user.WallopsEvent;
 import org.kitteh.irc.client.library.exception.KittehServerMessageException;
 import org.kitteh.irc.client.library.feature.CaseMapping;
-import org.kitteh.irc.client.library.util.StringUtil;
 import org.mockito.ArgumentMatcher;
 import org.mockito.Mockito;
 
@@ -25,6 +26,7 @@ public class EventListenerTest {
     private InternalClient client;
     private ActorProvider actorProvider;
     private ManagerEvent eventManager;
+    private EventListener eventListener;
     private Listener<Exception> exceptionListener;
     private IRCServerInfo serverInfo;
 
@@ -36,7 +38,7 @@ public class EventListenerTest {
         this.client = Mockito.mock(InternalClient.class);
         this.actorProvider = new ActorProvider(this.client);
         this.eventManager = Mockito.spy(new ManagerEvent(this.client));
-        this.eventManager.registerEventListener(new EventListener(this.client));
+        this.eventListener = new EventListener(this.client);
         this.exceptionListener = Mockito.mock(Listener.class);
         this.serverInfo = Mockito.mock(IRCServerInfo.class);
         Mockito.when(this.client.getServerInfo()).thenReturn(this.serverInfo);
@@ -49,55 +51,21 @@ public class EventListenerTest {
     // BEGIN TODO - not have this be stolen from IRCClient
 
     private void fireLine(String line) {
-        final String[] split = line.split(" ");
+        final IRCLine ircLine = IRCLine.parse(Unpooled.copiedBuffer(line, CharsetUtil.UTF_8));
 
-        int index = 0;
-
-        if (split[index].startsWith("@")) {
-            index++;
-        }
-
-        final String actorName;
-        if (split[index].startsWith(":")) {
-            actorName = split[index].substring(1);
-            index++;
-        } else {
-            actorName = "";
-        }
-        final ActorProvider.IRCActor actor = this.actorProvider.getActor(actorName);
-
-        if (split.length <= index) {
-            throw new KittehServerMessageException(line, "Server sent a message without a command");
-        }
-
-        final String commandString = split[index++];
-
-        final List<String> args = this.handleArgs(split, index);
+        final ActorProvider.IRCActor actor = this.actorProvider.getActor(ircLine.getPrefix());
 
         final IRCServerMessage serverMessage = new IRCServerMessage(line, new LinkedList<>());
 
-        try {
-            int numeric = Integer.parseInt(commandString);
-            this.eventManager.callEvent(new ClientReceiveNumericEvent(this.client, serverMessage, actor.snapshot(), commandString, numeric, args));
-        } catch (NumberFormatException exception) {
-            this.eventManager.callEvent(new ClientReceiveCommandEvent(this.client, serverMessage, actor.snapshot(), commandString, args));
-        }
-    }
-
-    private List<String> handleArgs(@Nonnull String[] split, int start) {
-        final List<String> argsList = new LinkedList<>();
-
-        int index = start;
-        for (; index < split.length; index++) {
-            if (split[index].startsWith(":")) {
-                split[index] = split[index].substring(1);
-                argsList.add(StringUtil.combineSplit(split, index));
-                break;
-            }
-            argsList.add(split[index]);
+        if (ircLine.isNumeric()) {
+            ClientReceiveNumericEvent event = new ClientReceiveNumericEvent(this.client, serverMessage, actor.snapshot(), ircLine.getCommand(), ircLine.getNumeric(), ircLine.getParameters());
+            this.eventListener.handle(event);
+            this.eventManager.callEvent(event);
+        } else {
+            ClientReceiveCommandEvent event = new ClientReceiveCommandEvent(this.client, serverMessage, actor.snapshot(), ircLine.getCommand(), ircLine.getParameters());
+            this.eventListener.handle(event);
+            this.eventManager.callEvent(event);
         }
-
-        return argsList;
     }
 
     // END TODO
@@ -1,9 +1,26 @@
 package org.kitteh.irc.client.library.implementation;
 
+import net.engio.mbassy.bus.MBassador;
+import net.engio.mbassy.bus.common.DeadMessage;
 import net.engio.mbassy.listener.Handler;
 import org.junit.Assert;
 import org.junit.Test;
+import org.kitteh.irc.client.library.element.Actor;
+import org.kitteh.irc.client.library.element.ServerMessage;
+import org.kitteh.irc.client.library.event.client.ClientConnectedEvent;
+import org.kitteh.irc.client.library.event.client.ClientReceiveCommandEvent;
+import org.kitteh.irc.client.library.event.client.ClientReceiveNumericEvent;
 import org.kitteh.irc.client.library.feature.EventManager;
+import org.kitteh.irc.client.library.feature.filter.CommandFilter;
+import org.kitteh.irc.client.library.feature.filter.NumericFilter;
+import org.mockito.Mockito;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Confirm an event listener can be registered and an event fired.
@@ -35,4 +52,117 @@ public class EventTest {
     public void eventHandler(Event e) {
         e.success = true;
     }
+
+    private class FilteredListener {
+        private final List<String> received = new ArrayList<>();
+
+        @CommandFilter("PRIVMSG")
+        @CommandFilter("NOTICE")
+        @Handler
+        public void message(ClientReceiveCommandEvent event) {
+            this.received.add(event.getCommand());
+        }
+
+        @NumericFilter(1)
+        @Handler
+        public void welcome(ClientReceiveNumericEvent event) {
+            this.received.add(event.getCommand());
+        }
+
+        @Handler
+        public void everything(ClientReceiveCommandEvent event) {
+            this.received.add("*" + event.getCommand());
+        }
+    }
+
+    /**
+     * Tests command and numeric filtered handlers only receive their lines.
+     */
+    @Test
+    public void testFilteredEvents() {
+        FakeClient fakeClient = new FakeClient();
+        FilteredListener listener = new FilteredListener();
+        fakeClient.getEventManager().registerEventListener(listener);
+        ServerMessage message = Mockito.mock(ServerMessage.class);
+        Actor actor = Mockito.mock(Actor.class);
+        Mockito.when(actor.getClient()).thenReturn(fakeClient);
+        List<String> none = new ArrayList<>();
+        fakeClient.getEventManager().callEvent(new ClientReceiveCommandEvent(fakeClient, message, actor, "privmsg", none));
+        fakeClient.getEventManager().callEvent(new ClientReceiveCommandEvent(fakeClient, message, actor, "JOIN", none));
+        fakeClient.getEventManager().callEvent(new ClientReceiveNumericEvent(fakeClient, message, actor, "001", 1, none));
+        fakeClient.getEventManager().callEvent(new ClientReceiveNumericEvent(fakeClient, message, actor, "002", 2, none));
+        fakeClient.getEventManager().callEvent(new ClientReceiveCommandEvent(fakeClient, message, actor, "NOTICE", none));
+        Assert.assertEquals(6, listener.received.size());
+        Assert.assertTrue(listener.received.remove("privmsg"));
+        Assert.assertTrue(listener.received.remove("001"));
+        Assert.assertTrue(listener.received.remove("NOTICE"));
+        Assert.assertTrue(listener.received.remove("*privmsg"));
+        Assert.assertTrue(listener.received.remove("*JOIN"));
+        Assert.assertTrue(listener.received.remove("*NOTICE"));
+    }
+
+    /**
+     * Tests an actor supplied lazily is only snapshotted once, on access.
+     */
+    @Test
+    public void testLazyActor() {
+        FakeClient fakeClient = new FakeClient();
+        ServerMessage message = Mockito.mock(ServerMessage.class);
+        Actor actor = Mockito.mock(Actor.class);
+        Mockito.when(actor.getClient()).thenReturn(fakeClient);
+        AtomicInteger calls = new AtomicInteger();
+        ClientReceiveCommandEvent event = new ClientReceiveCommandEvent(fakeClient, message, () -> {
+            calls.incrementAndGet();
+            return actor;
+        }, "PRIVMSG", new ArrayList<>());
+        Assert.assertEquals(0, calls.get());
+        Assert.assertSame(actor, event.getActor());
+        Assert.assertSame(actor, event.getActor());
+        Assert.assertEquals(1, calls.get());
+    }
+
+    private class DeadListener {
+        @Handler
+        public void dead(DeadMessage message) {
+        }
+    }
+
+    /**
+     * Tests the subscriber table follows registration, including supertypes
+     * and dead message handlers.
+     */
+    @Test
+    public void testHasSubscribers() {
+        FakeClient fakeClient = new FakeClient();
+        ManagerEvent manager = (ManagerEvent) fakeClient.getEventManager();
+        Assert.assertFalse(manager.hasSubscribers(ClientReceiveCommandEvent.class));
+        FilteredListener listener = new FilteredListener();
+        manager.registerEventListener(listener);
+        Assert.assertTrue(manager.hasSubscribers(ClientReceiveCommandEvent.class));
+        Assert.assertTrue(manager.hasSubscribers(ClientReceiveNumericEvent.class));
+        Assert.assertFalse(manager.hasSubscribers(ClientConnectedEvent.class));
+        manager.unregisterEventListener(listener);
+        Assert.assertFalse(manager.hasSubscribers(ClientReceiveCommandEvent.class));
+        manager.registerEventListener(new DeadListener());
+        Assert.assertTrue(manager.hasSubscribers(ClientConnectedEvent.class));
+    }
+
+    /**
+     * Tests a shared executor outlives the bus it was given to.
+     *
+     * @throws ReflectiveOperationException if the bus is not where expected
+     */
+    @Test
+    public void testSharedExecutorNotShutDown() throws ReflectiveOperationException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            ManagerEvent manager = new ManagerEvent(new FakeClient(), executor);
+            Field bus = ManagerEvent.class.getDeclaredField("bus");
+            bus.setAccessible(true);
+            ((MBassador<?>) bus.get(manager)).shutdown();
+            Assert.assertFalse(executor.isShutdown());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 }
@@ -9,9 +9,12 @@ import org.kitteh.irc.client.library.feature.AuthManager;
 import org.kitteh.irc.client.library.feature.EventManager;
 import org.kitteh.irc.client.library.util.Cutter;
 import org.kitteh.irc.client.library.util.Pair;
+import org.kitteh.irc.client.library.util.QueuedMessage;
+import org.kitteh.irc.client.library.util.RateLimiter;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Optional;
@@ -31,7 +34,7 @@ class FakeClient extends InternalClient {
     private final IRCServerInfo serverInfo = new IRCServerInfo(this);
 
     @Override
-    void processLine(@Nonnull String line) {
+    void processLine(@Nonnull IRCLine line) {
 
     }
 
@@ -60,6 +63,11 @@ class FakeClient extends InternalClient {
 
     }
 
+    @Override
+    void throttled() {
+
+    }
+
     @Override
     void updateUserModes(@Nonnull ModeStatusList<UserMode> userModes) {
 
@@ -127,6 +135,12 @@ class FakeClient extends InternalClient {
 
     }
 
+    @Nonnull
+    @Override
+    RateLimiter getRateLimiter() {
+        return new RateLimiter.TokenBucket(DEFAULT_MESSAGE_BURST, this.getMessageDelay());
+    }
+
     @Nonnull
     @Override
     String getRequestedNick() {
@@ -144,6 +158,11 @@ class FakeClient extends InternalClient {
         return null;
     }
 
+    @Override
+    void pong(@Nonnull String purr) {
+
+    }
+
     @Override
     void ping() {
 
@@ -306,6 +325,16 @@ class FakeClient extends InternalClient {
 
     }
 
+    @Override
+    public void sendMessageToAll(@Nonnull Collection<String> targets, @Nonnull String message) {
+
+    }
+
+    @Override
+    public void sendNoticeToAll(@Nonnull Collection<String> targets, @Nonnull String message) {
+
+    }
+
     @Override
     public void sendRawLine(@Nonnull String message) {
 
@@ -316,6 +345,12 @@ class FakeClient extends InternalClient {
 
     }
 
+    @Nonnull
+    @Override
+    public QueuedMessage sendRawLineQueued(@Nonnull String message) {
+        return null;
+    }
+
     @Override
     public void sendRawLineImmediately(@Nonnull String message) {
 
@@ -0,0 +1,109 @@
+package org.kitteh.irc.client.library.implementation;
+
+import io.netty.buffer.Unpooled;
+import io.netty.util.CharsetUtil;
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitteh.irc.client.library.exception.KittehServerMessageException;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+/**
+ * Tests tokenizing server lines.
+ */
+public class IRCLineTest {
+    private static IRCLine parse(String line) {
+        return IRCLine.parse(Unpooled.copiedBuffer(line, CharsetUtil.UTF_8));
+    }
+
+    /**
+     * Tests a line with every section present.
+     */
+    @Test
+    public void full() {
+        IRCLine line = parse("@time=2016-01-01T00:00:00.000Z;meow :kitteh!~cat@kitteh.org PRIVMSG #cats :Hello  there, cats ");
+        Assert.assertEquals("time=2016-01-01T00:00:00.000Z;meow", line.getTags());
+        Assert.assertEquals("kitteh!~cat@kitteh.org", line.getPrefix());
+        Assert.assertEquals("PRIVMSG", line.getCommand());
+        Assert.assertEquals(Arrays.asList("#cats", "Hello  there, cats "), line.getParameters());
+    }
+
+    /**
+     * Tests a line with only a command and middle parameters.
+     */
+    @Test
+    public void bare() {
+        IRCLine line = parse("PING  irc.network");
+        Assert.assertNull(line.getTags());
+        Assert.assertEquals("", line.getPrefix());
+        Assert.assertEquals("PING", line.getCommand());
+        Assert.assertEquals(Collections.singletonList("irc.network"), line.getParameters());
+    }
+
+    /**
+     * Tests an empty trailing parameter and multibyte content.
+     */
+    @Test
+    public void trailing() {
+        IRCLine line = parse(":irc.network 332 Kitteh #cats :");
+        Assert.assertEquals(Arrays.asList("Kitteh", "#cats", ""), line.getParameters());
+        Assert.assertEquals(Collections.singletonList("ü ☃"), parse("TOPIC :ü ☃").getParameters());
+    }
+
+    /**
+     * Tests that the raw line is preserved.
+     */
+    @Test
+    public void raw() {
+        String raw = ":irc.network 001 Kitteh :Welcome";
+        Assert.assertEquals(raw, parse(raw).getRaw());
+    }
+
+    /**
+     * Tests a prefix without a command.
+     */
+    @Test(expected = KittehServerMessageException.class)
+    public void noCommand() {
+        parse(":irc.network");
+    }
+
+    /**
+     * Tests tags without a command.
+     */
+    @Test(expected = KittehServerMessageException.class)
+    public void tagsOnly() {
+        parse("@meow :irc.network ");
+    }
+
+    /**
+     * Tests three digit numerics are classified without parsing exceptions.
+     */
+    @Test
+    public void numeric() {
+        IRCLine line = parse(":irc.network 001 Kitteh :Welcome");
+        Assert.assertTrue(line.isNumeric());
+        Assert.assertEquals(1, line.getNumeric());
+        Assert.assertEquals("001", line.getCommand());
+        Assert.assertEquals(433, parse(":irc.network 433 * Kitteh :Nickname is already in use").getNumeric());
+        Assert.assertFalse(parse(":irc.network 0a1 Kitteh").isNumeric());
+        Assert.assertFalse(parse(":irc.network 1234 Kitteh").isNumeric());
+        Assert.assertFalse(parse(":irc.network 12 Kitteh").isNumeric());
+    }
+
+    /**
+     * Tests known commands are handed out as their shared constant, and
+     * that every command keeps the case it was sent in.
+     */
+    @Test
+    public void knownCommand() {
+        IRCLine line = parse(":kitteh!~cat@kitteh.org PRIVMSG #cats :meow");
+        Assert.assertFalse(line.isNumeric());
+        Assert.assertSame("PRIVMSG", line.getCommand());
+        Assert.assertEquals("privmsg", parse(":kitteh!~cat@kitteh.org privmsg #cats :meow").getCommand());
+        Assert.assertEquals("Join", parse(":kitteh!~cat@kitteh.org Join #cats").getCommand());
+        Assert.assertSame("JOIN", parse(":kitteh!~cat@kitteh.org JOIN #cats").getCommand());
+        Assert.assertEquals("MEOW", parse("MEOW").getCommand());
+        Assert.assertEquals("joinx", parse("joinx #cats").getCommand());
+    }
+}
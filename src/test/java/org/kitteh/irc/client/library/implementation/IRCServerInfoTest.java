@@ -0,0 +1,61 @@
+package org.kitteh.irc.client.library.implementation;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitteh.irc.client.library.element.ISupportParameter;
+import org.kitteh.irc.client.library.element.mode.ChannelUserMode;
+import org.mockito.Mockito;
+
+/**
+ * Tests the cached server info lookups.
+ */
+public class IRCServerInfoTest {
+    /**
+     * Tests the defaults.
+     */
+    @Test
+    public void testDefaults() {
+        IRCServerInfo serverInfo = new IRCServerInfo(this.getClient());
+        Assert.assertEquals('o', serverInfo.getChannelUserModeByPrefix('@').getChar());
+        Assert.assertNull(serverInfo.getChannelUserModeByPrefix('%'));
+        Assert.assertTrue(serverInfo.getChannelMode('k').isPresent());
+        Assert.assertTrue(serverInfo.isValidChannel("#kitteh"));
+        Assert.assertFalse(serverInfo.isValidChannel("#"));
+        Assert.assertFalse(serverInfo.isValidChannel("kitteh"));
+        Assert.assertFalse(serverInfo.isValidChannel("#kit,teh"));
+        Assert.assertSame(serverInfo.getChannelUserModes(), serverInfo.getChannelUserModes());
+        ChannelUserMode op = serverInfo.getTargetedChannelInfo("@#kitteh");
+        Assert.assertNotNull(op);
+        Assert.assertEquals('o', op.getChar());
+        Assert.assertNull(serverInfo.getTargetedChannelInfo("#kitteh"));
+    }
+
+    /**
+     * Tests lookups follow new ISUPPORT parameters.
+     */
+    @Test
+    public void testUpdate() {
+        InternalClient client = this.getClient();
+        IRCServerInfo serverInfo = new IRCServerInfo(client);
+        ManagerISupport manager = new ManagerISupport(client);
+        Assert.assertNull(serverInfo.getChannelUserModeByPrefix('%'));
+        serverInfo.addISupportParameter(manager.getParameter(ISupportParameter.Prefix.NAME + "=(ohv)@%+"));
+        serverInfo.addISupportParameter(manager.getParameter(ISupportParameter.ChanTypes.NAME + "=#"));
+        serverInfo.addISupportParameter(manager.getParameter(ISupportParameter.ChannelLen.NAME + "=5"));
+        Assert.assertEquals('h', serverInfo.getChannelUserModeByPrefix('%').getChar());
+        Assert.assertTrue(serverInfo.getChannelUserMode('h').isPresent());
+        Assert.assertEquals(3, serverInfo.getChannelUserModes().size());
+        Assert.assertFalse(serverInfo.isValidChannel("&kitteh"));
+        Assert.assertFalse(serverInfo.isValidChannel("#kitteh"));
+        Assert.assertTrue(serverInfo.isValidChannel("#kit"));
+        serverInfo.reset();
+        Assert.assertNull(serverInfo.getChannelUserModeByPrefix('%'));
+        Assert.assertTrue(serverInfo.isValidChannel("&kitteh"));
+    }
+
+    private InternalClient getClient() {
+        InternalClient client = Mockito.mock(InternalClient.class);
+        Mockito.when(client.getExceptionListener()).thenReturn(new Listener<>("Client", null));
+        return client;
+    }
+}
@@ -98,6 +98,31 @@ public class ISupportManagerTest {
         Assert.assertEquals(3, limit.getLimits().get('!').intValue());
     }
 
+    /**
+     * Tests targmax.
+     */
+    @Test
+    public void targMax() {
+        ManagerISupport manager = this.getManager();
+        ISupportParameter param = manager.getParameter(ISupportParameter.TargMax.NAME + "=PRIVMSG:4,notice:3,JOIN:");
+        Assert.assertTrue(ISupportParameter.TargMax.class.isAssignableFrom(param.getClass()));
+        ISupportParameter.TargMax targMax = (ISupportParameter.TargMax) param;
+        Assert.assertEquals(3, targMax.getLimits().size());
+        Assert.assertEquals(4, targMax.getLimits().get("PRIVMSG").intValue());
+        Assert.assertEquals(3, targMax.getLimits().get("NOTICE").intValue());
+        Assert.assertEquals(Integer.MAX_VALUE, targMax.getLimits().get("JOIN").intValue());
+    }
+
+    /**
+     * Tests targmax.
+     */
+    @Test
+    public void targMaxFailValueInt() {
+        ManagerISupport manager = this.getManager();
+        Assert.assertFalse(ISupportParameter.TargMax.class.isAssignableFrom(manager.getParameter(ISupportParameter.TargMax.NAME + "=PRIVMSG:MEOW").getClass()));
+        this.verifyException(manager);
+    }
+
     /**
      * Tests chanlimit.
      */
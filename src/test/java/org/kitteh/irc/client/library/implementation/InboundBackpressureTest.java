@@ -0,0 +1,102 @@
+package org.kitteh.irc.client.library.implementation;
+
+import net.engio.mbassy.listener.Handler;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kitteh.irc.client.library.event.client.ClientReceiveCommandEvent;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests reading from the server pauses while the client is behind.
+ */
+public class InboundBackpressureTest {
+    private static final int CAPACITY = 4;
+
+    /**
+     * Holds up processing of each line until released.
+     */
+    public static class Gate {
+        private final Semaphore permits = new Semaphore(0);
+
+        @Handler
+        public void command(ClientReceiveCommandEvent event) throws InterruptedException {
+            this.permits.acquire();
+        }
+    }
+
+    private ExecutorService executor;
+    private IRCClient client;
+    private EmbeddedServer server;
+    private Gate gate;
+
+    /**
+     * Connects a client to an embedded channel.
+     */
+    @Before
+    public void connect() {
+        this.executor = Executors.newSingleThreadExecutor();
+        Config config = new Config();
+        config.set(Config.SSL, false);
+        config.set(Config.EXECUTOR, this.executor);
+        config.set(Config.INBOUND_CAPACITY, CAPACITY);
+        this.client = new IRCClient(config);
+        this.gate = new Gate();
+        this.client.getEventManager().registerEventListener(this.gate);
+        this.server = new EmbeddedServer(this.client);
+    }
+
+    /**
+     * Lets anything still held up finish.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @After
+    public void shutdown() throws InterruptedException {
+        this.gate.permits.release(1000);
+        this.awaitPending(0);
+        this.executor.shutdown();
+        Assert.assertTrue(this.executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Tests reading stops at capacity and resumes at half capacity, with
+     * pings answered in between.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void pauseAndResume() throws InterruptedException {
+        for (int i = 1; i < CAPACITY; i++) {
+            this.server.send(":irc.network MEOW " + i);
+        }
+        Assert.assertTrue(this.server.getChannel().config().isAutoRead());
+        this.server.send(":irc.network MEOW " + CAPACITY);
+        Assert.assertFalse(this.server.getChannel().config().isAutoRead());
+
+        this.server.send("PING :purr");
+        Assert.assertEquals("PONG :purr", this.server.receive());
+
+        // One processed, three left, still above half
+        this.gate.permits.release();
+        this.awaitPending(CAPACITY - 1);
+        Assert.assertFalse(this.server.getChannel().config().isAutoRead());
+        this.gate.permits.release();
+        this.awaitPending(CAPACITY / 2);
+        Assert.assertTrue(this.server.getChannel().config().isAutoRead());
+    }
+
+    private void awaitPending(int pending) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        // Held at the gate again only once done with the previous line
+        while ((this.client.getInboundPending() != pending) || ((pending > 0) && !this.gate.permits.hasQueuedThreads())) {
+            Assert.assertTrue("Timed out", System.nanoTime() < deadline);
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package org.kitteh.irc.client.library.implementation;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitteh.irc.client.library.element.ISupportParameter;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Tests combining JOIN and PART lines.
+ */
+public class LineCombinerTest {
+    /**
+     * Tests joins combine, keyed channels first.
+     */
+    @Test
+    public void testJoin() {
+        LineCombiner combiner = new LineCombiner(command -> -1);
+        Assert.assertEquals("JOIN #a,#b", combiner.apply("JOIN #a", "JOIN #b"));
+        Assert.assertEquals("JOIN #b,#a key", combiner.apply("JOIN #a", "JOIN #b key"));
+        Assert.assertEquals("JOIN #a,#c,#b one,two", combiner.apply("JOIN #a,#b one", "JOIN #c :two"));
+        Assert.assertNull(combiner.apply("JOIN #a", "JOIN 0"));
+        Assert.assertNull(combiner.apply("JOIN #a", "PRIVMSG #a :hi"));
+    }
+
+    /**
+     * Tests parts combine only with the same reason.
+     */
+    @Test
+    public void testPart() {
+        LineCombiner combiner = new LineCombiner(command -> -1);
+        Assert.assertEquals("PART #a,#b", combiner.apply("PART #a", "PART #b"));
+        Assert.assertEquals("PART #a,#b :bye", combiner.apply("PART #a :bye", "PART #b :bye"));
+        Assert.assertNull(combiner.apply("PART #a :bye", "PART #b"));
+        Assert.assertNull(combiner.apply("PART #a", "JOIN #b"));
+    }
+
+    /**
+     * Tests the target and length limits.
+     */
+    @Test
+    public void testLimits() {
+        LineCombiner combiner = new LineCombiner(command -> command.equals("JOIN") ? 2 : 1);
+        Assert.assertEquals("JOIN #a,#b", combiner.apply("JOIN #a", "JOIN #b"));
+        Assert.assertNull(combiner.apply("JOIN #a,#b", "JOIN #c"));
+        Assert.assertNull(combiner.apply("PART #a", "PART #b"));
+        StringBuilder longName = new StringBuilder("#");
+        while (longName.length() < 300) {
+            longName.append('a');
+        }
+        Assert.assertNull(new LineCombiner(command -> -1).apply("JOIN " + longName, "JOIN " + longName));
+    }
+
+    /**
+     * Tests joins and parts still combine when TARGMAX or MAXTARGETS
+     * leaves them out, as most servers do.
+     */
+    @Test
+    public void testServerLimits() {
+        InternalClient client = Mockito.mock(InternalClient.class);
+        Mockito.when(client.getExceptionListener()).thenReturn(new Listener<>("Client", null));
+        IRCServerInfo serverInfo = new IRCServerInfo(client);
+        ManagerISupport manager = new ManagerISupport(client);
+        LineCombiner combiner = new LineCombiner(serverInfo::getTargetLimit);
+        serverInfo.addISupportParameter(manager.getParameter(ISupportParameter.MaxTargets.NAME + "=4"));
+        Assert.assertEquals("JOIN #a,#b", combiner.apply("JOIN #a", "JOIN #b"));
+        Assert.assertEquals(4, serverInfo.getTargetLimit("PRIVMSG"));
+        serverInfo.addISupportParameter(manager.getParameter(ISupportParameter.TargMax.NAME + "=NAMES:1,LIST:1,KICK:1,WHOIS:1,PRIVMSG:4,NOTICE:4,ACCEPT:,MONITOR:"));
+        Assert.assertEquals("JOIN #a,#b", combiner.apply("JOIN #a", "JOIN #b"));
+        Assert.assertEquals("PART #a,#b", combiner.apply("PART #a", "PART #b"));
+        Assert.assertEquals(1, serverInfo.getTargetLimit("TOPIC"));
+        serverInfo.addISupportParameter(manager.getParameter(ISupportParameter.TargMax.NAME + "=JOIN:1,PRIVMSG:4"));
+        Assert.assertNull(combiner.apply("JOIN #a", "JOIN #b"));
+        Assert.assertEquals("PART #a,#b", combiner.apply("PART #a", "PART #b"));
+    }
+
+    /**
+     * Tests draining the queue combines joins across targets.
+     */
+    @Test
+    public void testQueue() {
+        OutboundQueue queue = new OutboundQueue();
+        queue.add("JOIN #a");
+        queue.add("JOIN #b key");
+        queue.add("PRIVMSG #a :hi");
+        queue.add("JOIN #c");
+        Assert.assertEquals("JOIN #b,#a,#c key", queue.poll(new LineCombiner(command -> -1)));
+        Assert.assertEquals("PRIVMSG #a :hi", queue.poll(new LineCombiner(command -> -1)));
+        Assert.assertNull(queue.poll());
+    }
+
+    /**
+     * Tests packing targets by target limit.
+     */
+    @Test
+    public void testPackTargets() {
+        List<String> targets = Arrays.asList("#a", "#b", "#c", "bob", "#e");
+        Assert.assertEquals(Arrays.asList("PRIVMSG #a,#b :hi", "PRIVMSG #c,bob :hi", "PRIVMSG #e :hi"), LineCombiner.packTargets("PRIVMSG", targets, " :hi", 2));
+        Assert.assertEquals(Arrays.asList("NOTICE #a,#b,#c,bob,#e :hi"), LineCombiner.packTargets("NOTICE", targets, " :hi", Integer.MAX_VALUE));
+        Assert.assertEquals(5, LineCombiner.packTargets("PRIVMSG", targets, " :hi", -1).size());
+    }
+
+    /**
+     * Tests packing targets by line length.
+     */
+    @Test
+    public void testPackTargetsLength() {
+        List<String> targets = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            targets.add("#channel" + i);
+        }
+        List<String> lines = LineCombiner.packTargets("PRIVMSG", targets, " :hello everyone", Integer.MAX_VALUE);
+        Assert.assertTrue(lines.size() > 1);
+        int count = 0;
+        for (String line : lines) {
+            Assert.assertTrue(line.length() <= LineCombiner.MAX_LINE_BYTES);
+            Assert.assertTrue(line.endsWith(" :hello everyone"));
+            count += line.substring(8, line.indexOf(' ', 8)).split(",").length;
+        }
+        Assert.assertEquals(200, count);
+    }
+}
@@ -0,0 +1,77 @@
+package org.kitteh.irc.client.library.implementation;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitteh.irc.client.library.element.mode.ChannelMode;
+import org.kitteh.irc.client.library.element.mode.ModeStatus;
+import org.kitteh.irc.client.library.element.mode.ModeStatusList;
+import org.kitteh.irc.client.library.element.mode.UserMode;
+
+import java.util.List;
+
+/**
+ * Tests parsing mode changes.
+ */
+public class ModeStatusListTest {
+    /**
+     * Tests channel modes with parameters spread across runs.
+     */
+    @Test
+    public void testChannel() {
+        FakeClient client = new FakeClient();
+        List<ModeStatus<ChannelMode>> statuses = ModeStatusList.fromChannel(client, "+ok-b Kitteh meow *!*@cat +t-l").getStatuses();
+        Assert.assertEquals(5, statuses.size());
+        Assert.assertEquals('o', statuses.get(0).getMode().getChar());
+        Assert.assertEquals("Kitteh", statuses.get(0).getParameter().get());
+        Assert.assertEquals("meow", statuses.get(1).getParameter().get());
+        Assert.assertFalse(statuses.get(2).isSetting());
+        Assert.assertEquals("*!*@cat", statuses.get(2).getParameter().get());
+        Assert.assertTrue(statuses.get(3).isSetting());
+        Assert.assertFalse(statuses.get(3).getParameter().isPresent());
+        Assert.assertEquals('l', statuses.get(4).getMode().getChar());
+        Assert.assertFalse(statuses.get(4).getParameter().isPresent());
+        Assert.assertEquals("+ok-b+t-l Kitteh meow *!*@cat", ModeStatusList.fromChannel(client, "+ok-b Kitteh meow *!*@cat +t-l").getStatusString());
+    }
+
+    /**
+     * Tests user modes.
+     */
+    @Test
+    public void testUser() {
+        List<ModeStatus<UserMode>> statuses = ModeStatusList.fromUser(new FakeClient(), "+iw-o").getStatuses();
+        Assert.assertEquals(3, statuses.size());
+        Assert.assertFalse(statuses.get(2).isSetting());
+    }
+
+    /**
+     * Tests a missing parameter.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingParameter() {
+        ModeStatusList.fromChannel(new FakeClient(), "+o");
+    }
+
+    /**
+     * Tests a missing parameter after a trailing space.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testMissingParameterTrailingSpace() {
+        ModeStatusList.fromChannel(new FakeClient(), "+o ");
+    }
+
+    /**
+     * Tests an unknown mode.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownMode() {
+        ModeStatusList.fromChannel(new FakeClient(), "+Q");
+    }
+
+    /**
+     * Tests a run without a leading sign.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoSign() {
+        ModeStatusList.fromChannel(new FakeClient(), "+t o");
+    }
+}
@@ -0,0 +1,229 @@
+package org.kitteh.irc.client.library.implementation;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.kitteh.irc.client.library.util.QueuedMessage;
+import org.kitteh.irc.client.library.util.RateLimiter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests the outbound lanes and target rotation.
+ */
+public class OutboundQueueTest {
+    /**
+     * Tests targets take turns within a lane.
+     */
+    @Test
+    public void testRoundRobin() {
+        OutboundQueue queue = new OutboundQueue();
+        queue.add("PRIVMSG Alice :one");
+        queue.add("PRIVMSG Alice :two");
+        queue.add("PRIVMSG Alice :three");
+        queue.add("PRIVMSG #channel :hi");
+        queue.add("NOTICE bob :hey");
+        Assert.assertEquals(5, queue.size());
+        Assert.assertEquals("PRIVMSG Alice :one", queue.peek());
+        Assert.assertEquals("PRIVMSG Alice :one", queue.poll());
+        Assert.assertEquals("PRIVMSG #channel :hi", queue.poll());
+        Assert.assertEquals("NOTICE bob :hey", queue.poll());
+        Assert.assertEquals("PRIVMSG Alice :two", queue.poll());
+        Assert.assertEquals("PRIVMSG Alice :three", queue.poll());
+        Assert.assertNull(queue.poll());
+        Assert.assertEquals(0, queue.size());
+    }
+
+    /**
+     * Tests earlier lanes go first.
+     */
+    @Test
+    public void testLanes() {
+        OutboundQueue queue = new OutboundQueue();
+        queue.add("WHO #channel %cuhsnfar");
+        queue.add("PRIVMSG #channel :hi");
+        queue.add("KICK #channel spammer");
+        queue.add("PRIVMSG NickServ :IDENTIFY meow");
+        queue.add("@label=1 :Kitteh NICK Kitten");
+        Assert.assertEquals("@label=1 :Kitteh NICK Kitten", queue.poll());
+        Assert.assertEquals("PRIVMSG NickServ :IDENTIFY meow", queue.poll());
+        Assert.assertEquals("KICK #channel spammer", queue.poll());
+        Assert.assertEquals("PRIVMSG #channel :hi", queue.poll());
+        Assert.assertEquals("WHO #channel %cuhsnfar", queue.poll());
+    }
+
+    /**
+     * Tests leaving a channel doesn't overtake messages sent to it first.
+     */
+    @Test
+    public void testPartAfterMessages() {
+        OutboundQueue queue = new OutboundQueue();
+        queue.add("PRIVMSG #channel :one");
+        queue.add("NOTICE #channel :two");
+        queue.add("PART #channel :bye");
+        queue.add("PRIVMSG #other :hi");
+        Assert.assertEquals("PRIVMSG #channel :one", queue.poll());
+        Assert.assertEquals("PRIVMSG #other :hi", queue.poll());
+        Assert.assertEquals("NOTICE #channel :two", queue.poll());
+        Assert.assertEquals("PART #channel :bye", queue.poll());
+        Assert.assertNull(queue.poll());
+    }
+
+    /**
+     * Tests rejoining a channel waits for leaving it first.
+     */
+    @Test
+    public void testPartThenJoin() {
+        OutboundQueue queue = new OutboundQueue();
+        queue.add("PRIVMSG #channel :brb");
+        queue.add("PART #channel");
+        queue.add("JOIN #channel");
+        Assert.assertEquals("PRIVMSG #channel :brb", queue.poll());
+        Assert.assertEquals("PART #channel", queue.poll());
+        Assert.assertEquals("JOIN #channel", queue.poll());
+        Assert.assertNull(queue.poll());
+    }
+
+    /**
+     * Tests finding queued lines.
+     */
+    @Test
+    public void testContains() {
+        OutboundQueue queue = new OutboundQueue();
+        queue.add("WHO #channel");
+        Assert.assertTrue(queue.contains("WHO #channel"));
+        Assert.assertFalse(queue.contains("WHO #other"));
+        queue.poll();
+        Assert.assertFalse(queue.contains("WHO #channel"));
+    }
+
+    /**
+     * Tests duplicates are counted until the last copy is sent.
+     */
+    @Test
+    public void testAddIfAbsent() {
+        OutboundQueue queue = new OutboundQueue();
+        Assert.assertTrue(queue.addIfAbsent("WHO #channel"));
+        Assert.assertFalse(queue.addIfAbsent("WHO #channel"));
+        queue.add("WHO #channel");
+        Assert.assertEquals(2, queue.size());
+        queue.poll();
+        Assert.assertTrue(queue.contains("WHO #channel"));
+        queue.poll();
+        Assert.assertFalse(queue.contains("WHO #channel"));
+        Assert.assertTrue(queue.addIfAbsent("WHO #channel"));
+    }
+
+    /**
+     * Tests cancelling a waiting line.
+     */
+    @Test
+    public void testCancel() {
+        OutboundQueue queue = new OutboundQueue();
+        QueuedMessage first = queue.add("PRIVMSG #channel :one");
+        QueuedMessage second = queue.add("PRIVMSG #channel :two");
+        Assert.assertTrue(first.cancel());
+        Assert.assertFalse(first.cancel());
+        Assert.assertEquals(QueuedMessage.State.CANCELLED, first.getState());
+        Assert.assertEquals(1, queue.size());
+        Assert.assertFalse(queue.contains("PRIVMSG #channel :one"));
+        Assert.assertEquals("PRIVMSG #channel :two", queue.poll());
+        Assert.assertEquals(QueuedMessage.State.SENT, second.getState());
+        Assert.assertFalse(second.cancel());
+        Assert.assertNull(queue.poll());
+    }
+
+    /**
+     * Tests rejecting lines once full.
+     */
+    @Test
+    public void testReject() {
+        OutboundQueue queue = new OutboundQueue(2, QueuedMessage.Overflow.REJECT, 0);
+        queue.add("PRIVMSG #channel :one");
+        queue.add("PRIVMSG #channel :two");
+        QueuedMessage third = queue.add("PRIVMSG #channel :three");
+        Assert.assertEquals(QueuedMessage.State.REJECTED, third.getState());
+        Assert.assertFalse(third.cancel());
+        Assert.assertEquals(2, queue.size());
+    }
+
+    /**
+     * Tests dropping the oldest line once full, regardless of lane.
+     */
+    @Test
+    public void testDropOldest() {
+        OutboundQueue queue = new OutboundQueue(2, QueuedMessage.Overflow.DROP_OLDEST, 0);
+        QueuedMessage first = queue.add("WHO #channel");
+        queue.add("PRIVMSG #channel :two");
+        QueuedMessage third = queue.add("PRIVMSG #channel :three");
+        Assert.assertEquals(QueuedMessage.State.DROPPED, first.getState());
+        Assert.assertEquals(QueuedMessage.State.QUEUED, third.getState());
+        Assert.assertEquals(2, queue.size());
+        Assert.assertEquals("PRIVMSG #channel :two", queue.poll());
+        Assert.assertEquals("PRIVMSG #channel :three", queue.poll());
+        Assert.assertNull(queue.poll());
+    }
+
+    /**
+     * Tests lines expiring after their time to live.
+     */
+    @Test
+    public void testExpiry() {
+        AtomicLong now = new AtomicLong();
+        OutboundQueue queue = new OutboundQueue(Integer.MAX_VALUE, QueuedMessage.Overflow.REJECT, 1000, now::get);
+        QueuedMessage first = queue.add("PRIVMSG #channel :one");
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+        QueuedMessage second = queue.add("PRIVMSG bob :two");
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+        Assert.assertEquals("PRIVMSG bob :two", queue.peek());
+        Assert.assertEquals(QueuedMessage.State.EXPIRED, first.getState());
+        Assert.assertEquals(1, queue.size());
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(600));
+        Assert.assertNull(queue.poll());
+        Assert.assertEquals(QueuedMessage.State.EXPIRED, second.getState());
+    }
+
+    /**
+     * Tests the rate limiter is charged for the combined line actually
+     * removed, and a held back line stays queued.
+     */
+    @Test
+    public void testPollCharged() {
+        OutboundQueue queue = new OutboundQueue();
+        List<String> charged = new ArrayList<>();
+        AtomicLong wait = new AtomicLong(250);
+        AtomicLong held = new AtomicLong();
+        RateLimiter limiter = message -> {
+            charged.add(message);
+            return wait.get();
+        };
+        LineCombiner combiner = new LineCombiner(command -> -1);
+        queue.add("JOIN #a");
+        QueuedMessage second = queue.add("JOIN #b");
+        Assert.assertNull(queue.poll(limiter, combiner, held::set));
+        Assert.assertEquals(250, held.get());
+        Assert.assertEquals(2, queue.size());
+        Assert.assertTrue(second.cancel());
+        wait.set(0);
+        Assert.assertEquals("JOIN #a", queue.poll(limiter, combiner, held::set));
+        Assert.assertEquals(Arrays.asList("JOIN #a,#b", "JOIN #a"), charged);
+        Assert.assertNull(queue.poll(limiter, combiner, held::set));
+        Assert.assertEquals(2, charged.size());
+    }
+
+    /**
+     * Tests clearing marks waiting lines dropped.
+     */
+    @Test
+    public void testClear() {
+        OutboundQueue queue = new OutboundQueue();
+        QueuedMessage message = queue.add("PRIVMSG #channel :hi");
+        queue.clear();
+        Assert.assertEquals(QueuedMessage.State.DROPPED, message.getState());
+        Assert.assertEquals(0, queue.size());
+        Assert.assertNull(queue.peek());
+    }
+}
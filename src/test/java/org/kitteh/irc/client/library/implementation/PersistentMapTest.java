@@ -0,0 +1,73 @@
+package org.kitteh.irc.client.library.implementation;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * Tests the persistent map used for channel snapshots.
+ */
+public class PersistentMapTest {
+    /**
+     * Tests random operations against a TreeMap, keeping balance.
+     */
+    @Test
+    public void randomOperations() {
+        Random random = new Random(42);
+        PersistentMap<Integer, Integer> map = PersistentMap.empty(Comparator.naturalOrder());
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        for (int i = 0; i < 5000; i++) {
+            int key = random.nextInt(1000);
+            if (random.nextInt(3) == 0) {
+                map = map.remove(key);
+                expected.remove(key);
+            } else {
+                map = map.put(key, i);
+                expected.put(key, i);
+            }
+            Assert.assertEquals(expected.size(), map.size());
+        }
+        Assert.assertEquals(new ArrayList<>(expected.keySet()), map.keys());
+        Assert.assertEquals(new ArrayList<>(expected.values()), map.values());
+        for (int key = 0; key < 1000; key++) {
+            Assert.assertEquals(expected.get(key), map.get(key));
+        }
+        // AVL height bound, 1.44 log2(n + 2)
+        Assert.assertTrue(map.height() <= (1.45 * (Math.log(map.size() + 2) / Math.log(2))));
+    }
+
+    /**
+     * Tests that earlier versions are unaffected by later changes.
+     */
+    @Test
+    public void persistence() {
+        PersistentMap<String, String> empty = PersistentMap.empty(String.CASE_INSENSITIVE_ORDER);
+        PersistentMap<String, String> one = empty.put("kitteh", "cat");
+        PersistentMap<String, String> two = one.put("Kitteh", "kitten").put("dog", "woof");
+        PersistentMap<String, String> three = two.remove("KITTEH");
+        Assert.assertTrue(empty.isEmpty());
+        Assert.assertEquals("cat", one.get("KITTEH"));
+        Assert.assertEquals(1, one.size());
+        Assert.assertEquals("kitten", two.get("kitteh"));
+        Assert.assertEquals("Kitteh", two.keys().get(1));
+        Assert.assertEquals(2, two.size());
+        Assert.assertFalse(three.containsKey("kitteh"));
+        Assert.assertSame(three, three.remove("meow"));
+    }
+
+    /**
+     * Tests reordering by another comparator.
+     */
+    @Test
+    public void withComparator() {
+        PersistentMap<String, Integer> map = PersistentMap.<String, Integer>empty(Comparator.naturalOrder()).put("a", 1).put("B", 2).put("b", 3);
+        Assert.assertEquals(3, map.size());
+        PersistentMap<String, Integer> folded = map.withComparator(String.CASE_INSENSITIVE_ORDER);
+        Assert.assertEquals(2, folded.size());
+        Assert.assertEquals(Integer.valueOf(3), folded.get("B"));
+    }
+}
@@ -0,0 +1,196 @@
+package org.kitteh.irc.client.library.implementation;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tests queue processing on a shared executor.
+ */
+public class QueueProcessorTest {
+    private static final int ITEMS = 10000;
+
+    private static class Recorder extends QueueProcessor<Integer> {
+        private final List<Integer> processed = new ArrayList<>();
+        private final List<Integer> cleaned = new ArrayList<>();
+        private final List<Exception> reported = new ArrayList<>();
+        private final AtomicBoolean running = new AtomicBoolean();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile boolean overlapped;
+
+        private Recorder(Executor executor) {
+            super("Test", executor);
+        }
+
+        @Override
+        protected void processElement(@Nonnull Integer element) {
+            if (element < 0) {
+                throw new IllegalStateException("Negative");
+            }
+            if (!this.running.compareAndSet(false, true)) {
+                this.overlapped = true;
+            }
+            this.processed.add(element);
+            if (element == (ITEMS - 1)) {
+                this.done.countDown();
+            }
+            this.running.set(false);
+        }
+
+        @Override
+        protected void reportException(@Nonnull Exception exception) {
+            this.reported.add(exception);
+        }
+
+        @Override
+        protected void cleanup(@Nonnull Queue<Integer> remainingQueue) {
+            this.cleaned.addAll(remainingQueue);
+            this.done.countDown();
+        }
+    }
+
+    /**
+     * Tests items are processed in order and one at a time per processor
+     * while sharing a pool.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void orderedOnSharedExecutor() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Recorder> recorders = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                recorders.add(new Recorder(executor));
+            }
+            for (int item = 0; item < ITEMS; item++) {
+                for (Recorder recorder : recorders) {
+                    recorder.queue(item);
+                }
+            }
+            for (Recorder recorder : recorders) {
+                Assert.assertTrue(recorder.done.await(10, TimeUnit.SECONDS));
+                Assert.assertFalse(recorder.overlapped);
+                Assert.assertEquals(ITEMS, recorder.processed.size());
+                for (int item = 0; item < ITEMS; item++) {
+                    Assert.assertEquals(item, recorder.processed.get(item).intValue());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Tests shutdown hands unprocessed items to cleanup.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void shutdownCleansUp() throws InterruptedException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CountDownLatch blocker = new CountDownLatch(1);
+            executor.execute(() -> {
+                try {
+                    blocker.await();
+                } catch (InterruptedException ignored) {
+                }
+            });
+            Recorder recorder = new Recorder(executor);
+            recorder.queue(1);
+            recorder.queue(2);
+            recorder.shutdown();
+            recorder.queue(3);
+            blocker.countDown();
+            Assert.assertTrue(recorder.done.await(10, TimeUnit.SECONDS));
+            Assert.assertTrue(recorder.processed.isEmpty());
+            Assert.assertEquals(2, recorder.cleaned.size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Tests a rejected task is reported and the next item tries again.
+     */
+    @Test
+    public void rejectionReported() {
+        AtomicBoolean reject = new AtomicBoolean(true);
+        Recorder recorder = new Recorder(command -> {
+            if (reject.get()) {
+                throw new RejectedExecutionException("Full");
+            }
+            command.run();
+        });
+        recorder.queue(1);
+        Assert.assertTrue(recorder.processed.isEmpty());
+        Assert.assertEquals(1, recorder.reported.size());
+        Assert.assertTrue(recorder.reported.get(0) instanceof RejectedExecutionException);
+        reject.set(false);
+        recorder.queue(2);
+        Assert.assertEquals(2, recorder.processed.size());
+    }
+
+    /**
+     * Tests shutdown still cleans up when the executor rejects it.
+     */
+    @Test
+    public void rejectedShutdownCleansUp() {
+        Recorder recorder = new Recorder(command -> {
+            throw new RejectedExecutionException("Shut down");
+        });
+        recorder.queue(1);
+        recorder.queue(2);
+        recorder.shutdown();
+        Assert.assertTrue(recorder.processed.isEmpty());
+        Assert.assertEquals(Arrays.asList(1, 2), recorder.cleaned);
+        Assert.assertEquals(3, recorder.reported.size());
+    }
+
+    /**
+     * Tests cleanup runs once for a repeated shutdown, and the processor
+     * isn't left waiting on a task afterwards.
+     */
+    @Test
+    public void repeatedShutdownCleansUpOnce() {
+        Queue<Runnable> tasks = new ArrayDeque<>();
+        Recorder recorder = new Recorder(tasks::add);
+        recorder.queue(1);
+        recorder.shutdown();
+        tasks.poll().run();
+        Assert.assertEquals(Collections.singletonList(1), recorder.cleaned);
+        Assert.assertTrue(tasks.isEmpty());
+        recorder.shutdown();
+        tasks.poll().run();
+        Assert.assertEquals(Collections.singletonList(1), recorder.cleaned);
+    }
+
+    /**
+     * Tests an exception escaping processing is reported and processing
+     * carries on.
+     */
+    @Test
+    public void processingExceptionReported() {
+        Recorder recorder = new Recorder(Runnable::run);
+        recorder.queue(-1);
+        recorder.queue(1);
+        Assert.assertEquals(1, recorder.reported.size());
+        Assert.assertTrue(recorder.reported.get(0) instanceof IllegalStateException);
+        Assert.assertEquals(1, recorder.processed.size());
+    }
+}
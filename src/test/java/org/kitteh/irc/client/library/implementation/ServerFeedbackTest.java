@@ -0,0 +1,99 @@
+package org.kitteh.irc.client.library.implementation;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.kitteh.irc.client.library.util.RateLimiter;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests lag and flood complaints from the server reach the rate limiter.
+ */
+public class ServerFeedbackTest {
+    /**
+     * Records what it's told, never holding anything back.
+     */
+    public static class RecordingLimiter implements RateLimiter {
+        private final BlockingQueue<String> reports = new LinkedBlockingQueue<>();
+
+        @Override
+        public long acquire(@Nonnull String message) {
+            return 0;
+        }
+
+        @Override
+        public void reportLag(long millis) {
+            this.reports.add("lag");
+        }
+
+        @Override
+        public void reportThrottle() {
+            this.reports.add("throttle");
+        }
+    }
+
+    private ExecutorService executor;
+    private IRCClient client;
+    private EmbeddedServer server;
+    private RecordingLimiter limiter;
+
+    /**
+     * Connects a client to an embedded channel.
+     */
+    @Before
+    public void connect() {
+        this.executor = Executors.newSingleThreadExecutor();
+        this.limiter = new RecordingLimiter();
+        Config config = new Config();
+        config.set(Config.SSL, false);
+        config.set(Config.EXECUTOR, this.executor);
+        config.set(Config.RATE_LIMITER, this.limiter);
+        this.client = new IRCClient(config);
+        this.server = new EmbeddedServer(this.client);
+        this.server.getConnection().startSending();
+    }
+
+    /**
+     * Lets processing finish.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @After
+    public void shutdown() throws InterruptedException {
+        this.executor.shutdown();
+        Assert.assertTrue(this.executor.awaitTermination(10, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Tests TRYAGAIN and flood-related ERROR lines report throttling, and
+     * only the answer to our own ping reports lag.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void reports() throws InterruptedException {
+        this.server.send(":irc.network 263 Kitteh PRIVMSG :Server load is temporarily too heavy. Please wait a while and try again.");
+        this.server.send("ERROR :Closing Link: kitteh.cat (Ping timeout)");
+        this.server.send("ERROR :Closing Link: kitteh.cat (Excess Flood)");
+        this.server.send(":irc.network PONG irc.network :not ours");
+
+        this.client.ping();
+        String ping = this.server.receive();
+        Assert.assertNotNull(ping);
+        String purr = ping.substring("PING ".length());
+        this.server.send(":irc.network PONG irc.network :" + purr);
+        // Answered already, so a repeat isn't measured
+        this.server.send(":irc.network PONG irc.network :" + purr);
+
+        this.executor.shutdown();
+        Assert.assertTrue(this.executor.awaitTermination(10, TimeUnit.SECONDS));
+        Assert.assertArrayEquals(new String[]{"throttle", "throttle", "lag"}, this.limiter.reports.toArray());
+    }
+}
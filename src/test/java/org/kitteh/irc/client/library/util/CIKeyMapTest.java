@@ -12,11 +12,13 @@ import org.kitteh.irc.client.library.feature.ServerInfo;
 import org.mockito.Mockito;
 
 import javax.annotation.Nonnull;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Tests the CIKeyMap.
@@ -106,6 +108,69 @@ public class CIKeyMapTest {
         Assert.assertEquals(1, sut.size());
     }
 
+    /**
+     * Tests keys are rehashed once the case mapping changes.
+     */
+    @Test
+    public void testCaseMappingChange() {
+        Client client = Mockito.mock(Client.class);
+        Mockito.when(client.getServerInfo()).thenReturn(new StubServerInfo(CaseMapping.ASCII));
+        CIKeyMap<String> sut = new CIKeyMap<>(client);
+        sut.put("[Cat]", "kitten");
+        Assert.assertTrue(sut.containsKey("[cat]"));
+        Assert.assertFalse(sut.containsKey("{cat}"));
+
+        Mockito.when(client.getServerInfo()).thenReturn(new StubServerInfo(CaseMapping.RFC1459));
+        Assert.assertTrue(sut.containsKey("{cat}"));
+        Assert.assertEquals("kitten", sut.get("{CAT}"));
+        Assert.assertArrayEquals(new String[]{"[Cat]"}, sut.keySet().toArray());
+    }
+
+    /**
+     * Tests no put or remove is lost while the case mapping keeps changing.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testConcurrentCaseMappingChange() throws InterruptedException {
+        AtomicReference<CaseMapping> caseMapping = new AtomicReference<>(CaseMapping.ASCII);
+        ServerInfo serverInfo = Mockito.mock(ServerInfo.class);
+        Mockito.when(serverInfo.getCaseMapping()).thenAnswer(invocation -> caseMapping.get());
+        Client client = Mockito.mock(Client.class);
+        Mockito.when(client.getServerInfo()).thenReturn(serverInfo);
+        CIKeyMap<Integer> sut = new CIKeyMap<>(client);
+
+        int threadCount = 4;
+        int keyCount = 2000;
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < threadCount; t++) {
+            String prefix = "[Cat" + t + '_';
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < keyCount; i++) {
+                    sut.put(prefix + i + ']', i);
+                    if ((i % 2) == 1) {
+                        sut.remove(prefix + i + ']');
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        while (threads.stream().anyMatch(Thread::isAlive)) {
+            caseMapping.set((caseMapping.get() == CaseMapping.ASCII) ? CaseMapping.RFC1459 : CaseMapping.ASCII);
+            Thread.yield();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(threadCount * keyCount / 2, sut.size());
+        for (int t = 0; t < threadCount; t++) {
+            for (int i = 0; i < keyCount; i++) {
+                Assert.assertEquals(((i % 2) == 0) ? Integer.valueOf(i) : null, sut.get("[cat" + t + '_' + i + ']'));
+            }
+        }
+    }
+
     /**
      * Gets a mock client with a certain casemapping.
      *
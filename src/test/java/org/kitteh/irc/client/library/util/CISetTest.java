@@ -12,11 +12,13 @@ import org.kitteh.irc.client.library.feature.ServerInfo;
 import org.mockito.Mockito;
 
 import javax.annotation.Nonnull;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Tests CISet.
@@ -92,6 +94,49 @@ public class CISetTest {
         Assert.assertTrue(sut.contains("{cat}"));
     }
 
+    /**
+     * Tests no add or remove is lost while the case mapping keeps changing.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void testConcurrentCaseMappingChange() throws InterruptedException {
+        AtomicReference<CaseMapping> caseMapping = new AtomicReference<>(CaseMapping.ASCII);
+        ServerInfo serverInfo = Mockito.mock(ServerInfo.class);
+        Mockito.when(serverInfo.getCaseMapping()).thenAnswer(invocation -> caseMapping.get());
+        Client client = Mockito.mock(Client.class);
+        Mockito.when(client.getServerInfo()).thenReturn(serverInfo);
+        CISet sut = new CISet(client);
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            String prefix = "[Cat" + t + '_';
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    sut.add(prefix + i + ']');
+                    if ((i % 2) == 1) {
+                        sut.remove(prefix + i + ']');
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        while (threads.stream().anyMatch(Thread::isAlive)) {
+            caseMapping.set((caseMapping.get() == CaseMapping.ASCII) ? CaseMapping.RFC1459 : CaseMapping.ASCII);
+            Thread.yield();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        Assert.assertEquals(4000, sut.size());
+        for (int t = 0; t < 4; t++) {
+            for (int i = 0; i < 2000; i++) {
+                Assert.assertEquals((i % 2) == 0, sut.contains("[cat" + t + '_' + i + ']'));
+            }
+        }
+    }
+
     /**
      * Gets a mock client with a certain casemapping.
      *
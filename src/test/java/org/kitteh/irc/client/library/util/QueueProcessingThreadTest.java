@@ -0,0 +1,108 @@
+package org.kitteh.irc.client.library.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the queue processing thread.
+ */
+public class QueueProcessingThreadTest {
+    private static class Recorder extends QueueProcessingThread<Integer> {
+        private final List<Integer> processed = new ArrayList<>();
+        private volatile CountDownLatch latch;
+        private volatile CountDownLatch gate;
+        private volatile List<Integer> remaining;
+
+        private Recorder(int capacity, int expected) {
+            super("Test", capacity);
+            this.latch = new CountDownLatch(expected);
+        }
+
+        @Override
+        protected void processElement(Integer element) {
+            CountDownLatch gate = this.gate;
+            if (gate != null) {
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    this.interrupt();
+                }
+            }
+            this.processed.add(element);
+            this.latch.countDown();
+        }
+
+        @Override
+        protected void cleanup(Queue<Integer> remainingQueue) {
+            this.remaining = new ArrayList<>(remainingQueue);
+        }
+    }
+
+    /**
+     * Tests items from several producers are all processed, each
+     * producer's in order.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void multipleProducers() throws InterruptedException {
+        int producers = 4;
+        int items = 25000;
+        Recorder recorder = new Recorder(Integer.MAX_VALUE, producers * items);
+        List<Thread> threads = new ArrayList<>();
+        for (int producer = 0; producer < producers; producer++) {
+            int base = producer * items;
+            Thread thread = new Thread(() -> {
+                for (int item = 0; item < items; item++) {
+                    recorder.queue(base + item);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertTrue(recorder.latch.await(10, TimeUnit.SECONDS));
+        int[] last = new int[producers];
+        for (int producer = 0; producer < producers; producer++) {
+            last[producer] = (producer * items) - 1;
+        }
+        for (int element : recorder.processed) {
+            int producer = element / items;
+            Assert.assertEquals(last[producer] + 1, element);
+            last[producer] = element;
+        }
+        recorder.interrupt();
+    }
+
+    /**
+     * Tests the capacity bound and handing over the remainder on
+     * interruption.
+     *
+     * @throws InterruptedException if interrupted
+     */
+    @Test
+    public void capacity() throws InterruptedException {
+        Recorder recorder = new Recorder(2, 1);
+        recorder.gate = new CountDownLatch(1);
+        Assert.assertTrue(recorder.offer(1));
+        while (recorder.getQueueSize() > 0) {
+            Thread.yield(); // Wait for the first to be taken and held
+        }
+        Assert.assertTrue(recorder.offer(2));
+        Assert.assertTrue(recorder.offer(3));
+        Assert.assertFalse(recorder.offer(4));
+        Assert.assertEquals(2, recorder.getQueueSize());
+        recorder.interrupt();
+        recorder.join(10000);
+        Assert.assertEquals(1, recorder.processed.size());
+        Assert.assertEquals(2, recorder.remaining.size());
+    }
+}
@@ -0,0 +1,123 @@
+package org.kitteh.irc.client.library.util;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests the token bucket rate limiter.
+ */
+public class RateLimiterTest {
+    private final AtomicLong now = new AtomicLong();
+
+    private void advance(long millis) {
+        this.now.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    /**
+     * Tests bursting, then waiting for refill.
+     */
+    @Test
+    public void testBurst() {
+        RateLimiter limiter = new RateLimiter.TokenBucket(3, 1000, 0, this.now::get);
+        Assert.assertEquals(0, limiter.acquire("A"));
+        Assert.assertEquals(0, limiter.acquire("B"));
+        Assert.assertEquals(0, limiter.acquire("C"));
+        Assert.assertEquals(1000, limiter.acquire("D"));
+        this.advance(400);
+        Assert.assertEquals(600, limiter.acquire("D"));
+        this.advance(600);
+        Assert.assertEquals(0, limiter.acquire("D"));
+        Assert.assertEquals(1000, limiter.acquire("E"));
+    }
+
+    /**
+     * Tests that idle time does not build up beyond the burst.
+     */
+    @Test
+    public void testIdleCapped() {
+        RateLimiter limiter = new RateLimiter.TokenBucket(2, 1000, 0, this.now::get);
+        this.advance(60000);
+        Assert.assertEquals(0, limiter.acquire("A"));
+        Assert.assertEquals(0, limiter.acquire("B"));
+        Assert.assertTrue(limiter.acquire("C") > 0);
+    }
+
+    /**
+     * Tests charging by length.
+     */
+    @Test
+    public void testByteWeighted() {
+        RateLimiter limiter = new RateLimiter.TokenBucket(4, 1000, 10, this.now::get);
+        Assert.assertEquals(0, limiter.acquire("0123456789ABC"));
+        Assert.assertEquals(0, limiter.acquire("short"));
+        Assert.assertEquals(1000, limiter.acquire("also short"));
+        this.advance(1000);
+        Assert.assertEquals(0, limiter.acquire("also short"));
+    }
+
+    /**
+     * Tests changing the refill interval keeps lines already sent charged
+     * at the old interval.
+     */
+    @Test
+    public void testSetRefill() {
+        RateLimiter.TokenBucket limiter = new RateLimiter.TokenBucket(2, 1000, 0, this.now::get);
+        Assert.assertEquals(0, limiter.acquire("A"));
+        Assert.assertEquals(0, limiter.acquire("B"));
+        limiter.setRefillMillis(500);
+        Assert.assertEquals(500, limiter.getRefillMillis());
+        // Full again 2000ms in at the old rate, so one more token at the new rate is 1500ms in
+        Assert.assertEquals(1500, limiter.acquire("C"));
+        this.advance(1500);
+        Assert.assertEquals(0, limiter.acquire("C"));
+        Assert.assertEquals(500, limiter.acquire("D"));
+        RateLimiter.Adaptive adaptive = new RateLimiter.Adaptive(1, 1000, 250, 4000, this.now::get);
+        adaptive.setRefillMillis(10000);
+        Assert.assertEquals(4000, adaptive.getRefillMillis());
+    }
+
+    /**
+     * Tests a line costing more than the burst still goes out eventually.
+     */
+    @Test
+    public void testOversized() {
+        RateLimiter limiter = new RateLimiter.TokenBucket(2, 1000, 1, this.now::get);
+        Assert.assertEquals(0, limiter.acquire("much too long"));
+        Assert.assertEquals(2000, limiter.acquire("much too long"));
+    }
+
+    /**
+     * Tests adaptive tuning stays within bounds.
+     */
+    @Test
+    public void testAdaptive() {
+        RateLimiter.Adaptive limiter = new RateLimiter.Adaptive(1, 1000, 250, 4000, this.now::get);
+        limiter.reportThrottle();
+        Assert.assertEquals(2000, limiter.getRefillMillis());
+        limiter.reportLag(RateLimiter.Adaptive.LAG_HIGH);
+        Assert.assertEquals(3000, limiter.getRefillMillis());
+        limiter.reportThrottle();
+        Assert.assertEquals(4000, limiter.getRefillMillis());
+        limiter.reportLag(RateLimiter.Adaptive.LAG_LOW);
+        Assert.assertEquals(4000, limiter.getRefillMillis());
+        limiter.reportLag(0);
+        Assert.assertEquals(3600, limiter.getRefillMillis());
+        Assert.assertEquals(0, limiter.acquire("A"));
+        Assert.assertEquals(3600, limiter.acquire("B"));
+        for (int i = 0; i < 100; i++) {
+            limiter.reportLag(0);
+        }
+        Assert.assertEquals(250, limiter.getRefillMillis());
+    }
+
+    /**
+     * Tests rejecting nonsense settings.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroBurst() {
+        new RateLimiter.TokenBucket(0, 1000);
+    }
+}